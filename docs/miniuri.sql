@@ -8,14 +8,52 @@ CREATE TABLE `url_mapping`
     `short_url`   varchar(255) CHARACTER SET utf8mb4 COLLATE utf8mb4_general_ci  NOT NULL COMMENT '短链接',
     `long_url`    varchar(1000) CHARACTER SET utf8mb4 COLLATE utf8mb4_general_ci NOT NULL COMMENT '长链接',
     `build_type`  tinyint                                                        NOT NULL COMMENT '生成类型',
+    `url_fingerprint` bigint DEFAULT NULL COMMENT '长链接指纹（murmur3_128 低 64 位）',
     `expire_time` datetime DEFAULT NULL COMMENT '过期时间',
     `create_time` datetime DEFAULT NULL COMMENT '创建时间',
     `update_time` datetime DEFAULT NULL COMMENT '更新时间',
     PRIMARY KEY (`id`) USING BTREE,
-    UNIQUE INDEX `short_url` (`short_url`) USING BTREE
+    UNIQUE INDEX `short_url` (`short_url`) USING BTREE,
+    INDEX `idx_url_fingerprint` (`url_fingerprint`) USING BTREE,
+    INDEX `idx_create_time` (`create_time`) USING BTREE
 ) ENGINE = InnoDB
   CHARACTER SET = utf8mb4
   COLLATE = utf8mb4_general_ci
   ROW_FORMAT = Dynamic;
 
+DROP TABLE IF EXISTS `url_click_stats`;
+CREATE TABLE `url_click_stats`
+(
+    `id`          bigint                                                        NOT NULL AUTO_INCREMENT,
+    `short_url`   varchar(255) CHARACTER SET utf8mb4 COLLATE utf8mb4_general_ci NOT NULL COMMENT '短链接',
+    `stat_date`   date                                                          NOT NULL COMMENT '统计日期',
+    `click_count` bigint                                                        NOT NULL DEFAULT 0 COMMENT '点击次数',
+    `create_time` datetime DEFAULT NULL COMMENT '创建时间',
+    `update_time` datetime DEFAULT NULL COMMENT '更新时间',
+    PRIMARY KEY (`id`) USING BTREE,
+    UNIQUE INDEX `uk_short_url_date` (`short_url`, `stat_date`) USING BTREE
+) ENGINE = InnoDB
+  CHARACTER SET = utf8mb4
+  COLLATE = utf8mb4_general_ci
+  COMMENT = '短链每日点击统计表'
+  ROW_FORMAT = Dynamic;
+
+DROP TABLE IF EXISTS `id_segment`;
+CREATE TABLE `id_segment`
+(
+    `biz_tag`     varchar(64) CHARACTER SET utf8mb4 COLLATE utf8mb4_general_ci NOT NULL COMMENT '业务标识',
+    `max_id`      bigint                                                       NOT NULL COMMENT '已分配的最大 id',
+    `step`        int                                                          NOT NULL COMMENT '默认号段步长',
+    `update_time` datetime DEFAULT NULL COMMENT '更新时间',
+    PRIMARY KEY (`biz_tag`) USING BTREE
+) ENGINE = InnoDB
+  CHARACTER SET = utf8mb4
+  COLLATE = utf8mb4_general_ci
+  ROW_FORMAT = Dynamic;
+
+-- 号段短链从 62^8 开始，编码固定为 9 位；hash 短链是十进制字符串的 base62 编码，长度不会是 9 位，两者不会冲突
+INSERT INTO `id_segment` (`biz_tag`, `max_id`, `step`, `update_time`) VALUES ('short_url', 218340105584895, 1000, now());
+-- 短链池计数器，经 Feistel 置换后编码为 z 开头的 9 位短链
+INSERT INTO `id_segment` (`biz_tag`, `max_id`, `step`, `update_time`) VALUES ('short_url_pool', 0, 1000, now());
+
 SET FOREIGN_KEY_CHECKS = 1;
@@ -0,0 +1,15 @@
+-- 已有部署的升级脚本，新部署直接执行 miniuri.sql 即可
+-- 按顺序执行尚未执行过的部分
+
+-- 同一长链接复用已有短链：长链接指纹
+ALTER TABLE `url_mapping`
+    ADD COLUMN `url_fingerprint` bigint DEFAULT NULL COMMENT '长链接指纹（murmur3_128 低 64 位）' AFTER `build_type`,
+    ADD INDEX `idx_url_fingerprint` (`url_fingerprint`) USING BTREE;
+
+-- 多日 UV 去重合并：每日 HyperLogLog sketch
+ALTER TABLE `visitor_stats`
+    ADD COLUMN `uv_sketch` blob DEFAULT NULL COMMENT 'UV HyperLogLog(Redis 原始编码，用于多日去重合并)' AFTER `unique_count`;
+
+-- 存在性过滤器按 create_time 增量同步
+ALTER TABLE `url_mapping`
+    ADD INDEX `idx_create_time` (`create_time`) USING BTREE;
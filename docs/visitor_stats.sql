@@ -7,6 +7,7 @@ CREATE TABLE `visitor_stats`
     `page_name`   varchar(100) NOT NULL COMMENT '页面名称',
     `visit_count` bigint       NOT NULL DEFAULT 0 COMMENT '访问次数(PV)',
     `unique_count` bigint      NOT NULL DEFAULT 0 COMMENT '独立访客数(UV)',
+    `uv_sketch`   blob         DEFAULT NULL COMMENT 'UV HyperLogLog(Redis 原始编码，用于多日去重合并)',
     `stat_date`   date         NOT NULL COMMENT '统计日期',
     `create_time` datetime     DEFAULT NULL COMMENT '创建时间',
     `update_time` datetime     DEFAULT NULL COMMENT '更新时间',
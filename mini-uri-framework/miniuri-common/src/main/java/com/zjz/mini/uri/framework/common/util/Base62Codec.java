@@ -0,0 +1,120 @@
+package com.zjz.mini.uri.framework.common.util;
+
+import java.util.Arrays;
+
+/**
+ * base62 编解码：非负 long 与短码互转，查表实现
+ * <p>
+ * 字母表为 0-9A-Za-z，定长编码时高位补 '0'。
+ *
+ * @author hkz329
+ */
+public final class Base62Codec {
+
+    private static final char[] ALPHABET = "0123456789ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz".toCharArray();
+
+    /**
+     * 字符 -> 数值，非法字符为 -1
+     */
+    private static final byte[] INDEX = new byte[128];
+
+    /**
+     * 62^0 .. 62^10，62^10 是 long 范围内最大的幂
+     */
+    private static final long[] POWERS = new long[11];
+
+    /**
+     * Long.MAX_VALUE 的编码长度
+     */
+    public static final int MAX_WIDTH = 11;
+
+    static {
+        Arrays.fill(INDEX, (byte) -1);
+        for (int i = 0; i < ALPHABET.length; i++) {
+            INDEX[ALPHABET[i]] = (byte) i;
+        }
+        POWERS[0] = 1;
+        for (int i = 1; i < POWERS.length; i++) {
+            POWERS[i] = POWERS[i - 1] * 62;
+        }
+    }
+
+    private Base62Codec() {
+    }
+
+    /**
+     * 62^width，width 不超过 10
+     */
+    public static long pow(int width) {
+        return POWERS[width];
+    }
+
+    /**
+     * 最短编码
+     */
+    public static String encode(long value) {
+        checkNonNegative(value);
+        char[] buf = new char[MAX_WIDTH];
+        int pos = buf.length;
+        do {
+            buf[--pos] = ALPHABET[(int) (value % 62)];
+            value /= 62;
+        } while (value > 0);
+        return new String(buf, pos, buf.length - pos);
+    }
+
+    /**
+     * 定长编码，高位补 '0'
+     *
+     * @throws IllegalArgumentException value 为负数或超出 width 位能表示的范围
+     */
+    public static String encode(long value, int width) {
+        char[] buf = new char[width];
+        encode(value, buf, 0, width);
+        return new String(buf);
+    }
+
+    /**
+     * 定长编码写入 dst[offset, offset + width)
+     */
+    public static void encode(long value, char[] dst, int offset, int width) {
+        checkNonNegative(value);
+        if (width < MAX_WIDTH && value >= POWERS[width]) {
+            throw new IllegalArgumentException("value " + value + " exceeds base62 width " + width);
+        }
+        for (int i = offset + width - 1; i >= offset; i--) {
+            dst[i] = ALPHABET[(int) (value % 62)];
+            value /= 62;
+        }
+    }
+
+    /**
+     * 解码
+     *
+     * @throws IllegalArgumentException 含非法字符或超出 long 范围
+     */
+    public static long decode(CharSequence code) {
+        if (code.isEmpty()) {
+            throw new IllegalArgumentException("empty base62 code");
+        }
+        long value = 0;
+        for (int i = 0; i < code.length(); i++) {
+            char c = code.charAt(i);
+            int digit = c < 128 ? INDEX[c] : -1;
+            if (digit < 0) {
+                throw new IllegalArgumentException("illegal base62 char '" + c + "' in " + code);
+            }
+            if (value > (Long.MAX_VALUE - digit) / 62) {
+                throw new IllegalArgumentException("base62 code overflows long: " + code);
+            }
+            value = value * 62 + digit;
+        }
+        return value;
+    }
+
+    private static void checkNonNegative(long value) {
+        if (value < 0) {
+            throw new IllegalArgumentException("negative value: " + value);
+        }
+    }
+}
@@ -0,0 +1,138 @@
+package com.zjz.mini.uri.framework.common.util;
+
+/**
+ * MurmurHash3 x64_128（seed 0）
+ * <p>
+ * 直接按字符流式计算 UTF-8 编码的哈希，不生成中间 byte[]，
+ * 结果与 Guava {@code Hashing.murmur3_128().hashString(s, UTF_8)} 一致（孤立代理字符按 '?' 处理，同 {@link String#getBytes}）。
+ *
+ * @author hkz329
+ */
+public final class Murmur3 {
+
+    private static final long C1 = 0x87c37b91114253d5L;
+
+    private static final long C2 = 0x4cf5ad432745937fL;
+
+    private Murmur3() {
+    }
+
+    /**
+     * 128 位哈希的低 64 位，等同 Guava HashCode#asLong
+     */
+    public static long hash64(CharSequence value) {
+        return hash(value, null);
+    }
+
+    /**
+     * 128 位哈希，[0] 为低 64 位，[1] 为高 64 位
+     */
+    public static long[] hash128(CharSequence value) {
+        long[] out = new long[2];
+        hash(value, out);
+        return out;
+    }
+
+    private static long hash(CharSequence value, long[] out) {
+        long h1 = 0;
+        long h2 = 0;
+        // 当前 16 字节块，k1 为前 8 字节，k2 为后 8 字节（小端）
+        long k1 = 0;
+        long k2 = 0;
+        int blockLen = 0;
+        long totalLen = 0;
+        int length = value.length();
+        for (int i = 0; i < length; i++) {
+            char c = value.charAt(i);
+            // 一个字符编码后的字节，低位在前
+            int packed;
+            int count;
+            if (c < 0x80) {
+                packed = c;
+                count = 1;
+            } else if (c < 0x800) {
+                packed = (0xC0 | (c >>> 6)) | (0x80 | (c & 0x3F)) << 8;
+                count = 2;
+            } else if (Character.isSurrogate(c)) {
+                char low;
+                if (Character.isHighSurrogate(c) && i + 1 < length && Character.isLowSurrogate(low = value.charAt(i + 1))) {
+                    int cp = Character.toCodePoint(c, low);
+                    packed = (0xF0 | (cp >>> 18))
+                            | (0x80 | ((cp >>> 12) & 0x3F)) << 8
+                            | (0x80 | ((cp >>> 6) & 0x3F)) << 16
+                            | (0x80 | (cp & 0x3F)) << 24;
+                    count = 4;
+                    i++;
+                } else {
+                    packed = '?';
+                    count = 1;
+                }
+            } else {
+                packed = (0xE0 | (c >>> 12)) | (0x80 | ((c >>> 6) & 0x3F)) << 8 | (0x80 | (c & 0x3F)) << 16;
+                count = 3;
+            }
+            for (int j = 0; j < count; j++) {
+                long b = (packed >>> (j << 3)) & 0xFF;
+                if (blockLen < 8) {
+                    k1 |= b << (blockLen << 3);
+                } else {
+                    k2 |= b << ((blockLen - 8) << 3);
+                }
+                if (++blockLen == 16) {
+                    h1 ^= mixK1(k1);
+                    h1 = Long.rotateLeft(h1, 27);
+                    h1 += h2;
+                    h1 = h1 * 5 + 0x52dce729;
+                    h2 ^= mixK2(k2);
+                    h2 = Long.rotateLeft(h2, 31);
+                    h2 += h1;
+                    h2 = h2 * 5 + 0x38495ab5;
+                    k1 = 0;
+                    k2 = 0;
+                    blockLen = 0;
+                }
+            }
+            totalLen += count;
+        }
+        // 尾部不足 16 字节
+        h1 ^= mixK1(k1);
+        h2 ^= mixK2(k2);
+
+        h1 ^= totalLen;
+        h2 ^= totalLen;
+        h1 += h2;
+        h2 += h1;
+        h1 = fmix64(h1);
+        h2 = fmix64(h2);
+        h1 += h2;
+        h2 += h1;
+        if (null != out) {
+            out[0] = h1;
+            out[1] = h2;
+        }
+        return h1;
+    }
+
+    private static long mixK1(long k1) {
+        k1 *= C1;
+        k1 = Long.rotateLeft(k1, 31);
+        k1 *= C2;
+        return k1;
+    }
+
+    private static long mixK2(long k2) {
+        k2 *= C2;
+        k2 = Long.rotateLeft(k2, 33);
+        k2 *= C1;
+        return k2;
+    }
+
+    private static long fmix64(long k) {
+        k ^= k >>> 33;
+        k *= 0xff51afd7ed558ccdL;
+        k ^= k >>> 33;
+        k *= 0xc4ceb9fe1a85ec53L;
+        k ^= k >>> 33;
+        return k;
+    }
+}
@@ -1,10 +1,27 @@
 package com.zjz.mini.uri.run.application;
 
+import cn.hutool.core.util.StrUtil;
 import cn.hutool.extra.spring.SpringUtil;
+import com.zjz.mini.uri.framework.common.util.UrlUtils;
+import com.zjz.mini.uri.run.domain.dto.GenerateBatchItem;
+import com.zjz.mini.uri.run.domain.dto.GenerateBatchReq;
 import com.zjz.mini.uri.run.domain.dto.GenerateUrlReq;
-import com.zjz.mini.uri.run.domain.service.strategy.HashShortUrl;
+import com.zjz.mini.uri.run.domain.service.IShortUrlExec;
+import com.zjz.mini.uri.run.domain.service.LongUrlReverseIndex;
+import com.zjz.mini.uri.framework.common.core.BusinessException;
+import com.zjz.mini.uri.run.domain.dto.ResolveBatchReq;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.Resource;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Semaphore;
+
 /**
  * Application Service
  * @author hkz329
@@ -12,25 +29,137 @@ import org.springframework.stereotype.Service;
 @Service
 public class MiniUriService {
 
+    @Value("${miniuri.resolve.batch.max-size:1000}")
+    private int batchMaxSize;
+
+    @Value("${miniuri.generate.batch.max-size:5000}")
+    private int generateBatchMaxSize;
+
+    /**
+     * 同时执行的批量生成请求数
+     */
+    @Value("${miniuri.generate.batch.max-concurrent-requests:4}")
+    private int generateBatchMaxConcurrent;
+
+    private Semaphore generateBatchPermits;
+
+    /**
+     * 生成策略：hash / segment / pool，对应 bean 名称 {strategy}ShortUrl
+     */
+    @Value("${miniuri.generate.strategy:hash}")
+    private String strategy;
+
+    /**
+     * 长链接反向索引，重复的长链接复用已有短链
+     */
+    @Resource
+    private LongUrlReverseIndex longUrlReverseIndex;
+
+    @PostConstruct
+    public void init() {
+        this.generateBatchPermits = new Semaphore(generateBatchMaxConcurrent);
+    }
+
     /**
      * 生成短链
      * @param req
      * @return
      */
     public String generateShortURL(GenerateUrlReq req) {
-        HashShortUrl bean = SpringUtil.getBean(HashShortUrl.class);
+        LocalDateTime expireTime = LocalDateTime.now().plusDays(req.getExpireTime());
+        String reused = this.longUrlReverseIndex.lookup(req.getOriginalUrl(), expireTime);
+        if (null != reused) {
+            return reused;
+        }
+        IShortUrlExec bean = getStrategy();
         String shortUrl = bean.generateShortUrl(req.getOriginalUrl(), req.getExpireTime());
+        this.longUrlReverseIndex.register(req.getOriginalUrl(), shortUrl, expireTime);
         return shortUrl;
     }
 
+    /**
+     * 批量生成短链：先按反向索引复用已有短链，其余交给当前策略批量生成
+     * @param req
+     * @return 与请求顺序一致的逐条结果
+     */
+    public List<GenerateBatchItem> generateBatch(GenerateBatchReq req) {
+        if (req.getOriginalUrls().size() > generateBatchMaxSize) {
+            throw new BusinessException("单次最多生成 " + generateBatchMaxSize + " 个短链");
+        }
+        if (!this.generateBatchPermits.tryAcquire()) {
+            throw new BusinessException("批量生成请求过多，请稍后重试");
+        }
+        try {
+            LocalDateTime expireTime = LocalDateTime.now().plusDays(req.getExpireTime());
+            // 空元素不参与生成，直接作为失败项返回
+            LinkedHashSet<String> urls = new LinkedHashSet<>();
+            for (String url : req.getOriginalUrls()) {
+                if (StrUtil.isNotBlank(url)) {
+                    urls.add(url);
+                }
+            }
+            Map<String, String> reused = this.longUrlReverseIndex.lookupBatch(urls, expireTime);
+            urls.removeAll(reused.keySet());
+            Map<String, String> generated = getStrategy().generateBatch(urls, req.getExpireTime());
+            this.longUrlReverseIndex.registerBatch(generated, expireTime);
+
+            List<GenerateBatchItem> items = new ArrayList<>(req.getOriginalUrls().size());
+            for (String url : req.getOriginalUrls()) {
+                if (StrUtil.isBlank(url)) {
+                    items.add(new GenerateBatchItem().setOriginalUrl(url).setSuccess(false).setMessage("url 格式错误"));
+                    continue;
+                }
+                String shortUrl = reused.getOrDefault(url, generated.get(url));
+                GenerateBatchItem item = new GenerateBatchItem().setOriginalUrl(url).setShortUrl(shortUrl).setSuccess(null != shortUrl);
+                if (null == shortUrl) {
+                    item.setMessage(UrlUtils.checkURL(url) ? "生成短链接失败，请稍后重试" : "url 格式错误");
+                }
+                items.add(item);
+            }
+            return items;
+        } finally {
+            this.generateBatchPermits.release();
+        }
+    }
+
     /**
      * 重定向
      * @param shortUrl
      * @return
      */
     public String redirect(String shortUrl) {
-        HashShortUrl bean = SpringUtil.getBean(HashShortUrl.class);
+        IShortUrlExec bean = getStrategy();
         String longUrl = bean.redirect(shortUrl);
         return longUrl;
     }
+
+    /**
+     * 批量解析短链
+     * @param req
+     * @return 短链 -> 长链接，不存在的短链值为 null
+     */
+    public Map<String, String> resolveBatch(ResolveBatchReq req) {
+        if (req.getShortUrls().size() > batchMaxSize) {
+            throw new BusinessException("单次最多解析 " + batchMaxSize + " 个短链");
+        }
+        IShortUrlExec bean = getStrategy();
+        return bean.resolveBatch(req.getShortUrls());
+    }
+
+    /**
+     * 只查缓存层的重定向，未命中返回 null
+     * @param shortUrl
+     * @return
+     */
+    public String redirectFromCache(String shortUrl) {
+        IShortUrlExec bean = getStrategy();
+        return bean.redirectFromCache(shortUrl);
+    }
+
+    /**
+     * 当前生成策略；解析与策略无关，各策略共用同一读路径
+     */
+    private IShortUrlExec getStrategy() {
+        return SpringUtil.getBean(strategy + "ShortUrl", IShortUrlExec.class);
+    }
 }
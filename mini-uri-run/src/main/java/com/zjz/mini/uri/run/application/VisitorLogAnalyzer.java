@@ -1,21 +1,36 @@
 package com.zjz.mini.uri.run.application;
 
-import com.zjz.mini.uri.run.domain.dao.VisitorLogMapper;
 import com.zjz.mini.uri.run.domain.entity.VisitorLog;
+import com.zjz.mini.uri.run.infrastructure.persistence.VisitorLogBatchWriter;
+import com.zjz.mini.uri.run.infrastructure.stats.VisitorLogParser;
 import jakarta.annotation.Resource;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.redis.core.StringRedisTemplate;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
-import java.io.*;
-import java.nio.charset.StandardCharsets;
-import java.security.MessageDigest;
-import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
-import java.util.concurrent.TimeUnit;
-
-
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * 访问统计日志解析
+ * <p>
+ * 每 30 分钟解析 visitor-stats.log 新增的行，PV/UV 写入内存聚合，访问日志批量写入 visitor_log。
+ * 断点记录文件标识（inode，不支持时为创建时间）与偏移量：logback 按天把当前文件重命名为
+ * visitor-stats.yyyy-MM-dd.log 后，断点仍指向原文件，先读完该滚动文件剩余部分，再依次处理之后的滚动文件与新的当前文件。
+ * 同一文件大小小于断点偏移量时视为被截断，从头读取。
+ */
 @Slf4j
 @Service
 public class VisitorLogAnalyzer {
@@ -24,172 +39,194 @@ public class VisitorLogAnalyzer {
     private StringRedisTemplate stringRedisTemplate;
 
     @Resource
-    private VisitorLogMapper visitorLogMapper;
+    private VisitorLogBatchWriter visitorLogBatchWriter;
+
+    @Resource
+    private VisitorStatsAggregator visitorStatsAggregator;
+
+    /**
+     * 日志目录
+     */
+    @Value("${miniuri.stats.log.dir:logs}")
+    private String logDir;
 
-    // Redis Key 前缀
-    private static final String REDIS_KEY_PREFIX_PV = "visitor:pv:";
-    private static final String REDIS_KEY_PREFIX_UV = "visitor:uv:";
+    /**
+     * 解析缓冲区大小，单行超过该长度时丢弃
+     */
+    @Value("${miniuri.stats.log.buffer-bytes:1048576}")
+    private int bufferBytes;
 
-    // 日志文件路径
-    private static final String LOG_FILE_PATH = "logs/visitor-stats.log";
-    private static final String PROCESSED_OFFSET_KEY = "visitor:log:offset";
+    // 日志文件名
+    private static final String LOG_FILE_NAME = "visitor-stats.log";
+    private static final Pattern ROTATED_FILE_NAME = Pattern.compile("visitor-stats\\.\\d{4}-\\d{2}-\\d{2}(\\.\\d+)?\\.log");
 
-    // 日期格式
-    private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd");
-    private static final DateTimeFormatter DATETIME_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss.SSS");
+    /**
+     * 断点：file 文件标识，offset 已处理位置，modified 文件修改时间
+     */
+    private static final String CHECKPOINT_KEY = "visitor:log:checkpoint";
+
+    /**
+     * 旧版断点（仅偏移量），首次运行时沿用
+     */
+    private static final String LEGACY_OFFSET_KEY = "visitor:log:offset";
+
+    /**
+     * 累积到该数量后交给批量写入，限制内存占用
+     */
+    private static final int PENDING_ROWS = 10000;
 
 
     @Scheduled(cron = "0 */30 * * * ?")
     public void analyzeLogFile() {
         try {
-            File logFile = new File(LOG_FILE_PATH);
-            if (!logFile.exists()) {
-                log.debug("日志文件不存在: {}", LOG_FILE_PATH);
+            Path dir = Path.of(logDir);
+            if (!Files.isDirectory(dir)) {
+                log.debug("日志目录不存在: {}", dir);
                 return;
             }
-
-            // 获取上次处理的位置（断点续传）
-            long lastOffset = getLastProcessedOffset();
-            long fileSize = logFile.length();
-
-            if (fileSize <= lastOffset) {
-                log.debug("没有新的日志需要处理");
+            List<LogFile> files = listLogFiles(dir);
+            if (files.isEmpty()) {
+                log.debug("日志文件不存在: {}", dir);
                 return;
             }
 
-            log.info("开始解析访问日志: 从 {} 到 {}", lastOffset, fileSize);
-
-            // 解析新增的日志行
-            int processedLines = processLogFile(logFile, lastOffset);
+            // 确定起始文件与偏移量（断点续传）
+            int startIndex;
+            long startOffset = 0;
+            Map<Object, Object> checkpoint = stringRedisTemplate.opsForHash().entries(CHECKPOINT_KEY);
+            if (checkpoint.isEmpty()) {
+                // 首次运行：只处理当前文件，沿用旧版偏移量
+                startIndex = files.size() - 1;
+                String legacy = stringRedisTemplate.opsForValue().get(LEGACY_OFFSET_KEY);
+                if (legacy != null && files.get(startIndex).name().equals(LOG_FILE_NAME)) {
+                    startOffset = Long.parseLong(legacy);
+                }
+            } else {
+                String fileId = String.valueOf(checkpoint.get("file"));
+                long offset = Long.parseLong(String.valueOf(checkpoint.get("offset")));
+                long modified = Long.parseLong(String.valueOf(checkpoint.get("modified")));
+                startIndex = indexOf(files, fileId);
+                if (startIndex >= 0) {
+                    startOffset = offset;
+                } else {
+                    // 断点所在文件已被删除：处理断点之后修改过的文件
+                    startIndex = files.size();
+                    for (int i = 0; i < files.size(); i++) {
+                        if (files.get(i).modified() > modified) {
+                            startIndex = i;
+                            break;
+                        }
+                    }
+                    log.warn("访问日志断点文件不存在: {}，从 {} 开始", fileId,
+                            startIndex < files.size() ? files.get(startIndex).name() : "-");
+                }
+            }
 
-            // 保存新的偏移量
-            saveProcessedOffset(fileSize);
+            VisitorLogParser parser = new VisitorLogParser(bufferBytes);
+            long events = 0;
+            for (int i = startIndex; i < files.size(); i++) {
+                LogFile file = files.get(i);
+                long offset = i == startIndex ? startOffset : 0;
+                if (file.size() < offset) {
+                    log.warn("访问日志被截断: {}，从头读取", file.name());
+                    offset = 0;
+                }
+                if (file.size() == offset) {
+                    continue;
+                }
+                log.info("开始解析访问日志: {} 从 {} 到 {}", file.name(), offset, file.size());
+                VisitorLogParser.Result result = processLogFile(parser, file, offset);
+                saveCheckpoint(file, result.endOffset());
+                events += result.events();
+                if (result.malformed() > 0) {
+                    log.warn("访问日志格式错误: {} 共 {} 行", file.name(), result.malformed());
+                }
+            }
 
-            log.info("日志解析完成: 处理 {} 条记录", processedLines);
+            log.info("日志解析完成: 处理 {} 条记录", events);
         } catch (Exception e) {
             log.error("解析访问日志失败", e);
         }
     }
 
     /**
-     * 处理日志文件
+     * 滚动文件按文件名（日期）排序，当前文件在最后
      */
-    private int processLogFile(File logFile, long startOffset) throws IOException {
-        int count = 0;
-
-        try (RandomAccessFile raf = new RandomAccessFile(logFile, "r")) {
-            raf.seek(startOffset);
-
-            String line;
-            while ((line = raf.readLine()) != null) {
-                try {
-                    // 日志格式: 2025-11-03 10:00:00.123|VISITOR_EVENT|/|首页|127.0.0.1|Mozilla/5.0|http://google.com
-                    if (line.contains("VISITOR_EVENT")) {
-                        processLogLine(line);
-                        count++;
-                    }
-                } catch (Exception e) {
-                    log.warn("解析日志行失败: {}", line, e);
-                }
+    private List<LogFile> listLogFiles(Path dir) throws IOException {
+        List<LogFile> files = new ArrayList<>();
+        try (Stream<Path> stream = Files.list(dir)) {
+            for (Path path : stream.filter(p -> ROTATED_FILE_NAME.matcher(p.getFileName().toString()).matches()).toList()) {
+                files.add(LogFile.of(path));
             }
         }
-
-        return count;
+        files.sort(Comparator.comparing(LogFile::name));
+        Path active = dir.resolve(LOG_FILE_NAME);
+        if (Files.exists(active)) {
+            files.add(LogFile.of(active));
+        }
+        return files;
     }
 
-    /**
-     * 解析单行日志并统计
-     */
-    private void processLogLine(String line) {
-        try {
-            // 分割日志行
-            String[] parts = line.split("\\|");
-            if (parts.length < 7) return;
-
-            String timestamp = parts[0];  // 2025-11-03 10:00:00.123
-            String pagePath = parts[2];   // /
-            // String pageName = parts[3]; // 首页（暂未使用）
-            String clientIp = parts[4];   // 127.0.0.1
-            String userAgent = parts[5];  // Mozilla/5.0
-            String referer = parts[6];    // http://google.com
-
-            // 提取日期
-            LocalDateTime dateTime = LocalDateTime.parse(timestamp, DATETIME_FORMATTER);
-            String dateStr = dateTime.format(DATE_FORMATTER);
-
-            // 生成访客 ID
-            String visitorId = md5(clientIp + "|" + userAgent);
-
-            // 1. Redis PV 计数
-            String pvKey = REDIS_KEY_PREFIX_PV + pagePath + ":" + dateStr;
-            stringRedisTemplate.opsForValue().increment(pvKey);
-            stringRedisTemplate.expire(pvKey, 7, TimeUnit.DAYS);
-
-            // 2. Redis UV 计数（Set 去重）
-            String uvKey = REDIS_KEY_PREFIX_UV + pagePath + ":" + dateStr;
-            stringRedisTemplate.opsForSet().add(uvKey, visitorId);
-            stringRedisTemplate.expire(uvKey, 7, TimeUnit.DAYS);
-
-            // 3. 记录访问日志到数据库（保持和原来 VisitorStatsService 一致）
-            recordVisitorLog(pagePath, visitorId, clientIp, userAgent, referer, dateTime);
-
-        } catch (Exception e) {
-            log.warn("处理日志行失败: {}", line, e);
+    private static int indexOf(List<LogFile> files, String fileId) {
+        for (int i = 0; i < files.size(); i++) {
+            if (files.get(i).id().equals(fileId)) {
+                return i;
+            }
         }
+        return -1;
     }
 
     /**
-     * 记录访问日志到数据库（保持和原来的逻辑一致）
+     * 处理日志文件 [startOffset, 列出时的大小)，访问日志分批写入后返回
      */
-    private void recordVisitorLog(String pagePath, String visitorId,
-                                   String clientIp, String userAgent,
-                                   String referer, LocalDateTime visitTime) {
-        try {
-            VisitorLog visitorLog = new VisitorLog()
-                    .setPagePath(pagePath)
-                    .setVisitorId(visitorId)
-                    .setIpAddress(clientIp)
-                    .setUserAgent(userAgent)
-                    .setReferer(referer)
-                    .setVisitTime(visitTime);
-            visitorLogMapper.insert(visitorLog);
-        } catch (Exception e) {
-            log.error("记录访问日志失败", e);
+    private VisitorLogParser.Result processLogFile(VisitorLogParser parser, LogFile file, long startOffset) throws IOException {
+        List<VisitorLog> rows = new ArrayList<>(PENDING_ROWS);
+        VisitorLogParser.Result result;
+        try (FileChannel channel = FileChannel.open(file.path(), StandardOpenOption.READ)) {
+            result = parser.parse(channel, startOffset, file.size(), (visitTime, pagePath, clientIp, userAgent, referer, visitorId) -> {
+                // 1. PV/UV 按日期写入内存聚合，定时批量写入 Redis
+                visitorStatsAggregator.record(pagePath, visitTime.toLocalDate(), visitorId);
+
+                // 2. 访问日志（保持和原来 VisitorStatsService 一致）
+                rows.add(new VisitorLog()
+                        .setPagePath(pagePath)
+                        .setVisitorId(visitorId)
+                        .setIpAddress(clientIp)
+                        .setUserAgent(userAgent)
+                        .setReferer(referer)
+                        .setVisitTime(visitTime));
+                if (rows.size() >= PENDING_ROWS) {
+                    visitorLogBatchWriter.writeAll(rows);
+                    rows.clear();
+                }
+            });
         }
+        visitorLogBatchWriter.writeAll(rows);
+        return result;
     }
 
     /**
-     * 获取上次处理的偏移量
+     * 保存断点
      */
-    private long getLastProcessedOffset() {
-        String offset = stringRedisTemplate.opsForValue().get(PROCESSED_OFFSET_KEY);
-        return offset != null ? Long.parseLong(offset) : 0L;
+    private void saveCheckpoint(LogFile file, long offset) {
+        stringRedisTemplate.opsForHash().putAll(CHECKPOINT_KEY, Map.of(
+                "file", file.id(),
+                "offset", String.valueOf(offset),
+                "modified", String.valueOf(file.modified())));
     }
 
     /**
-     * 保存处理偏移量
+     * 日志文件快照
+     *
+     * @param id 文件标识，重命名后不变
      */
-    private void saveProcessedOffset(long offset) {
-        stringRedisTemplate.opsForValue().set(PROCESSED_OFFSET_KEY, String.valueOf(offset));
-    }
+    private record LogFile(Path path, String name, String id, long size, long modified) {
 
-    /**
-     * MD5 加密
-     */
-    private String md5(String input) {
-        try {
-            MessageDigest md = MessageDigest.getInstance("MD5");
-            byte[] hash = md.digest(input.getBytes(StandardCharsets.UTF_8));
-            StringBuilder hexString = new StringBuilder();
-            for (byte b : hash) {
-                String hex = Integer.toHexString(0xff & b);
-                if (hex.length() == 1) hexString.append('0');
-                hexString.append(hex);
-            }
-            return hexString.toString();
-        } catch (Exception e) {
-            throw new RuntimeException(e);
+        static LogFile of(Path path) throws IOException {
+            BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class);
+            Object fileKey = attributes.fileKey();
+            String id = fileKey != null ? fileKey.toString() : "ctime:" + attributes.creationTime().toMillis();
+            return new LogFile(path, path.getFileName().toString(), id, attributes.size(), attributes.lastModifiedTime().toMillis());
         }
     }
 }
-
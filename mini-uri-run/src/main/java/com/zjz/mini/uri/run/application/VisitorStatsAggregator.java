@@ -0,0 +1,292 @@
+package com.zjz.mini.uri.run.application;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.annotation.Resource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.connection.RedisPipelineException;
+import org.springframework.data.redis.core.RedisOperations;
+import org.springframework.data.redis.core.SessionCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 访问统计内存聚合
+ * <p>
+ * 请求线程只做 LongAdder 自增与本地去重集合写入，按 (页面, 日期) 聚合；
+ * 定时把增量通过一次流水线写入 Redis（PV INCRBY、UV PFADD、EXPIRE），取代每次访问 4 次往返。
+ * 待写入的访客数超过 maxPendingVisitors 时丢弃 UV 事件（PV 仍计数），并计入 dropped 指标。
+ * Redis 写入失败时按命令结果放回：失败的 INCRBY 放回 PV，失败的 PFADD 放回访客（PFADD 幂等），
+ * 已执行成功的 INCRBY 不再放回，避免部分失败时重复计数。
+ * 过去日期的集合只在 compute 内确认为空后移除，补录写入同样在 compute 内进行，不会写入已移除的集合。
+ *
+ * @author hkz329
+ */
+@Slf4j
+@Component
+public class VisitorStatsAggregator {
+
+    static final String REDIS_KEY_PREFIX_PV = "visitor:pv:";
+    /**
+     * UV HyperLogLog，每个页面每天最多约 12KB，与访客数无关
+     */
+    static final String REDIS_KEY_PREFIX_UV_HLL = "visitor:uvh:";
+
+    @Value("${miniuri.stats.aggregate.max-pending-visitors:200000}")
+    private int maxPendingVisitors;
+
+    @Value("${miniuri.stats.aggregate.retention-days:7}")
+    private int retentionDays;
+
+    @Resource
+    private StringRedisTemplate stringRedisTemplate;
+
+    @Resource
+    private MeterRegistry meterRegistry;
+
+    /**
+     * 日期 -> 页面 -> 增量
+     */
+    private final Map<LocalDate, Map<String, Slot>> days = new ConcurrentHashMap<>();
+
+    private final AtomicInteger pendingVisitors = new AtomicInteger();
+
+    private volatile Today today;
+
+    private Counter droppedCounter;
+
+    private DistributionSummary flushSizeSummary;
+
+    private Timer flushTimer;
+
+    @PostConstruct
+    public void init() {
+        rollToday();
+        Gauge.builder("miniuri.stats.aggregate.pending.visitors", pendingVisitors, AtomicInteger::get)
+                .description("等待写入 Redis 的去重访客数")
+                .register(meterRegistry);
+        this.droppedCounter = Counter.builder("miniuri.stats.aggregate.dropped")
+                .description("待写入访客数超限被丢弃的 UV 事件数")
+                .register(meterRegistry);
+        this.flushSizeSummary = DistributionSummary.builder("miniuri.stats.aggregate.flush.size")
+                .description("每次写入的 (页面, 日期) 数量")
+                .register(meterRegistry);
+        this.flushTimer = Timer.builder("miniuri.stats.aggregate.flush.latency")
+                .description("每次流水线写入耗时")
+                .register(meterRegistry);
+    }
+
+    /**
+     * 记录一次今天的访问
+     *
+     * @param visitorId 访客标识，为 null 时只计 PV
+     */
+    public void record(String pagePath, String visitorId) {
+        Today t = this.today;
+        if (System.currentTimeMillis() >= t.endMillis) {
+            t = rollToday();
+        }
+        slot(t.slots, pagePath).add(visitorId);
+    }
+
+    /**
+     * 记录一次指定日期的访问（日志补录）
+     * 在该日期的 compute 内写入，与 flush 移除过去日期互斥
+     */
+    public void record(String pagePath, LocalDate day, String visitorId) {
+        this.days.compute(day, (d, slots) -> {
+            Map<String, Slot> target = null != slots ? slots : new ConcurrentHashMap<>();
+            slot(target, pagePath).add(visitorId);
+            return target;
+        });
+    }
+
+    /**
+     * 把增量流水线写入 Redis
+     */
+    @Scheduled(fixedDelayString = "${miniuri.stats.aggregate.flush-interval-millis:5000}")
+    public void flush() {
+        List<Delta> deltas = new ArrayList<>();
+        LocalDate current = this.today.date;
+        for (Map.Entry<LocalDate, Map<String, Slot>> day : this.days.entrySet()) {
+            int before = deltas.size();
+            for (Map.Entry<String, Slot> entry : day.getValue().entrySet()) {
+                Delta delta = entry.getValue().drain(day.getKey(), entry.getKey());
+                if (null != delta) {
+                    deltas.add(delta);
+                }
+            }
+            // 过去的日期一个周期内没有新增，在 compute 内再次确认为空后移除
+            if (deltas.size() == before && day.getKey().isBefore(current)) {
+                this.days.computeIfPresent(day.getKey(), (d, slots) -> isEmpty(slots) ? null : slots);
+            }
+        }
+        if (deltas.isEmpty()) {
+            return;
+        }
+        long start = System.nanoTime();
+        int commands = 0;
+        for (Delta delta : deltas) {
+            commands += (delta.pv() > 0 ? 2 : 0) + (delta.visitors().isEmpty() ? 0 : 2);
+        }
+        try {
+            this.stringRedisTemplate.executePipelined(new SessionCallback<Object>() {
+                @Override
+                @SuppressWarnings("unchecked")
+                public <K, V> Object execute(RedisOperations<K, V> operations) throws DataAccessException {
+                    RedisOperations<String, String> ops = (RedisOperations<String, String>) operations;
+                    for (Delta delta : deltas) {
+                        String suffix = delta.pagePath() + ":" + delta.day();
+                        if (delta.pv() > 0) {
+                            ops.opsForValue().increment(REDIS_KEY_PREFIX_PV + suffix, delta.pv());
+                            ops.expire(REDIS_KEY_PREFIX_PV + suffix, retentionDays, TimeUnit.DAYS);
+                        }
+                        if (!delta.visitors().isEmpty()) {
+                            ops.opsForHyperLogLog().add(REDIS_KEY_PREFIX_UV_HLL + suffix, delta.visitors().toArray(new String[0]));
+                            ops.expire(REDIS_KEY_PREFIX_UV_HLL + suffix, retentionDays, TimeUnit.DAYS);
+                        }
+                    }
+                    return null;
+                }
+            });
+            this.flushSizeSummary.record(deltas.size());
+        } catch (RedisPipelineException e) {
+            List<Object> results = e.getPipelineResult();
+            if (null == results || results.size() != commands) {
+                // 无法对应到命令：只放回幂等的 UV，PV 宁可少计也不重复计
+                long lost = deltas.stream().mapToLong(Delta::pv).sum();
+                log.warn("visitor stats flush partially failed, requeue visitors of {} deltas, {} pv lost", deltas.size(), lost, e);
+                deltas.forEach(delta -> requeue(delta, false, true));
+                return;
+            }
+            log.warn("visitor stats flush partially failed, requeue failed commands of {} deltas", deltas.size(), e);
+            int index = 0;
+            for (Delta delta : deltas) {
+                boolean pvFailed = false;
+                boolean uvFailed = false;
+                if (delta.pv() > 0) {
+                    pvFailed = results.get(index) instanceof Throwable;
+                    index += 2;
+                }
+                if (!delta.visitors().isEmpty()) {
+                    uvFailed = results.get(index) instanceof Throwable;
+                    index += 2;
+                }
+                requeue(delta, pvFailed, uvFailed);
+            }
+        } catch (Exception e) {
+            // 流水线未执行
+            log.warn("visitor stats flush failed, requeue {} deltas", deltas.size(), e);
+            deltas.forEach(delta -> requeue(delta, true, true));
+        } finally {
+            this.flushTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flush();
+    }
+
+    /**
+     * 增量放回，与补录写入一样在 compute 内进行
+     */
+    private void requeue(Delta delta, boolean pv, boolean visitors) {
+        if ((!pv || delta.pv() == 0) && (!visitors || delta.visitors().isEmpty())) {
+            return;
+        }
+        this.days.compute(delta.day(), (d, slots) -> {
+            Map<String, Slot> target = null != slots ? slots : new ConcurrentHashMap<>();
+            Slot slot = slot(target, delta.pagePath());
+            if (pv) {
+                slot.pv.add(delta.pv());
+            }
+            if (visitors) {
+                delta.visitors().forEach(slot::addVisitor);
+            }
+            return target;
+        });
+    }
+
+    private static boolean isEmpty(Map<String, Slot> slots) {
+        for (Slot slot : slots.values()) {
+            if (slot.pv.sum() != 0 || !slot.visitors.isEmpty()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private Slot slot(Map<String, Slot> slots, String pagePath) {
+        Slot slot = slots.get(pagePath);
+        return null != slot ? slot : slots.computeIfAbsent(pagePath, p -> new Slot());
+    }
+
+    private Today rollToday() {
+        LocalDate date = LocalDate.now();
+        long endMillis = date.plusDays(1).atStartOfDay(ZoneId.systemDefault()).toInstant().toEpochMilli();
+        Today t = new Today(date, endMillis, this.days.computeIfAbsent(date, d -> new ConcurrentHashMap<>()));
+        this.today = t;
+        return t;
+    }
+
+    private record Today(LocalDate date, long endMillis, Map<String, Slot> slots) {
+    }
+
+    private record Delta(LocalDate day, String pagePath, long pv, List<String> visitors) {
+    }
+
+    private final class Slot {
+
+        private final LongAdder pv = new LongAdder();
+
+        private final Set<String> visitors = ConcurrentHashMap.newKeySet();
+
+        private void add(String visitorId) {
+            pv.increment();
+            if (null != visitorId) {
+                addVisitor(visitorId);
+            }
+        }
+
+        private void addVisitor(String visitorId) {
+            if (pendingVisitors.incrementAndGet() > maxPendingVisitors) {
+                pendingVisitors.decrementAndGet();
+                droppedCounter.increment();
+            } else if (!visitors.add(visitorId)) {
+                pendingVisitors.decrementAndGet();
+            }
+        }
+
+        private Delta drain(LocalDate day, String pagePath) {
+            long count = pv.sumThenReset();
+            List<String> drained = new ArrayList<>();
+            for (Iterator<String> it = visitors.iterator(); it.hasNext(); ) {
+                drained.add(it.next());
+                it.remove();
+            }
+            pendingVisitors.addAndGet(-drained.size());
+            return count == 0 && drained.isEmpty() ? null : new Delta(day, pagePath, count, drained);
+        }
+    }
+}
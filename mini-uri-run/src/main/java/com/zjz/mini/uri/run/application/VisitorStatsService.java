@@ -3,14 +3,19 @@ package com.zjz.mini.uri.run.application;
 
 import cn.hutool.extra.servlet.JakartaServletUtil;
 import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
-import com.zjz.mini.uri.run.domain.dao.VisitorLogMapper;
+import com.zjz.mini.uri.run.domain.dao.UrlClickStatsMapper;
 import com.zjz.mini.uri.run.domain.dao.VisitorStatsMapper;
 import com.zjz.mini.uri.run.domain.entity.VisitorLog;
+import com.zjz.mini.uri.run.domain.entity.UrlClickStats;
 import com.zjz.mini.uri.run.domain.entity.VisitorStats;
+import com.zjz.mini.uri.run.infrastructure.persistence.VisitorLogBatchWriter;
 import jakarta.annotation.Resource;
 import jakarta.servlet.http.HttpServletRequest;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.connection.RedisStringCommands;
+import org.springframework.data.redis.core.RedisCallback;
 import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.types.Expiration;
 import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -39,19 +44,36 @@ public class VisitorStatsService {
     private VisitorStatsMapper visitorStatsMapper;
 
     @Resource
-    private VisitorLogMapper visitorLogMapper;
+    private VisitorLogBatchWriter visitorLogBatchWriter;
+
+    @Resource
+    private VisitorStatsAggregator visitorStatsAggregator;
+
+    @Resource
+    private UrlClickStatsMapper urlClickStatsMapper;
 
     // Redis Key 前缀
-    private static final String REDIS_KEY_PREFIX_PV = "visitor:pv:";
+    private static final String REDIS_KEY_PREFIX_PV = VisitorStatsAggregator.REDIS_KEY_PREFIX_PV;
+    /**
+     * 旧版 UV Set，读取时迁移到 HyperLogLog
+     */
     private static final String REDIS_KEY_PREFIX_UV = "visitor:uv:";
+    private static final String REDIS_KEY_PREFIX_UV_HLL = VisitorStatsAggregator.REDIS_KEY_PREFIX_UV_HLL;
+    private static final String REDIS_KEY_PREFIX_UV_MERGE = "visitor:uvh:merge:";
+
+    /**
+     * 合并 sketch 时每批写入 Redis 的数量
+     */
+    private static final int MERGE_BATCH = 64;
 
     /**
      * 记录访问（主线程调用，提取必要信息后异步处理）
      *
      * 设计说明：
      * 1. 在主线程中提取 HttpServletRequest 的信息（IP、UA、Referer等）
-     * 2. 调用异步方法在虚拟线程中执行 IO 操作
-     * 3. 避免在虚拟线程中访问 request 对象导致 NPE
+     * 2. PV/UV 写入内存聚合，定时批量写入 Redis
+     * 3. 访问日志调用异步方法在虚拟线程中入库
+     * 4. 避免在虚拟线程中访问 request 对象导致 NPE
      *
      * @param pagePath 页面路径
      * @param pageName 页面名称
@@ -65,6 +87,9 @@ public class VisitorStatsService {
             String referer = request.getHeader("Referer");
             String visitorId = generateVisitorId(request);
 
+            // PV/UV 内存聚合
+            visitorStatsAggregator.record(pagePath, visitorId);
+
             // 调用异步方法（虚拟线程执行）
             recordVisitAsync(pagePath, pageName, clientIp, userAgent, referer, visitorId);
         } catch (Exception e) {
@@ -73,7 +98,7 @@ public class VisitorStatsService {
     }
 
     /**
-     * 异步记录访问统计（虚拟线程执行）
+     * 异步记录访问日志（虚拟线程执行），PV/UV 已由 {@link VisitorStatsAggregator} 聚合
      *
      * 性能优势：
      * 1. 虚拟线程轻量级，可以承载数十万并发请求
@@ -87,31 +112,17 @@ public class VisitorStatsService {
                                    String clientIp, String userAgent,
                                    String referer, String visitorId) {
         try {
-            String today = LocalDate.now().toString();
-
-            // 1. Redis PV 计数（每次访问 +1）
-            String pvKey = REDIS_KEY_PREFIX_PV + pagePath + ":" + today;
-            stringRedisTemplate.opsForValue().increment(pvKey);
-            // 设置过期时间（保留7天数据）
-            stringRedisTemplate.expire(pvKey, 7, TimeUnit.DAYS);
-
-            // 2. Redis UV 计数（使用 Set 去重，同一天同一访客只计数一次）
-            String uvKey = REDIS_KEY_PREFIX_UV + pagePath + ":" + today;
-            Long addedCount = stringRedisTemplate.opsForSet().add(uvKey, visitorId);
-            stringRedisTemplate.expire(uvKey, 7, TimeUnit.DAYS);
-
-            // 3. 记录访问日志（可选，用于详细分析）
+            // 记录访问日志（可选，用于详细分析）
             recordVisitorLog(pagePath, visitorId, clientIp, userAgent, referer);
 
-            log.debug("记录访问: page={}, visitor={}, ip={}, isNew={}",
-                pagePath, visitorId, clientIp, addedCount != null && addedCount > 0);
+            log.debug("记录访问: page={}, visitor={}, ip={}", pagePath, visitorId, clientIp);
         } catch (Exception e) {
             log.error("记录访问失败: path={}", pagePath, e);
         }
     }
 
     /**
-     * 记录访问日志（已经在虚拟线程中，使用提取好的信息）
+     * 记录访问日志（已经在虚拟线程中，使用提取好的信息），放入批量写入队列
      */
     private void recordVisitorLog(String pagePath, String visitorId,
                                    String clientIp, String userAgent, String referer) {
@@ -123,7 +134,7 @@ public class VisitorStatsService {
                     .setUserAgent(userAgent)
                     .setReferer(referer)
                     .setVisitTime(LocalDateTime.now());
-            visitorLogMapper.insert(log);
+            visitorLogBatchWriter.enqueue(log);
         } catch (Exception e) {
             log.error("记录访问日志失败", e);
         }
@@ -173,9 +184,9 @@ public class VisitorStatsService {
                     String pvValue = stringRedisTemplate.opsForValue().get(pvKey);
                     Long pv = pvValue != null ? Long.parseLong(pvValue) : 0L;
 
-                    String uvKey = REDIS_KEY_PREFIX_UV + pagePath + ":" + keyDateStr;
-                    Long uv = stringRedisTemplate.opsForSet().size(uvKey);
-                    if (uv == null) uv = 0L;
+                    String uvKey = REDIS_KEY_PREFIX_UV_HLL + pagePath + ":" + keyDateStr;
+                    long uv = countUv(pagePath, keyDateStr);
+                    byte[] sketch = readSketch(uvKey);
 
                     // 查询是否已存在
                     LambdaQueryWrapper<VisitorStats> wrapper = new LambdaQueryWrapper<>();
@@ -186,7 +197,8 @@ public class VisitorStatsService {
                     if (existing != null) {
                         // 更新
                         existing.setVisitCount(pv)
-                                .setUniqueCount(uv);
+                                .setUniqueCount(uv)
+                                .setUvSketch(sketch);
                         visitorStatsMapper.updateById(existing);
                     } else {
                         // 插入
@@ -195,6 +207,7 @@ public class VisitorStatsService {
                                 .setPageName(getPageName(pagePath))
                                 .setVisitCount(pv)
                                 .setUniqueCount(uv)
+                                .setUvSketch(sketch)
                                 .setStatDate(statDate);
                         visitorStatsMapper.insert(stats);
                     }
@@ -265,23 +278,50 @@ public class VisitorStatsService {
         result.put("pv", pvValue != null ? Long.parseLong(pvValue) : 0L);
 
         // UV
-        String uvKey = REDIS_KEY_PREFIX_UV + pagePath + ":" + today;
-        Long uv = stringRedisTemplate.opsForSet().size(uvKey);
-        result.put("uv", uv != null ? uv : 0L);
+        result.put("uv", countUv(pagePath, today));
+
+        return result;
+    }
+
+    /**
+     * 获取最近N天的合计统计
+     * 历史日期取 MySQL 中的 sketch，今天取 Redis 中的 HyperLogLog，合并后计算 UV，跨天回访的访客只计一次
+     *
+     * @param pagePath 页面路径
+     * @param days     最近N天（含今天）
+     * @return Map包含pv和uv
+     */
+    public Map<String, Long> getRangeStats(String pagePath, int days) {
+        LocalDate today = LocalDate.now();
+        LocalDate startDate = today.minusDays(days - 1);
 
+        LambdaQueryWrapper<VisitorStats> wrapper = new LambdaQueryWrapper<>();
+        wrapper.select(VisitorStats::getVisitCount, VisitorStats::getUniqueCount, VisitorStats::getUvSketch)
+                .eq(VisitorStats::getPagePath, pagePath)
+                .between(VisitorStats::getStatDate, startDate, today.minusDays(1));
+        List<VisitorStats> list = visitorStatsMapper.selectList(wrapper);
+
+        String todayStr = today.toString();
+        String pvValue = stringRedisTemplate.opsForValue().get(REDIS_KEY_PREFIX_PV + pagePath + ":" + todayStr);
+        migrateLegacyUv(pagePath, todayStr);
+
+        Map<String, Long> result = new HashMap<>();
+        result.put("pv", list.stream().mapToLong(VisitorStats::getVisitCount).sum() + (pvValue != null ? Long.parseLong(pvValue) : 0L));
+        result.put("uv", mergedUniqueCount(list, REDIS_KEY_PREFIX_UV_HLL + pagePath + ":" + todayStr));
         return result;
     }
 
     /**
-     * 获取总统计
+     * 获取总统计，总 UV 由所有日期的 sketch 合并计算
      */
     public Map<String, Long> getTotalStats(String pagePath) {
         LambdaQueryWrapper<VisitorStats> wrapper = new LambdaQueryWrapper<>();
-        wrapper.eq(VisitorStats::getPagePath, pagePath);
+        wrapper.select(VisitorStats::getVisitCount, VisitorStats::getUniqueCount, VisitorStats::getUvSketch)
+                .eq(VisitorStats::getPagePath, pagePath);
         List<VisitorStats> list = visitorStatsMapper.selectList(wrapper);
 
         long totalPv = list.stream().mapToLong(VisitorStats::getVisitCount).sum();
-        long totalUv = list.stream().mapToLong(VisitorStats::getUniqueCount).sum();
+        long totalUv = mergedUniqueCount(list, null);
 
         Map<String, Long> result = new HashMap<>();
         result.put("totalPv", totalPv);
@@ -289,6 +329,127 @@ public class VisitorStatsService {
         return result;
     }
 
+    /**
+     * 获取短链点击统计
+     * 点击数每个计数周期（默认 1 秒）写入一次，最近一个周期内的点击可能尚未计入
+     *
+     * @param shortUrl 短链
+     * @param days     最近N天（含今天）
+     * @return total 总点击数、range 区间点击数、daily 区间内每日点击（按日期倒序）
+     */
+    public Map<String, Object> getLinkStats(String shortUrl, int days) {
+        LambdaQueryWrapper<UrlClickStats> wrapper = new LambdaQueryWrapper<>();
+        wrapper.select(UrlClickStats::getStatDate, UrlClickStats::getClickCount)
+                .eq(UrlClickStats::getShortUrl, shortUrl)
+                .orderByDesc(UrlClickStats::getStatDate);
+        List<UrlClickStats> list = urlClickStatsMapper.selectList(wrapper);
+
+        LocalDate startDate = LocalDate.now().minusDays(days - 1);
+        long total = 0;
+        long range = 0;
+        List<Map<String, Object>> daily = new ArrayList<>();
+        for (UrlClickStats row : list) {
+            total += row.getClickCount();
+            if (!row.getStatDate().isBefore(startDate)) {
+                range += row.getClickCount();
+                Map<String, Object> day = new HashMap<>();
+                day.put("date", row.getStatDate().toString());
+                day.put("clicks", row.getClickCount());
+                daily.add(day);
+            }
+        }
+
+        Map<String, Object> result = new HashMap<>();
+        result.put("shortUrl", shortUrl);
+        result.put("total", total);
+        result.put("range", range);
+        result.put("daily", daily);
+        return result;
+    }
+
+    /**
+     * 某页面某天的 UV（PFCOUNT），旧版 Set 先迁移到 HyperLogLog
+     */
+    private long countUv(String pagePath, String dateStr) {
+        String hllKey = migrateLegacyUv(pagePath, dateStr);
+        Long uv = stringRedisTemplate.opsForHyperLogLog().size(hllKey);
+        return uv != null ? uv : 0L;
+    }
+
+    /**
+     * 把旧版 UV Set 中的访客并入 HyperLogLog 后删除 Set
+     *
+     * @return HyperLogLog key
+     */
+    private String migrateLegacyUv(String pagePath, String dateStr) {
+        String hllKey = REDIS_KEY_PREFIX_UV_HLL + pagePath + ":" + dateStr;
+        String setKey = REDIS_KEY_PREFIX_UV + pagePath + ":" + dateStr;
+        Set<String> legacy = stringRedisTemplate.opsForSet().members(setKey);
+        if (legacy != null && !legacy.isEmpty()) {
+            stringRedisTemplate.opsForHyperLogLog().add(hllKey, legacy.toArray(new String[0]));
+            stringRedisTemplate.expire(hllKey, 7, TimeUnit.DAYS);
+            stringRedisTemplate.delete(setKey);
+        }
+        return hllKey;
+    }
+
+    /**
+     * 读取 HyperLogLog 的原始编码
+     */
+    private byte[] readSketch(String hllKey) {
+        return stringRedisTemplate.execute((RedisCallback<byte[]>) connection ->
+                connection.stringCommands().get(hllKey.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    /**
+     * 合并多日 sketch 计算 UV
+     * 分批把 sketch 写入临时 key 并 PFMERGE 到同一个累加 key，每批一次流水线，内存只与批大小有关；
+     * 没有 sketch 的旧数据无法去重，按原 UV 累加
+     *
+     * @param rows    统计行（含 uvSketch）
+     * @param liveKey 参与合并的 Redis HyperLogLog key（今天），可为 null
+     */
+    private long mergedUniqueCount(List<VisitorStats> rows, String liveKey) {
+        long legacyUv = 0;
+        List<byte[]> sketches = new ArrayList<>();
+        for (VisitorStats row : rows) {
+            if (row.getUvSketch() != null && row.getUvSketch().length > 0) {
+                sketches.add(row.getUvSketch());
+            } else {
+                legacyUv += row.getUniqueCount() != null ? row.getUniqueCount() : 0L;
+            }
+        }
+        if (sketches.isEmpty()) {
+            Long live = liveKey != null ? stringRedisTemplate.opsForHyperLogLog().size(liveKey) : null;
+            return legacyUv + (live != null ? live : 0L);
+        }
+        String mergeId = UUID.randomUUID().toString();
+        byte[] accKey = (REDIS_KEY_PREFIX_UV_MERGE + mergeId).getBytes(StandardCharsets.UTF_8);
+        try {
+            for (int from = 0; from < sketches.size(); from += MERGE_BATCH) {
+                List<byte[]> batch = sketches.subList(from, Math.min(sketches.size(), from + MERGE_BATCH));
+                int offset = from;
+                stringRedisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+                    byte[][] tmpKeys = new byte[batch.size()][];
+                    for (int i = 0; i < batch.size(); i++) {
+                        tmpKeys[i] = (REDIS_KEY_PREFIX_UV_MERGE + mergeId + ":" + (offset + i)).getBytes(StandardCharsets.UTF_8);
+                        connection.stringCommands().set(tmpKeys[i], batch.get(i), Expiration.seconds(60), RedisStringCommands.SetOption.upsert());
+                    }
+                    connection.hyperLogLogCommands().pfMerge(accKey, tmpKeys);
+                    connection.keyCommands().expire(accKey, 60);
+                    connection.keyCommands().del(tmpKeys);
+                    return null;
+                });
+            }
+            Long uv = stringRedisTemplate.execute((RedisCallback<Long>) connection -> liveKey != null
+                    ? connection.hyperLogLogCommands().pfCount(accKey, liveKey.getBytes(StandardCharsets.UTF_8))
+                    : connection.hyperLogLogCommands().pfCount(accKey));
+            return legacyUv + (uv != null ? uv : 0L);
+        } finally {
+            stringRedisTemplate.execute((RedisCallback<Long>) connection -> connection.keyCommands().del(accKey));
+        }
+    }
+
     /**
      * 生成访客唯一标识（基于 IP + User-Agent）
      */
@@ -0,0 +1,134 @@
+package com.zjz.mini.uri.run.application.worker;
+
+import com.zjz.mini.uri.run.domain.entity.UrlMapping;
+import com.zjz.mini.uri.run.domain.repository.UrlMappingRepository;
+import com.zjz.mini.uri.run.domain.service.ShortUrlResolver;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.Resource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.availability.AvailabilityChangeEvent;
+import org.springframework.boot.availability.ReadinessState;
+import org.springframework.context.ApplicationContext;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 启动预热，把最近创建的短链提前写入 Redis 与本地缓存
+ * <p>
+ * ApplicationRunner 全部执行完毕后 Spring Boot 才发布 ACCEPTING_TRAFFIC，
+ * 预热期间 /manage/health 的 readinessState 为 OUT_OF_SERVICE，负载均衡不会导入流量。
+ * 超出时间预算时停止预热，不阻塞启动。
+ *
+ * @author hkz329
+ */
+@Slf4j
+@Component
+public class CacheWarmUpRunner implements ApplicationRunner {
+
+    @Value("${miniuri.warmup.enabled:true}")
+    private boolean enabled;
+
+    @Value("${miniuri.warmup.size:10000}")
+    private int size;
+
+    @Value("${miniuri.warmup.page-size:1000}")
+    private int pageSize;
+
+    @Value("${miniuri.warmup.parallelism:4}")
+    private int parallelism;
+
+    @Value("${miniuri.warmup.time-budget-millis:10000}")
+    private long timeBudgetMillis;
+
+    @Resource
+    private ApplicationContext applicationContext;
+
+    @Resource
+    private UrlMappingRepository urlMappingRepository;
+
+    @Resource
+    private ShortUrlResolver shortUrlResolver;
+
+    @Resource
+    private MeterRegistry meterRegistry;
+
+    @Resource
+    @Qualifier("cacheTaskExecutor")
+    private Executor cacheTaskExecutor;
+
+    private final AtomicLong loadedKeys = new AtomicLong();
+
+    private final AtomicLong costMillis = new AtomicLong();
+
+    @Override
+    public void run(ApplicationArguments args) {
+        Gauge.builder("miniuri.warmup.keys", loadedKeys, AtomicLong::get)
+                .description("启动预热写入的短链数量")
+                .register(meterRegistry);
+        Gauge.builder("miniuri.warmup.duration", costMillis, AtomicLong::get)
+                .description("启动预热耗时（毫秒）")
+                .baseUnit("milliseconds")
+                .register(meterRegistry);
+        if (!enabled || size <= 0) {
+            return;
+        }
+        AvailabilityChangeEvent.publish(applicationContext, ReadinessState.REFUSING_TRAFFIC);
+        long start = System.currentTimeMillis();
+        long deadline = start + timeBudgetMillis;
+        boolean timeout = false;
+        // 读库单线程按主键倒序翻页，写 Redis 按 parallelism 并发
+        Semaphore permits = new Semaphore(Math.max(1, parallelism));
+        List<CompletableFuture<Void>> futures = new ArrayList<>();
+        try {
+            long lastId = Long.MAX_VALUE;
+            int remain = size;
+            while (remain > 0) {
+                if (System.currentTimeMillis() >= deadline) {
+                    timeout = true;
+                    break;
+                }
+                List<UrlMapping> page = urlMappingRepository.listActiveBefore(lastId, Math.min(pageSize, remain));
+                if (page.isEmpty()) {
+                    break;
+                }
+                lastId = page.get(page.size() - 1).getId();
+                remain -= page.size();
+                if (!permits.tryAcquire(Math.max(0, deadline - System.currentTimeMillis()), TimeUnit.MILLISECONDS)) {
+                    timeout = true;
+                    break;
+                }
+                futures.add(CompletableFuture.runAsync(() -> {
+                    try {
+                        shortUrlResolver.preload(page);
+                        loadedKeys.addAndGet(page.size());
+                    } finally {
+                        permits.release();
+                    }
+                }, cacheTaskExecutor));
+            }
+            CompletableFuture.allOf(futures.toArray(new CompletableFuture[0]))
+                    .get(Math.max(0, deadline - System.currentTimeMillis()), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            timeout = true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            log.error("cache warm-up failed", e);
+        }
+        costMillis.set(System.currentTimeMillis() - start);
+        log.info("cache warm-up finished, keys:{}, cost:{}ms, timeout:{}", loadedKeys.get(), costMillis.get(), timeout);
+    }
+}
@@ -1,6 +1,7 @@
 package com.zjz.mini.uri.run.application.worker;
 
 import com.zjz.mini.uri.run.domain.repository.UrlMappingRepository;
+import com.zjz.mini.uri.run.infrastructure.cache.ShortUrlExistenceFilter;
 import jakarta.annotation.Resource;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.scheduling.annotation.Async;
@@ -23,12 +24,19 @@ public class MiniUriJob {
     @Resource
     private UrlMappingRepository UrlMappingRepository;
 
+    @Resource
+    private ShortUrlExistenceFilter existenceFilter;
+
     @Async
     @Scheduled(cron = "0 0/10 * * * *")
     public void task() {
         log.info("start job======= {}", LocalDateTime.now());
         int count = this.UrlMappingRepository.deleteExpired();
         log.info("end job======{},deleted count:{}", LocalDateTime.now(), count);
+        if (count > 0) {
+            // 布隆过滤器不支持删除，有过期记录时重建
+            this.existenceFilter.rebuildAsync();
+        }
     }
 
 }
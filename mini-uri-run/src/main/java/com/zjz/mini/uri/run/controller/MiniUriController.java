@@ -2,9 +2,14 @@ package com.zjz.mini.uri.run.controller;
 
 import com.zjz.mini.uri.framework.common.core.R;
 import com.zjz.mini.uri.run.application.MiniUriService;
+import com.zjz.mini.uri.run.domain.dto.GenerateBatchItem;
+import com.zjz.mini.uri.run.domain.dto.GenerateBatchReq;
 import com.zjz.mini.uri.run.domain.dto.GenerateUrlReq;
+import com.zjz.mini.uri.run.domain.dto.ResolveBatchReq;
 import com.zjz.mini.uri.run.infrastructure.aop.annotation.Prevent;
+import com.zjz.mini.uri.run.infrastructure.aop.annotation.RateLimit;
 import com.zjz.mini.uri.run.infrastructure.aop.handler.GenShortUrlPreventHandler;
+import com.zjz.mini.uri.run.infrastructure.stats.ShortUrlClickCounter;
 import jakarta.annotation.Resource;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
@@ -21,6 +26,8 @@ import org.springframework.web.bind.annotation.*;
 
 import java.io.IOException;
 import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 
@@ -37,6 +44,9 @@ public class MiniUriController {
     @Resource
     private MiniUriService miniUriService;
 
+    @Resource
+    private ShortUrlClickCounter shortUrlClickCounter;
+
     /**
      * 首页：返回 Thymeleaf 模板
      */
@@ -50,6 +60,7 @@ public class MiniUriController {
      * @param req
      * @return
      */
+    @RateLimit("generate")
     @Prevent(time = 5, message = "5秒内不允许重复生成", strategy = GenShortUrlPreventHandler.class)
     @ResponseBody
     @PostMapping("/generate")
@@ -63,15 +74,50 @@ public class MiniUriController {
         return R.ok(full);
     }
 
+    /**
+     * 批量生成短链
+     * @param req
+     * @return 与请求顺序一致的逐条结果
+     */
+    @RateLimit("generate-batch")
+    @ResponseBody
+    @PostMapping("/generate/batch")
+    public R<List<GenerateBatchItem>> generateBatch(@RequestBody @Validated GenerateBatchReq req, HttpServletRequest request) {
+        List<GenerateBatchItem> items = miniUriService.generateBatch(req);
+        String base = resolveBaseUrl(request);
+        if (base == null || base.isBlank()) {
+            base = host;
+        }
+        for (GenerateBatchItem item : items) {
+            if (item.isSuccess()) {
+                item.setShortUrl(joinUrl(base, item.getShortUrl()));
+            }
+        }
+        return R.ok(items);
+    }
+
+    /**
+     * 批量解析短链
+     * @param req
+     * @return 短链 -> 长链接，不存在的短链值为 null
+     */
+    @ResponseBody
+    @PostMapping("/resolve/batch")
+    public R<Map<String, String>> resolveBatch(@RequestBody @Validated ResolveBatchReq req) {
+        return R.ok(miniUriService.resolveBatch(req));
+    }
+
     /**
      * 跳转重定向
      * @param shortUrl
      * @param response
      */
+    @RateLimit("redirect")
     @GetMapping("/{shortUrl}")
     public void redirect(@PathVariable("shortUrl") String shortUrl, HttpServletResponse response) {
         String longUrl = this.miniUriService.redirect(shortUrl);
         Optional.ofNullable(longUrl).ifPresentOrElse(e -> {
+            this.shortUrlClickCounter.record(shortUrl);
             response.setStatus(HttpServletResponse.SC_MOVED_TEMPORARILY);
             response.setHeader("Location",e);
         },()->{
@@ -48,6 +48,20 @@ public class VisitorStatsController {
         return R.ok(stats);
     }
 
+    /**
+     * 获取最近N天的合计统计，UV 按访客去重（合并每日 HyperLogLog）
+     *
+     * @param pagePath 页面路径，默认为首页 "/"
+     * @param days     最近N天，默认7天
+     * @return 区间PV和UV
+     */
+    @GetMapping("/range")
+    public R<Map<String, Long>> getRangeStats(
+            @RequestParam(defaultValue = "/") String pagePath,
+            @RequestParam(defaultValue = "7") int days) {
+        return R.ok(visitorStatsService.getRangeStats(pagePath, days));
+    }
+
     /**
      * 获取总统计
      *
@@ -60,6 +74,20 @@ public class VisitorStatsController {
         return R.ok(stats);
     }
 
+    /**
+     * 获取短链点击统计
+     *
+     * @param code 短链
+     * @param days 最近N天，默认7天
+     * @return 总点击数、区间点击数与每日点击
+     */
+    @GetMapping("/link/{code}")
+    public R<Map<String, Object>> getLinkStats(
+            @PathVariable("code") String code,
+            @RequestParam(defaultValue = "7") int days) {
+        return R.ok(visitorStatsService.getLinkStats(code, days));
+    }
+
     /**
      * 获取综合统计（今日+历史+总计）
      *
@@ -79,6 +107,9 @@ public class VisitorStatsController {
         // 历史数据
         result.put("history", visitorStatsService.getStats(pagePath, days));
 
+        // 区间合计（UV 跨天去重）
+        result.put("range", visitorStatsService.getRangeStats(pagePath, days));
+
         // 总计数据
         result.put("total", visitorStatsService.getTotalStats(pagePath));
 
@@ -0,0 +1,20 @@
+package com.zjz.mini.uri.run.domain.dao;
+
+import org.apache.ibatis.annotations.Insert;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
+import org.apache.ibatis.annotations.Update;
+
+@Mapper
+public interface IdSegmentMapper {
+
+    @Update("update mini_uri.id_segment set max_id = max_id + #{step}, update_time = now() where biz_tag = #{bizTag}")
+    int increaseMaxId(@Param("bizTag") String bizTag, @Param("step") int step);
+
+    @Select("select max_id from mini_uri.id_segment where biz_tag = #{bizTag}")
+    Long selectMaxId(@Param("bizTag") String bizTag);
+
+    @Insert("insert ignore into mini_uri.id_segment(biz_tag, max_id, step, update_time) values (#{bizTag}, #{initialId}, #{step}, now())")
+    int insertIgnore(@Param("bizTag") String bizTag, @Param("initialId") long initialId, @Param("step") int step);
+}
@@ -0,0 +1,28 @@
+package com.zjz.mini.uri.run.domain.dao;
+
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import com.zjz.mini.uri.run.domain.entity.UrlClickStats;
+import org.apache.ibatis.annotations.Insert;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+
+import java.util.List;
+
+/**
+ * 短链点击统计Mapper
+ */
+@Mapper
+public interface UrlClickStatsMapper extends BaseMapper<UrlClickStats> {
+
+    /**
+     * 多行累加，(short_url, stat_date) 已存在时 click_count 加上本次增量
+     */
+    @Insert("<script>" +
+            "insert into mini_uri.url_click_stats (short_url, stat_date, click_count, create_time, update_time) values " +
+            "<foreach collection='list' item='item' separator=','>" +
+            "(#{item.shortUrl}, #{item.statDate}, #{item.clickCount}, now(), now())" +
+            "</foreach>" +
+            " on duplicate key update click_count = click_count + values(click_count), update_time = now()" +
+            "</script>")
+    int addBatch(@Param("list") List<UrlClickStats> rows);
+}
@@ -3,7 +3,16 @@ package com.zjz.mini.uri.run.domain.dao;
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
 import com.zjz.mini.uri.run.domain.entity.UrlMapping;
 import org.apache.ibatis.annotations.Delete;
+import org.apache.ibatis.annotations.Insert;
 import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Options;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
+import org.apache.ibatis.annotations.Update;
+import org.apache.ibatis.cursor.Cursor;
+import org.apache.ibatis.mapping.ResultSetType;
+
+import java.util.List;
 
 @Mapper
 public interface UrlMappingMapper extends BaseMapper<UrlMapping> {
@@ -11,4 +20,35 @@ public interface UrlMappingMapper extends BaseMapper<UrlMapping> {
 
     @Delete("delete from mini_uri.url_mapping where expire_time < now()")
     int deleteExpired();
+
+    /**
+     * 流式读取所有未过期的映射，fetchSize = Integer.MIN_VALUE 让 MySQL 驱动逐行返回，
+     * 需要在事务内使用
+     */
+    @Select("select id, short_url, long_url, expire_time from mini_uri.url_mapping where expire_time is null or expire_time > now()")
+    @Options(fetchSize = Integer.MIN_VALUE, resultSetType = ResultSetType.FORWARD_ONLY)
+    Cursor<UrlMapping> streamActive();
+
+    /**
+     * 多行 insert ignore，short_url 已存在时保留原有映射，不覆盖
+     *
+     * @return 实际插入的行数
+     */
+    @Insert("<script>" +
+            "insert ignore into mini_uri.url_mapping (short_url, long_url, url_fingerprint, build_type, expire_time, create_time, update_time) values " +
+            "<foreach collection='list' item='item' separator=','>" +
+            "(#{item.shortUrl}, #{item.longUrl}, #{item.urlFingerprint}, #{item.buildType}, #{item.expireTime}, now(), now())" +
+            "</foreach>" +
+            "</script>")
+    int insertIgnoreBatch(@Param("list") List<UrlMapping> urlMappings);
+
+    /**
+     * 原映射已过期时改为新映射
+     *
+     * @return 更新的行数，原映射未过期时为 0
+     */
+    @Update("update mini_uri.url_mapping set long_url = #{longUrl}, url_fingerprint = #{urlFingerprint}, build_type = #{buildType}, " +
+            "expire_time = #{expireTime}, create_time = now(), update_time = now() " +
+            "where short_url = #{shortUrl} and expire_time < now()")
+    int replaceExpired(UrlMapping urlMapping);
 }
@@ -0,0 +1,32 @@
+package com.zjz.mini.uri.run.domain.dto;
+
+
+import lombok.Data;
+import lombok.experimental.Accessors;
+
+
+/**
+ * 批量生成短链的单条结果
+ * @author hkz329
+ */
+@Data
+@Accessors(chain = true)
+public class GenerateBatchItem {
+
+    /**
+     * 原始 url
+     */
+    private String originalUrl;
+    /**
+     * 短链，失败时为 null
+     */
+    private String shortUrl;
+    /**
+     * 是否成功
+     */
+    private boolean success;
+    /**
+     * 失败原因
+     */
+    private String message;
+}
@@ -0,0 +1,28 @@
+package com.zjz.mini.uri.run.domain.dto;
+
+
+import jakarta.validation.constraints.NotEmpty;
+import lombok.Data;
+import org.hibernate.validator.constraints.Range;
+
+import java.util.List;
+
+
+/**
+ * 批量生成短链请求
+ * @author hkz329
+ */
+@Data
+public class GenerateBatchReq {
+
+    /**
+     * 原始 url 列表，数量上限见 miniuri.generate.batch.max-size
+     */
+    @NotEmpty(message = "url 列表不能为空")
+    private List<String> originalUrls;
+    /**
+     * 过期时间默认 1天，对整批生效
+     */
+    @Range(min = 1, max = 90, message = "过期时间必须在 1-90 天之间")
+    private Integer expireTime = 1;
+}
@@ -0,0 +1,22 @@
+package com.zjz.mini.uri.run.domain.dto;
+
+
+import jakarta.validation.constraints.NotEmpty;
+import lombok.Data;
+
+import java.util.List;
+
+
+/**
+ * 批量解析短链请求
+ * @author hkz329
+ */
+@Data
+public class ResolveBatchReq {
+
+    /**
+     * 短链列表，数量上限见 miniuri.resolve.batch.max-size
+     */
+    @NotEmpty(message = "短链列表不能为空")
+    private List<String> shortUrls;
+}
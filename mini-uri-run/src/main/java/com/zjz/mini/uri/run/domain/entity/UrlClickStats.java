@@ -0,0 +1,58 @@
+package com.zjz.mini.uri.run.domain.entity;
+
+import com.baomidou.mybatisplus.annotation.*;
+import lombok.Data;
+import lombok.experimental.Accessors;
+
+import java.io.Serializable;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * 短链每日点击统计表
+ *
+ * @TableName url_click_stats
+ */
+@TableName(value = "url_click_stats")
+@Data
+@Accessors(chain = true)
+public class UrlClickStats implements Serializable {
+    /**
+     * 主键
+     */
+    @TableId(value = "id", type = IdType.AUTO)
+    private Long id;
+
+    /**
+     * 短链接
+     */
+    @TableField(value = "short_url")
+    private String shortUrl;
+
+    /**
+     * 统计日期
+     */
+    @TableField(value = "stat_date")
+    private LocalDate statDate;
+
+    /**
+     * 点击次数
+     */
+    @TableField(value = "click_count")
+    private Long clickCount;
+
+    /**
+     * 创建时间
+     */
+    @TableField(value = "create_time")
+    private LocalDateTime createTime;
+
+    /**
+     * 更新时间
+     */
+    @TableField(value = "update_time")
+    private LocalDateTime updateTime;
+
+    @TableField(exist = false)
+    private static final long serialVersionUID = 1L;
+}
@@ -35,6 +35,12 @@ public class UrlMapping implements Serializable {
     @TableField(value = "short_url")
     private String shortUrl;
 
+    /**
+     * 长链接指纹，反查已有短链
+     */
+    @TableField(value = "url_fingerprint")
+    private Long urlFingerprint;
+
     /**
      * 生成类型
      */
@@ -47,6 +47,12 @@ public class VisitorStats implements Serializable {
     @TableField(value = "unique_count")
     private Long uniqueCount;
 
+    /**
+     * UV HyperLogLog（Redis 原始编码），用于多日去重合并；普通查询不读取
+     */
+    @TableField(value = "uv_sketch", select = false)
+    private byte[] uvSketch;
+
     /**
      * 统计日期
      */
@@ -0,0 +1,37 @@
+package com.zjz.mini.uri.run.domain.repository;
+
+import com.zjz.mini.uri.run.domain.dao.IdSegmentMapper;
+import jakarta.annotation.Resource;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+@Component
+public class IdSegmentRepository {
+
+    @Resource
+    private IdSegmentMapper idSegmentMapper;
+
+    @Resource
+    private TransactionTemplate transactionTemplate;
+
+    /**
+     * 租用一个号段，update 持有行锁，多节点并发租用互不重叠
+     * @param bizTag    业务标识
+     * @param step      号段长度
+     * @param initialId 业务标识不存在时的起始 id
+     * @return 号段上界（含），号段为 (maxId - step, maxId]
+     */
+    public long leaseSegment(String bizTag, int step, long initialId) {
+        Long maxId = this.transactionTemplate.execute(status -> {
+            if (this.idSegmentMapper.increaseMaxId(bizTag, step) == 0) {
+                this.idSegmentMapper.insertIgnore(bizTag, initialId, step);
+                this.idSegmentMapper.increaseMaxId(bizTag, step);
+            }
+            return this.idSegmentMapper.selectMaxId(bizTag);
+        });
+        if (maxId == null) {
+            throw new IllegalStateException("lease id segment failed, bizTag: " + bizTag);
+        }
+        return maxId;
+    }
+}
@@ -6,9 +6,20 @@ import com.zjz.mini.uri.run.domain.dao.UrlMappingDao;
 import com.zjz.mini.uri.run.domain.dao.UrlMappingMapper;
 import com.zjz.mini.uri.run.domain.entity.UrlMapping;
 import jakarta.annotation.Resource;
+import org.apache.ibatis.cursor.Cursor;
 import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.function.Consumer;
 
 @Component
 public class UrlMappingRepository {
@@ -19,6 +30,9 @@ public class UrlMappingRepository {
     @Resource
     private UrlMappingDao urlMappingDao;
 
+    @Resource
+    private TransactionTemplate transactionTemplate;
+
     public boolean addUrlMapping(UrlMapping urlMapping) {
         LambdaQueryWrapper<UrlMapping> queryWrapper = Wrappers.lambdaQuery(UrlMapping.class);
         queryWrapper.eq(UrlMapping::getShortUrl, urlMapping.getShortUrl());
@@ -27,12 +41,139 @@ public class UrlMappingRepository {
         return this.urlMappingDao.saveOrUpdate(urlMapping);
     }
 
+    /**
+     * 多行 insert ignore，一条语句写入一批，已存在的短链不覆盖
+     * 未插入的行逐个核对：库中为同一长链接视为已写入（如日志重放），原映射已过期则接管，其余为短链冲突
+     * @param urlMappings 映射列表，short_url 不重复
+     * @return 冲突未写入的映射
+     */
+    public List<UrlMapping> insertBatch(List<UrlMapping> urlMappings) {
+        int inserted = this.urlMappingMapper.insertIgnoreBatch(urlMappings);
+        if (inserted >= urlMappings.size()) {
+            return List.of();
+        }
+        Map<String, UrlMapping> stored = new HashMap<>();
+        for (UrlMapping row : listByShortUrls(urlMappings.stream().map(UrlMapping::getShortUrl).toList())) {
+            stored.put(row.getShortUrl(), row);
+        }
+        LocalDateTime now = LocalDateTime.now();
+        List<UrlMapping> conflicts = new ArrayList<>();
+        for (UrlMapping urlMapping : urlMappings) {
+            UrlMapping row = stored.get(urlMapping.getShortUrl());
+            if (null == row) {
+                conflicts.add(urlMapping);
+            } else if (null != row.getExpireTime() && !row.getExpireTime().isAfter(now)) {
+                if (this.urlMappingMapper.replaceExpired(urlMapping) == 0) {
+                    conflicts.add(urlMapping);
+                }
+            } else if (!urlMapping.getLongUrl().equals(row.getLongUrl())) {
+                conflicts.add(urlMapping);
+            }
+        }
+        return conflicts;
+    }
+
     public UrlMapping getByShortUrl(String shortUrl) {
         LambdaQueryWrapper<UrlMapping> queryWrapper = Wrappers.lambdaQuery(UrlMapping.class);
         queryWrapper.eq(UrlMapping::getShortUrl, shortUrl);
         return Optional.ofNullable(this.urlMappingMapper.selectOne(queryWrapper)).orElseGet(UrlMapping::new);
     }
 
+    /**
+     * 按长链接指纹查询未过期的短链，永不过期的优先，其次过期时间最晚的
+     * @param fingerprint 长链接指纹
+     * @param longUrl     长链接，排除指纹碰撞
+     * @return 不存在返回 null
+     */
+    public UrlMapping getActiveByFingerprint(long fingerprint, String longUrl) {
+        LambdaQueryWrapper<UrlMapping> queryWrapper = Wrappers.lambdaQuery(UrlMapping.class);
+        queryWrapper.select(UrlMapping::getShortUrl, UrlMapping::getExpireTime)
+                .eq(UrlMapping::getUrlFingerprint, fingerprint)
+                .eq(UrlMapping::getLongUrl, longUrl)
+                .and(w -> w.isNull(UrlMapping::getExpireTime).or().gt(UrlMapping::getExpireTime, LocalDateTime.now()))
+                // expire_time 为 NULL 表示永不过期，降序时 NULL 排在最后，需要先按 IS NULL 排序
+                .last("order by expire_time is null desc, expire_time desc limit 1");
+        return this.urlMappingMapper.selectOne(queryWrapper);
+    }
+
+    /**
+     * 按短链批量查询（单条 IN 查询）
+     * @param shortUrls 短链集合
+     * @return
+     */
+    public List<UrlMapping> listByShortUrls(Collection<String> shortUrls) {
+        if (shortUrls.isEmpty()) {
+            return List.of();
+        }
+        LambdaQueryWrapper<UrlMapping> queryWrapper = Wrappers.lambdaQuery(UrlMapping.class);
+        queryWrapper.select(UrlMapping::getShortUrl, UrlMapping::getLongUrl, UrlMapping::getExpireTime)
+                .in(UrlMapping::getShortUrl, shortUrls);
+        return this.urlMappingMapper.selectList(queryWrapper);
+    }
+
+    /**
+     * 按主键倒序（最近创建优先）分页读取未过期的映射
+     * @param lastId 上一页最小 id，首页传 Long.MAX_VALUE
+     * @param limit  每页数量
+     * @return
+     */
+    public List<UrlMapping> listActiveBefore(long lastId, int limit) {
+        LambdaQueryWrapper<UrlMapping> queryWrapper = Wrappers.lambdaQuery(UrlMapping.class);
+        queryWrapper.select(UrlMapping::getId, UrlMapping::getShortUrl, UrlMapping::getLongUrl, UrlMapping::getExpireTime)
+                .lt(UrlMapping::getId, lastId)
+                .and(w -> w.isNull(UrlMapping::getExpireTime).or().gt(UrlMapping::getExpireTime, LocalDateTime.now()))
+                .orderByDesc(UrlMapping::getId)
+                .last("limit " + limit);
+        return this.urlMappingMapper.selectList(queryWrapper);
+    }
+
+    /**
+     * 按主键顺序分页读取短链（只查 id、short_url 与 create_time）
+     * @param lastId 上一页最大 id，从 0 开始
+     * @param limit  每页数量
+     * @return
+     */
+    public List<UrlMapping> listShortUrlsAfter(long lastId, int limit) {
+        LambdaQueryWrapper<UrlMapping> queryWrapper = Wrappers.lambdaQuery(UrlMapping.class);
+        queryWrapper.select(UrlMapping::getId, UrlMapping::getShortUrl, UrlMapping::getCreateTime)
+                .gt(UrlMapping::getId, lastId)
+                .orderByAsc(UrlMapping::getId)
+                .last("limit " + limit);
+        return this.urlMappingMapper.selectList(queryWrapper);
+    }
+
+    /**
+     * 按 (create_time, id) 顺序分页读取短链（只查 id、short_url 与 create_time）
+     * @param createTime 上一页最后一行的创建时间，首页传起始时间
+     * @param lastId     上一页最后一行的 id，首页传 0
+     * @param limit      每页数量
+     * @return
+     */
+    public List<UrlMapping> listShortUrlsCreatedAfter(LocalDateTime createTime, long lastId, int limit) {
+        LambdaQueryWrapper<UrlMapping> queryWrapper = Wrappers.lambdaQuery(UrlMapping.class);
+        queryWrapper.select(UrlMapping::getId, UrlMapping::getShortUrl, UrlMapping::getCreateTime)
+                .and(w -> w.gt(UrlMapping::getCreateTime, createTime)
+                        .or(o -> o.eq(UrlMapping::getCreateTime, createTime).gt(UrlMapping::getId, lastId)))
+                .orderByAsc(UrlMapping::getCreateTime)
+                .orderByAsc(UrlMapping::getId)
+                .last("limit " + limit);
+        return this.urlMappingMapper.selectList(queryWrapper);
+    }
+
+    /**
+     * 逐行遍历所有未过期的映射，不在堆内累积结果集
+     * @param consumer 每行回调
+     */
+    public void forEachActive(Consumer<UrlMapping> consumer) {
+        this.transactionTemplate.executeWithoutResult(status -> {
+            try (Cursor<UrlMapping> cursor = this.urlMappingMapper.streamActive()) {
+                cursor.forEach(consumer);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+
     public int deleteExpired() {
         return this.urlMappingMapper.deleteExpired();
     }
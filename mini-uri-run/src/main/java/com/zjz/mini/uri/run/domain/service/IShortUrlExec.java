@@ -1,5 +1,7 @@
 package com.zjz.mini.uri.run.domain.service;
 
+import java.util.Collection;
+import java.util.Map;
 
 public interface IShortUrlExec {
 
@@ -7,5 +9,11 @@ public interface IShortUrlExec {
 
     String generateShortUrl(String url, Integer expireTime);
 
+    Map<String, String> generateBatch(Collection<String> urls, Integer expireTime);
+
     String redirect(String url);
+
+    String redirectFromCache(String url);
+
+    Map<String, String> resolveBatch(Collection<String> urls);
 }
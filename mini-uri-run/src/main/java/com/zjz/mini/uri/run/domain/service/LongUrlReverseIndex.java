@@ -0,0 +1,262 @@
+package com.zjz.mini.uri.run.domain.service;
+
+import com.google.common.hash.HashCode;
+import com.google.common.hash.Hashing;
+import com.zjz.mini.uri.run.domain.entity.UrlMapping;
+import com.zjz.mini.uri.run.domain.repository.UrlMappingRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.Resource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.RedisOperations;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.SessionCallback;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 长链接反向索引：长链接指纹 -> 已有短链
+ * <p>
+ * 同一长链接重复生成时直接返回已有短链，不再占用新短链、不再写入 url_mapping。
+ * 1. Redis：miniuri:rev:{128 位指纹} -> "短链,过期时间戳"，128 位指纹碰撞可忽略，命中即可返回；
+ *    缓存时间为短链剩余有效期（永不过期的短链不设置过期时间），值很小，短链有效期内一直可以复用
+ * 2. MySQL：url_fingerprint（低 64 位）索引，同时比较 long_url 排除碰撞，命中后回填 Redis；
+ *    只用于 Redis 数据丢失或被淘汰的场景，每次 Redis 未命中都会多一次同步查询，默认关闭（dbFallback）
+ * <p>
+ * 只复用剩余有效期不少于本次请求有效期 minRemainingRatio 的短链，已过期的短链不会被返回。
+ *
+ * @author hkz329
+ */
+@Slf4j
+@Component
+public class LongUrlReverseIndex {
+
+    private static final String KEY_PREFIX = "miniuri:rev:";
+
+    private static final String SEPARATOR = ",";
+
+    @Value("${miniuri.generate.reuse.enabled:true}")
+    private boolean enabled;
+
+    /**
+     * 已有短链剩余有效期不少于请求有效期的该比例时复用
+     */
+    @Value("${miniuri.generate.reuse.min-remaining-ratio:0.9}")
+    private double minRemainingRatio;
+
+    /**
+     * Redis 未命中时是否查询 url_fingerprint 索引
+     */
+    @Value("${miniuri.generate.reuse.db-fallback:false}")
+    private boolean dbFallback;
+
+    @Resource
+    private RedisTemplate<String, Object> redisTemplate;
+
+    @Resource
+    private UrlMappingRepository urlMappingRepository;
+
+    @Resource
+    private MeterRegistry meterRegistry;
+
+    @Resource
+    @Qualifier("cacheTaskExecutor")
+    private Executor cacheTaskExecutor;
+
+    private Counter redisHitCounter;
+
+    private Counter dbHitCounter;
+
+    private Counter missCounter;
+
+    @PostConstruct
+    public void init() {
+        this.redisHitCounter = Counter.builder("miniuri.generate.reuse")
+                .description("复用已有短链的生成请求数")
+                .tag("source", "redis")
+                .register(meterRegistry);
+        this.dbHitCounter = Counter.builder("miniuri.generate.reuse")
+                .description("复用已有短链的生成请求数")
+                .tag("source", "db")
+                .register(meterRegistry);
+        this.missCounter = Counter.builder("miniuri.generate.reuse.miss")
+                .description("未找到可复用短链的生成请求数")
+                .register(meterRegistry);
+        Gauge.builder("miniuri.generate.reuse.ratio", this, LongUrlReverseIndex::reuseRatio)
+                .description("复用比例 reuse / (reuse + miss)")
+                .register(meterRegistry);
+    }
+
+    /**
+     * 长链接指纹，只计算一次 murmur3_128
+     */
+    public static HashCode fingerprint(String longUrl) {
+        return Hashing.murmur3_128().hashString(longUrl, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * 查找可复用的短链
+     *
+     * @param longUrl    长链接
+     * @param expireTime 本次请求的过期时间，null 表示永不过期
+     * @return 没有可复用的短链返回 null
+     */
+    public String lookup(String longUrl, LocalDateTime expireTime) {
+        if (!enabled) {
+            return null;
+        }
+        HashCode fingerprint = fingerprint(longUrl);
+        try {
+            String cached = parse(this.redisTemplate.opsForValue().get(KEY_PREFIX + fingerprint), expireTime);
+            if (null != cached) {
+                this.redisHitCounter.increment();
+                return cached;
+            }
+        } catch (Exception e) {
+            log.warn("lookup reverse index from redis failed, longUrl:{}", longUrl, e);
+        }
+        UrlMapping existing = dbFallback ? this.urlMappingRepository.getActiveByFingerprint(fingerprint.asLong(), longUrl) : null;
+        if (null != existing && reusable(existing.getExpireTime(), expireTime)) {
+            this.dbHitCounter.increment();
+            register(longUrl, existing.getShortUrl(), existing.getExpireTime());
+            return existing.getShortUrl();
+        }
+        this.missCounter.increment();
+        return null;
+    }
+
+    /**
+     * 批量查找可复用的短链，只查 Redis（一次 MGET），不回源数据库
+     *
+     * @param longUrls   长链接
+     * @param expireTime 本次请求的过期时间
+     * @return 长链接 -> 可复用的短链
+     */
+    public Map<String, String> lookupBatch(Collection<String> longUrls, LocalDateTime expireTime) {
+        Map<String, String> result = new HashMap<>();
+        if (!enabled || longUrls.isEmpty()) {
+            return result;
+        }
+        List<String> urls = new ArrayList<>(longUrls);
+        try {
+            List<Object> values = this.redisTemplate.opsForValue().multiGet(urls.stream().map(url -> KEY_PREFIX + fingerprint(url)).toList());
+            for (int i = 0; null != values && i < urls.size(); i++) {
+                String cached = parse(values.get(i), expireTime);
+                if (null != cached) {
+                    result.put(urls.get(i), cached);
+                }
+            }
+        } catch (Exception e) {
+            log.warn("lookup reverse index batch from redis failed, size:{}", urls.size(), e);
+        }
+        this.redisHitCounter.increment(result.size());
+        this.missCounter.increment(urls.size() - result.size());
+        return result;
+    }
+
+    /**
+     * 登记长链接对应的短链，后台写入 Redis，缓存时间为短链剩余有效期
+     */
+    public void register(String longUrl, String shortUrl, LocalDateTime expireTime) {
+        registerBatch(Map.of(longUrl, shortUrl), expireTime);
+    }
+
+    /**
+     * 批量登记，后台一次流水线写入
+     *
+     * @param mappings 长链接 -> 短链
+     */
+    public void registerBatch(Map<String, String> mappings, LocalDateTime expireTime) {
+        if (!enabled || mappings.isEmpty()) {
+            return;
+        }
+        // 0 表示永不过期，不设置过期时间
+        long ttlSeconds = 0;
+        long expireEpochSecond = 0;
+        if (null != expireTime) {
+            ttlSeconds = Duration.between(LocalDateTime.now(), expireTime).getSeconds();
+            expireEpochSecond = expireTime.atZone(ZoneId.systemDefault()).toEpochSecond();
+            if (ttlSeconds <= 0) {
+                return;
+            }
+        }
+        final long finalTtlSeconds = ttlSeconds;
+        final String suffix = SEPARATOR + expireEpochSecond;
+        this.cacheTaskExecutor.execute(() -> {
+            try {
+                this.redisTemplate.executePipelined(new SessionCallback<Object>() {
+                    @Override
+                    @SuppressWarnings("unchecked")
+                    public <K, V> Object execute(RedisOperations<K, V> operations) {
+                        RedisOperations<String, Object> ops = (RedisOperations<String, Object>) operations;
+                        mappings.forEach((longUrl, shortUrl) -> {
+                            String key = KEY_PREFIX + fingerprint(longUrl);
+                            if (finalTtlSeconds > 0) {
+                                ops.opsForValue().set(key, shortUrl + suffix, finalTtlSeconds, TimeUnit.SECONDS);
+                            } else {
+                                ops.opsForValue().set(key, shortUrl + suffix);
+                            }
+                        });
+                        return null;
+                    }
+                });
+            } catch (Exception e) {
+                log.warn("register reverse index failed, size:{}", mappings.size(), e);
+            }
+        });
+    }
+
+    /**
+     * 解析 "短链,过期时间戳"，不可复用时返回 null
+     */
+    private String parse(Object cached, LocalDateTime expireTime) {
+        if (null == cached) {
+            return null;
+        }
+        String[] parts = cached.toString().split(SEPARATOR);
+        LocalDateTime existingExpire = "0".equals(parts[1]) ? null : toDateTime(Long.parseLong(parts[1]));
+        return reusable(existingExpire, expireTime) ? parts[0] : null;
+    }
+
+    /**
+     * 已有短链永不过期，或剩余有效期不少于请求有效期的 minRemainingRatio
+     */
+    private boolean reusable(LocalDateTime existingExpire, LocalDateTime requestedExpire) {
+        if (null == existingExpire) {
+            return true;
+        }
+        if (null == requestedExpire) {
+            return false;
+        }
+        LocalDateTime now = LocalDateTime.now();
+        long remaining = Duration.between(now, existingExpire).getSeconds();
+        long requested = Duration.between(now, requestedExpire).getSeconds();
+        return remaining > 0 && remaining >= requested * minRemainingRatio;
+    }
+
+    private LocalDateTime toDateTime(long epochSecond) {
+        return LocalDateTime.ofInstant(Instant.ofEpochSecond(epochSecond), ZoneId.systemDefault());
+    }
+
+    private double reuseRatio() {
+        double reused = redisHitCounter.count() + dbHitCounter.count();
+        double total = reused + missCounter.count();
+        return total == 0 ? 0 : reused / total;
+    }
+}
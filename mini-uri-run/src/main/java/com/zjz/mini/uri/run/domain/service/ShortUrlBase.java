@@ -1,5 +1,12 @@
 package com.zjz.mini.uri.run.domain.service;
 
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+
 
 /**
  * 短链 Base
@@ -27,8 +34,44 @@ public abstract class ShortUrlBase extends ShortUrlSupport implements IShortUrlE
         return shortUrl;
     }
 
+    /**
+     * 批量生成：并行校验并计算候选短链，批量占用后分批入库
+     * @param urls
+     * @param expireTime 过期天数
+     * @return 长链接 -> 短链，格式错误或生成失败的长链接不在结果中
+     */
+    @Override
+    public Map<String, String> generateBatch(Collection<String> urls, Integer expireTime) {
+        LocalDateTime expireAt = LocalDateTime.now().plusDays(expireTime);
+        Map<String, String> candidates = mapParallel(new ArrayList<>(new LinkedHashSet<>(urls)), url -> {
+            checkUrl(url);
+            return toEncode(toHash(url));
+        });
+        BatchClaim claim = claimBatch(candidates, expireAt);
+        saveBatchAsync(claim.created(), expireAt, buildType());
+        Map<String, String> result = new LinkedHashMap<>(claim.created());
+        result.putAll(claim.existing());
+        return result;
+    }
+
+    /**
+     * 占用候选短链；默认候选短链已全局唯一（号段、号池），直接写入缓存
+     * @param candidates 长链接 -> 候选短链
+     * @param expireTime 过期时间
+     * @return
+     */
+    protected BatchClaim claimBatch(Map<String, String> candidates, LocalDateTime expireTime) {
+        cacheBatch(candidates, expireTime);
+        return new BatchClaim(candidates, Map.of());
+    }
+
     protected abstract void checkUrl(String url);
 
+    /**
+     * 生成类型，写入 url_mapping.build_type
+     */
+    protected abstract int buildType();
+
     protected abstract long toHash(String url);
 
     protected abstract String toEncode(long hash);
@@ -45,7 +88,34 @@ public abstract class ShortUrlBase extends ShortUrlSupport implements IShortUrlE
         return redirectToLong(url);
     }
 
-    protected abstract String redirectToLong(String url);
+    /**
+     * 解析与生成策略无关，默认走共用的多级缓存读路径
+     * @param url
+     * @return
+     */
+    protected String redirectToLong(String url) {
+        return getShortUrlResolver().redirect(url);
+    }
+
+    /**
+     * 只查询缓存层的重定向，未命中返回 null
+     * @param url
+     * @return
+     */
+    @Override
+    public String redirectFromCache(String url) {
+        return getShortUrlResolver().redirectFromCache(url);
+    }
+
+    /**
+     * 批量解析
+     * @param urls
+     * @return 短链 -> 长链接，不存在的短链值为 null
+     */
+    @Override
+    public Map<String, String> resolveBatch(Collection<String> urls) {
+        return getShortUrlResolver().resolveBatch(urls);
+    }
 
 
 }
@@ -0,0 +1,447 @@
+package com.zjz.mini.uri.run.domain.service;
+
+import com.zjz.mini.uri.run.domain.entity.UrlMapping;
+import com.zjz.mini.uri.run.domain.repository.UrlMappingRepository;
+import com.zjz.mini.uri.run.infrastructure.cache.HotKeyDetector;
+import com.zjz.mini.uri.run.infrastructure.cache.NegativeLookupCache;
+import com.zjz.mini.uri.run.infrastructure.cache.RedirectLocalCache;
+import com.zjz.mini.uri.run.infrastructure.cache.ShortUrlExistenceFilter;
+import com.zjz.mini.uri.run.infrastructure.cache.SingleFlight;
+import com.zjz.mini.uri.run.infrastructure.snapshot.SnapshotIndexManager;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.Resource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.data.redis.core.RedisOperations;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.SessionCallback;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 短链解析（读路径）
+ * <p>
+ * 与生成策略无关，所有策略生成的短链共用：
+ * 热点租约 -> 本地缓存 -> 快照索引 -> 负缓存 -> Redis -> 过滤器 -> 数据库
+ * 过滤器只能定时感知其他节点新增的短链，只用于在 Redis 未命中后跳过数据库查询
+ *
+ * @author hkz329
+ */
+@Slf4j
+@Component
+public class ShortUrlResolver {
+
+    @Value("${miniuri.cache.timeout}")
+    private Long TIMEOUT;
+    /**
+     * 缓存时间抖动比例
+     */
+    @Value("${miniuri.cache.jitter-ratio:0.1}")
+    private double jitterRatio;
+    /**
+     * 预刷新阈值：剩余 TTL 低于 timeout 的该比例时异步刷新
+     */
+    @Value("${miniuri.cache.refresh.ratio:0.2}")
+    private double refreshRatio;
+
+    @Resource
+    private RedisTemplate<String, Object> redisTemplate;
+
+    @Resource
+    private UrlMappingRepository urlMappingRepository;
+
+    /**
+     * 本地一级缓存
+     */
+    @Resource
+    private RedirectLocalCache redirectLocalCache;
+
+    /**
+     * 不存在短链的负缓存
+     */
+    @Resource
+    private NegativeLookupCache negativeLookupCache;
+
+    /**
+     * 短链存在性过滤器
+     */
+    @Resource
+    private ShortUrlExistenceFilter existenceFilter;
+
+    /**
+     * 热点短链探测与本地固定
+     */
+    @Resource
+    private HotKeyDetector hotKeyDetector;
+
+    /**
+     * 堆外快照索引
+     */
+    @Resource
+    private SnapshotIndexManager snapshotIndexManager;
+
+    @Resource
+    private MeterRegistry meterRegistry;
+
+    /**
+     * 缓存预刷新线程池（有界）
+     */
+    @Resource
+    @Qualifier("cacheRefreshExecutor")
+    private ThreadPoolTaskExecutor cacheRefreshExecutor;
+
+    /**
+     * 缓存未命中时按短链合并数据库查询，防止热点 key 过期引起的缓存击穿
+     */
+    private SingleFlight<String, String> redirectLoader;
+
+    /**
+     * 正在预刷新的短链，避免重复提交
+     */
+    private final Set<String> refreshing = ConcurrentHashMap.newKeySet();
+
+    private Counter refreshCounter;
+
+    private Counter refreshRejectedCounter;
+
+    private Timer refreshTimer;
+
+    @PostConstruct
+    public void init() {
+        Counter coalesced = Counter.builder("miniuri.redirect.singleflight.coalesced")
+                .description("缓存未命中时被合并的数据库查询数")
+                .register(meterRegistry);
+        this.redirectLoader = new SingleFlight<>(coalesced);
+        this.refreshCounter = Counter.builder("miniuri.redirect.refresh")
+                .description("触发的缓存预刷新次数")
+                .register(meterRegistry);
+        this.refreshRejectedCounter = Counter.builder("miniuri.redirect.refresh.rejected")
+                .description("刷新线程池已满而跳过的预刷新次数")
+                .register(meterRegistry);
+        this.refreshTimer = Timer.builder("miniuri.redirect.refresh.latency")
+                .description("缓存预刷新耗时")
+                .register(meterRegistry);
+    }
+
+    /**
+     * 带随机抖动的缓存时间（秒），只向下抖动，不超过配置的 timeout
+     */
+    public long cacheTtlSeconds() {
+        long seconds = TimeUnit.HOURS.toSeconds(TIMEOUT);
+        long jitter = (long) (seconds * jitterRatio * ThreadLocalRandom.current().nextDouble());
+        return Math.max(1, seconds - jitter);
+    }
+
+    /**
+     * 新短链生效：加入存在性过滤器并清除负缓存
+     */
+    public void onGenerated(String shortUrl) {
+        this.existenceFilter.add(shortUrl);
+        this.negativeLookupCache.invalidate(shortUrl);
+    }
+
+    /**
+     * 重定向：缓存层未命中时回源数据库
+     */
+    public String redirect(String shortUrl) {
+        return redirectThrough(shortUrl, true);
+    }
+
+    /**
+     * 只查询缓存层的重定向，未命中返回 null
+     */
+    public String redirectFromCache(String shortUrl) {
+        return redirectThrough(shortUrl, false);
+    }
+
+    /**
+     * @param loadOnMiss 缓存层未命中时是否查询数据库
+     */
+    private String redirectThrough(String shortUrl, boolean loadOnMiss) {
+        // 热点短链直接读取本地租约
+        boolean hot = this.hotKeyDetector.record(shortUrl);
+        if (hot) {
+            String pinned = this.hotKeyDetector.getPinned(shortUrl);
+            if (null != pinned) {
+                return pinned;
+            }
+        }
+        String longUrl = loadOnMiss ? resolveLongUrl(shortUrl) : resolveCached(shortUrl);
+        if (hot && null != longUrl) {
+            this.hotKeyDetector.pin(shortUrl, longUrl);
+        }
+        return longUrl;
+    }
+
+    /**
+     * 逐级查询：本地缓存 -> 快照索引 -> 负缓存 -> Redis -> 过滤器 -> 数据库
+     */
+    private String resolveLongUrl(String shortUrl) {
+        String longUrl = lookupLocal(shortUrl);
+        if (null != longUrl) {
+            return longUrl;
+        }
+        if (knownMissing(shortUrl)) {
+            return null;
+        }
+        longUrl = lookupRedis(shortUrl);
+        if (null != longUrl) {
+            return longUrl;
+        }
+        // 过滤器判定一定不存在时不查数据库，写入负缓存，同一短链再次请求不再访问 Redis
+        if (!this.existenceFilter.mightContain(shortUrl)) {
+            this.negativeLookupCache.put(shortUrl);
+            return null;
+        }
+        // 缓存未命中：同一短链的并发请求只查询一次数据库并回填缓存
+        longUrl = this.redirectLoader.execute(shortUrl, () -> loadAndCache(shortUrl));
+        if (null != longUrl) {
+            this.redirectLocalCache.put(shortUrl, longUrl);
+        } else {
+            this.existenceFilter.recordFalsePositive();
+            this.negativeLookupCache.put(shortUrl);
+        }
+        return longUrl;
+    }
+
+    /**
+     * 只查缓存层（本地缓存 -> 快照索引 -> Redis），不访问数据库
+     */
+    private String resolveCached(String shortUrl) {
+        String longUrl = lookupLocal(shortUrl);
+        if (null != longUrl || knownMissing(shortUrl)) {
+            return longUrl;
+        }
+        return lookupRedis(shortUrl);
+    }
+
+    /**
+     * 进程内查询：本地缓存 -> 快照索引（堆外）
+     */
+    private String lookupLocal(String shortUrl) {
+        String longUrl = this.redirectLocalCache.get(shortUrl);
+        if (null != longUrl) {
+            return longUrl;
+        }
+        longUrl = this.snapshotIndexManager.get(shortUrl);
+        if (null != longUrl) {
+            this.redirectLocalCache.put(shortUrl, longUrl);
+        }
+        return longUrl;
+    }
+
+    /**
+     * 快照为权威数据源或近期确认不存在
+     */
+    private boolean knownMissing(String shortUrl) {
+        return this.snapshotIndexManager.isAuthoritative()
+                || this.negativeLookupCache.contains(shortUrl);
+    }
+
+    /**
+     * 查 Redis（GET 与 PTTL 在同一次往返中完成），命中时回填本地缓存并按需预刷新
+     */
+    private String lookupRedis(String shortUrl) {
+        List<Object> cached = this.redisTemplate.executePipelined(new SessionCallback<Object>() {
+            @Override
+            @SuppressWarnings("unchecked")
+            public <K, V> Object execute(RedisOperations<K, V> operations) {
+                RedisOperations<String, Object> ops = (RedisOperations<String, Object>) operations;
+                ops.opsForValue().get(shortUrl);
+                ops.getExpire(shortUrl, TimeUnit.MILLISECONDS);
+                return null;
+            }
+        });
+        String longUrl = (String) cached.get(0);
+        if (null != longUrl) {
+            this.redirectLocalCache.put(shortUrl, longUrl);
+            refreshAheadIfNeeded(shortUrl, (Long) cached.get(1));
+        }
+        return longUrl;
+    }
+
+    /**
+     * 批量解析：本地缓存/快照 -> 一次 Redis MGET -> 一次数据库 IN 查询，并批量回填缓存
+     * 批量解析不是点击，不计入热点统计
+     *
+     * @return 短链 -> 长链接，按请求顺序，不存在的短链值为 null
+     */
+    public Map<String, String> resolveBatch(Collection<String> shortUrls) {
+        Map<String, String> result = new LinkedHashMap<>();
+        List<String> remote = new ArrayList<>();
+        for (String shortUrl : shortUrls) {
+            if (null == shortUrl || result.containsKey(shortUrl)) {
+                continue;
+            }
+            String longUrl = lookupLocal(shortUrl);
+            result.put(shortUrl, longUrl);
+            if (null == longUrl && !knownMissing(shortUrl)) {
+                remote.add(shortUrl);
+            }
+        }
+        if (remote.isEmpty()) {
+            return result;
+        }
+        // 一次往返批量查询 Redis
+        List<Object> cached = this.redisTemplate.opsForValue().multiGet(remote);
+        List<String> misses = new ArrayList<>();
+        for (int i = 0; i < remote.size(); i++) {
+            String shortUrl = remote.get(i);
+            Object longUrl = cached == null ? null : cached.get(i);
+            if (null != longUrl) {
+                result.put(shortUrl, (String) longUrl);
+                this.redirectLocalCache.put(shortUrl, (String) longUrl);
+            } else if (this.existenceFilter.mightContain(shortUrl)) {
+                misses.add(shortUrl);
+            } else {
+                // 过滤器判定一定不存在时不查数据库，写入负缓存
+                this.negativeLookupCache.put(shortUrl);
+            }
+        }
+        if (misses.isEmpty()) {
+            return result;
+        }
+        // 未命中的短链合并为一次 IN 查询
+        LocalDateTime now = LocalDateTime.now();
+        Map<String, UrlMapping> loaded = new LinkedHashMap<>();
+        for (UrlMapping urlMapping : this.urlMappingRepository.listByShortUrls(misses)) {
+            if (null == urlMapping.getExpireTime() || urlMapping.getExpireTime().isAfter(now)) {
+                loaded.put(urlMapping.getShortUrl(), urlMapping);
+            }
+        }
+        for (String shortUrl : misses) {
+            UrlMapping urlMapping = loaded.get(shortUrl);
+            if (null == urlMapping) {
+                this.existenceFilter.recordFalsePositive();
+                this.negativeLookupCache.put(shortUrl);
+            } else {
+                result.put(shortUrl, urlMapping.getLongUrl());
+                this.redirectLocalCache.put(shortUrl, urlMapping.getLongUrl());
+            }
+        }
+        cacheBatch(loaded.values(), now);
+        return result;
+    }
+
+    /**
+     * 预热：批量写入 Redis 与本地缓存
+     */
+    public void preload(Collection<UrlMapping> urlMappings) {
+        for (UrlMapping urlMapping : urlMappings) {
+            this.redirectLocalCache.put(urlMapping.getShortUrl(), urlMapping.getLongUrl());
+        }
+        cacheBatch(urlMappings, LocalDateTime.now());
+    }
+
+    /**
+     * 流水线批量回填 Redis，缓存时间不超过短链剩余有效期
+     */
+    private void cacheBatch(Collection<UrlMapping> urlMappings, LocalDateTime now) {
+        if (urlMappings.isEmpty()) {
+            return;
+        }
+        try {
+            this.redisTemplate.executePipelined(new SessionCallback<Object>() {
+                @Override
+                @SuppressWarnings("unchecked")
+                public <K, V> Object execute(RedisOperations<K, V> operations) {
+                    RedisOperations<String, Object> ops = (RedisOperations<String, Object>) operations;
+                    for (UrlMapping urlMapping : urlMappings) {
+                        long ttlSeconds = cacheTtlSeconds();
+                        if (null != urlMapping.getExpireTime()) {
+                            ttlSeconds = Math.max(1, Math.min(ttlSeconds, Duration.between(now, urlMapping.getExpireTime()).getSeconds()));
+                        }
+                        ops.opsForValue().set(urlMapping.getShortUrl(), urlMapping.getLongUrl(), ttlSeconds, TimeUnit.SECONDS);
+                    }
+                    return null;
+                }
+            });
+        } catch (Exception e) {
+            log.warn("Failed to repopulate cache for {} short urls", urlMappings.size(), e);
+        }
+    }
+
+    /**
+     * 预刷新：命中时剩余 TTL 已进入末尾区间，立即返回旧值并异步刷新
+     * 请求先经过本地缓存，每个节点对同一短链的 Redis 访问频率有限，刷新次数也随之有限
+     *
+     * @param pttl 剩余 TTL（毫秒），-1 表示永不过期，-2 表示不存在
+     */
+    private void refreshAheadIfNeeded(String shortUrl, Long pttl) {
+        if (pttl == null || pttl < 0) {
+            return;
+        }
+        long threshold = (long) (TimeUnit.HOURS.toMillis(TIMEOUT) * refreshRatio);
+        if (pttl > threshold || !this.refreshing.add(shortUrl)) {
+            return;
+        }
+        this.refreshCounter.increment();
+        try {
+            this.cacheRefreshExecutor.execute(() -> {
+                long start = System.nanoTime();
+                try {
+                    String longUrl = this.redirectLoader.execute(shortUrl, () -> loadAndCache(shortUrl));
+                    if (null == longUrl) {
+                        // 数据库中已不存在或已过期，清理残留缓存
+                        this.redisTemplate.delete(shortUrl);
+                        this.redirectLocalCache.invalidate(shortUrl);
+                        this.hotKeyDetector.unpin(shortUrl);
+                    }
+                } catch (Exception e) {
+                    log.warn("Failed to refresh cache for shortUrl: {}", shortUrl, e);
+                } finally {
+                    this.refreshing.remove(shortUrl);
+                    this.refreshTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+                }
+            });
+        } catch (TaskRejectedException e) {
+            this.refreshing.remove(shortUrl);
+            this.refreshRejectedCounter.increment();
+        }
+    }
+
+    /**
+     * 查询数据库并回填 Redis
+     * 缓存时间不超过短链剩余有效期，已过期的记录视为不存在
+     */
+    private String loadAndCache(String shortUrl) {
+        UrlMapping urlMapping = this.urlMappingRepository.getByShortUrl(shortUrl);
+        String longUrl = urlMapping.getLongUrl();
+        if (null == longUrl) {
+            return null;
+        }
+        long ttlSeconds = cacheTtlSeconds();
+        if (null != urlMapping.getExpireTime()) {
+            long remainSeconds = Duration.between(LocalDateTime.now(), urlMapping.getExpireTime()).getSeconds();
+            if (remainSeconds <= 0) {
+                // 已过期，等待定时任务清理
+                return null;
+            }
+            ttlSeconds = Math.min(ttlSeconds, remainSeconds);
+        }
+        try {
+            //数据库有此短链接，添加缓存
+            this.redisTemplate.opsForValue().set(shortUrl, longUrl, ttlSeconds, TimeUnit.SECONDS);
+        } catch (Exception e) {
+            log.warn("Failed to repopulate cache for shortUrl: {}", shortUrl, e);
+        }
+        return longUrl;
+    }
+}
@@ -1,25 +1,229 @@
 package com.zjz.mini.uri.run.domain.service;
 
 
+import com.zjz.mini.uri.framework.common.core.BusinessException;
 import com.zjz.mini.uri.run.domain.entity.UrlMapping;
 import com.zjz.mini.uri.run.domain.repository.UrlMappingRepository;
+import com.zjz.mini.uri.run.infrastructure.persistence.UrlMappingWriteBehind;
 import jakarta.annotation.Resource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.RedisOperations;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.SessionCallback;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
 
 /**
  * 支撑服务
  * @author hkz329
  */
-
+@Slf4j
 public class ShortUrlSupport {
 
+    /**
+     * 批量生成时校验与计算 hash 的并行度
+     */
+    @Value("${miniuri.generate.batch.concurrency:8}")
+    private int batchConcurrency;
+
     @Resource
     private UrlMappingRepository urlMappingRepository;
 
+    @Resource
+    private ShortUrlResolver shortUrlResolver;
+
+    @Resource
+    private RedisTemplate<String, Object> redisTemplate;
+
+    /**
+     * url_mapping 写后队列
+     */
+    @Resource
+    private UrlMappingWriteBehind urlMappingWriteBehind;
+
+    @Resource
+    @Qualifier("cacheTaskExecutor")
+    private Executor cacheTaskExecutor;
+
     public boolean addUrlMapping(UrlMapping urlMapping) {
+        urlMapping.setUrlFingerprint(LongUrlReverseIndex.fingerprint(urlMapping.getLongUrl()).asLong());
         return this.urlMappingRepository.addUrlMapping(urlMapping);
     }
 
+    /**
+     * 异步入库：放入写后队列，由写线程合并批量写入
+     */
+    public void persistAsync(UrlMapping urlMapping) {
+        urlMapping.setUrlFingerprint(LongUrlReverseIndex.fingerprint(urlMapping.getLongUrl()).asLong());
+        this.urlMappingWriteBehind.enqueue(urlMapping);
+    }
+
     public UrlMapping getByShortUrl(String shortUrl) {
         return this.urlMappingRepository.getByShortUrl(shortUrl);
     }
+
+    public List<UrlMapping> listByShortUrls(Collection<String> shortUrls) {
+        return this.urlMappingRepository.listByShortUrls(shortUrls);
+    }
+
+    /**
+     * 新短链生效：加入存在性过滤器并清除负缓存
+     */
+    public void onGenerated(String shortUrl) {
+        this.shortUrlResolver.onGenerated(shortUrl);
+    }
+
+    /**
+     * 带随机抖动的缓存时间（秒）
+     */
+    public long cacheTtlSeconds() {
+        return this.shortUrlResolver.cacheTtlSeconds();
+    }
+
+    /**
+     * 保存已确定唯一的短链：缓存与入库都在后台执行，请求线程只做本地操作
+     * 缓存时间不超过短链有效期
+     *
+     * @param expireTime 过期时间，null 表示永不过期
+     * @param buildType  生成类型
+     */
+    protected void saveAsync(String shortUrl, String originUrl, LocalDateTime expireTime, int buildType) {
+        onGenerated(shortUrl);
+        long ttlSeconds = cacheTtlSeconds();
+        if (null != expireTime) {
+            ttlSeconds = Math.max(1, Math.min(ttlSeconds, Duration.between(LocalDateTime.now(), expireTime).getSeconds()));
+        }
+        final long finalTtlSeconds = ttlSeconds;
+        this.cacheTaskExecutor.execute(() -> {
+            try {
+                this.redisTemplate.opsForValue().set(shortUrl, originUrl, finalTtlSeconds, TimeUnit.SECONDS);
+            } catch (Exception e) {
+                log.warn("Failed to set cache for shortUrl: {}", shortUrl, e);
+            }
+        });
+        persistAsync(new UrlMapping()
+                .setShortUrl(shortUrl)
+                .setLongUrl(originUrl)
+                .setBuildType(buildType)
+                .setExpireTime(expireTime));
+    }
+
+    /**
+     * 批量占用结果
+     *
+     * @param created  新占用的短链，长链接 -> 短链，需要入库
+     * @param existing 已存在且指向同一长链接的短链，长链接 -> 短链，无需入库
+     */
+    public record BatchClaim(Map<String, String> created, Map<String, String> existing) {
+    }
+
+    /**
+     * 按 batchConcurrency 分片并行计算，结果保持输入顺序
+     * 抛出 BusinessException（如 url 格式错误）或返回 null 的元素不出现在结果中
+     *
+     * @return 输入 -> 结果
+     */
+    protected Map<String, String> mapParallel(List<String> inputs, Function<String, String> mapper) {
+        int slices = Math.max(1, Math.min(batchConcurrency, inputs.size()));
+        int sliceSize = (inputs.size() + slices - 1) / slices;
+        List<CompletableFuture<Map<String, String>>> futures = new ArrayList<>(slices);
+        for (int from = 0; from < inputs.size(); from += sliceSize) {
+            List<String> slice = inputs.subList(from, Math.min(inputs.size(), from + sliceSize));
+            futures.add(CompletableFuture.supplyAsync(() -> {
+                Map<String, String> mapped = new LinkedHashMap<>();
+                for (String input : slice) {
+                    try {
+                        String output = mapper.apply(input);
+                        if (null != output) {
+                            mapped.put(input, output);
+                        }
+                    } catch (BusinessException e) {
+                        log.debug("skip invalid batch item: {}, reason: {}", input, e.getMessage());
+                    }
+                }
+                return mapped;
+            }, this.cacheTaskExecutor));
+        }
+        Map<String, String> result = new LinkedHashMap<>();
+        for (CompletableFuture<Map<String, String>> future : futures) {
+            result.putAll(future.join());
+        }
+        return result;
+    }
+
+    /**
+     * 流水线批量写入缓存，缓存时间不超过短链有效期
+     *
+     * @param mappings 长链接 -> 短链
+     */
+    protected void cacheBatch(Map<String, String> mappings, LocalDateTime expireTime) {
+        if (mappings.isEmpty()) {
+            return;
+        }
+        long ttlSeconds = batchTtlSeconds(expireTime);
+        this.redisTemplate.executePipelined(new SessionCallback<Object>() {
+            @Override
+            @SuppressWarnings("unchecked")
+            public <K, V> Object execute(RedisOperations<K, V> operations) {
+                RedisOperations<String, Object> ops = (RedisOperations<String, Object>) operations;
+                mappings.forEach((longUrl, shortUrl) -> ops.opsForValue().set(shortUrl, longUrl, ttlSeconds, TimeUnit.SECONDS));
+                return null;
+            }
+        });
+    }
+
+    /**
+     * 占用短链的时间（秒）：短链剩余有效期，与单条生成一致。
+     * 占用键同时是 hash 冲突检测的依据，只用缓存时间会在缓存过期后被其他长链接重新占用
+     */
+    protected long claimTtlSeconds(LocalDateTime expireTime) {
+        if (null == expireTime) {
+            return cacheTtlSeconds();
+        }
+        return Math.max(1, Duration.between(LocalDateTime.now(), expireTime).getSeconds());
+    }
+
+    /**
+     * 批量缓存时间（秒），不超过短链有效期，只用于普通的缓存填充
+     */
+    protected long batchTtlSeconds(LocalDateTime expireTime) {
+        long ttlSeconds = cacheTtlSeconds();
+        if (null != expireTime) {
+            ttlSeconds = Math.max(1, Math.min(ttlSeconds, Duration.between(LocalDateTime.now(), expireTime).getSeconds()));
+        }
+        return ttlSeconds;
+    }
+
+    /**
+     * 批量入库：全部放入写后队列，由写线程按批合并为多行 insert ignore
+     *
+     * @param created   长链接 -> 短链
+     * @param buildType 生成类型
+     */
+    protected void saveBatchAsync(Map<String, String> created, LocalDateTime expireTime, int buildType) {
+        created.forEach((longUrl, shortUrl) -> {
+            onGenerated(shortUrl);
+            persistAsync(new UrlMapping()
+                    .setShortUrl(shortUrl)
+                    .setLongUrl(longUrl)
+                    .setBuildType(buildType)
+                    .setExpireTime(expireTime));
+        });
+    }
+
+    protected ShortUrlResolver getShortUrlResolver() {
+        return this.shortUrlResolver;
+    }
 }
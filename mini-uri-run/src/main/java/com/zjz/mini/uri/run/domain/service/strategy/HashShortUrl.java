@@ -1,24 +1,33 @@
 package com.zjz.mini.uri.run.domain.service.strategy;
 
-import cn.hutool.bloomfilter.BitMapBloomFilter;
-import cn.hutool.bloomfilter.BloomFilterUtil;
 import cn.hutool.core.codec.Base62;
 import cn.hutool.core.util.HashUtil;
 import com.zjz.mini.uri.framework.common.core.BusinessException;
+import com.zjz.mini.uri.framework.common.util.Base62Codec;
+import com.zjz.mini.uri.framework.common.util.Murmur3;
 import com.zjz.mini.uri.framework.common.util.UrlUtils;
 import com.zjz.mini.uri.run.domain.entity.UrlMapping;
 import com.zjz.mini.uri.run.domain.service.ShortUrlBase;
+import com.zjz.mini.uri.run.infrastructure.cache.RedisBloomFilter;
 import jakarta.annotation.Resource;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.RedisOperations;
 import org.springframework.data.redis.core.RedisTemplate;
-import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.data.redis.core.SessionCallback;
 import java.util.concurrent.Executor;
 import org.springframework.stereotype.Service;
 
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
 import java.util.concurrent.TimeUnit;
 
 
@@ -33,21 +42,34 @@ public class HashShortUrl extends ShortUrlBase {
 
     //自定义长链接防重复字符串
     private static final String DUPLICATE = "$";
-    @Value("${miniuri.cache.timeout}")
-    private Long TIMEOUT;
-    //创建布隆过滤器
-    private static final BitMapBloomFilter FILTER = BloomFilterUtil.createBitMap(10);
-    @Resource
-    private RedisTemplate<String, Object> redisTemplate;
 
-    // 混合执行器配置：根据操作类型选择合适的线程模型
-    
     /**
-     * 数据库操作专用线程池（有界，防止连接池耗尽）
+     * 定长编码的短链长度，不能为 9（号段与号池的短链长度）
+     */
+    static final int CODE_WIDTH = 8;
+
+    /**
+     * 62^8，定长编码的取值空间
+     */
+    private static final long CODE_SPACE = Base62Codec.pow(CODE_WIDTH);
+
+    /**
+     * 编码方式：fixed 为 64 位 murmur3 取模后定长 base62；legacy 为原 murmur32 + 十进制串 base62
+     * 短链按查表解析，切换编码方式不影响已生成短链的访问
      */
+    @Value("${miniuri.generate.hash.codec:fixed}")
+    private String codec;
+
+    /**
+     * 所有节点共享的布隆过滤器，重启不丢失
+     */
+    @Resource
+    private RedisBloomFilter bloomFilter;
+
     @Resource
-    @Qualifier("databaseTaskExecutor")
-    private ThreadPoolTaskExecutor databaseTaskExecutor;
+    private RedisTemplate<String, Object> redisTemplate;
+
+    // 混合执行器配置：根据操作类型选择合适的线程模型
     
     /**
      * 缓存操作专用虚拟线程（无界，适合快速I/O）
@@ -56,14 +78,6 @@ public class HashShortUrl extends ShortUrlBase {
     @Qualifier("cacheTaskExecutor")
     private Executor cacheTaskExecutor;
 
-    /**
-     * 获取数据库操作执行器
-     * 数据库操作必须使用有界线程池，防止连接池耗尽
-     */
-    private Executor getDatabaseExecutor() {
-        return databaseTaskExecutor;
-    }
-    
     /**
      * 获取缓存操作执行器
      * 缓存操作使用虚拟线程，响应快，无资源限制
@@ -72,6 +86,11 @@ public class HashShortUrl extends ShortUrlBase {
         return cacheTaskExecutor;
     }
 
+    @Override
+    protected int buildType() {
+        return 0;
+    }
+
     @Override
     protected void checkUrl(String url) {
         if (!UrlUtils.checkURL(url)) {
@@ -81,15 +100,25 @@ public class HashShortUrl extends ShortUrlBase {
 
     @Override
     protected long toHash(String url) {
-        int i = HashUtil.murmur32(url.getBytes());
-        long num = i < 0 ? Integer.MAX_VALUE - (long) i : i;
-        return num;
+        if (isLegacy()) {
+            int i = HashUtil.murmur32(url.getBytes());
+            long num = i < 0 ? Integer.MAX_VALUE - (long) i : i;
+            return num;
+        }
+        return Murmur3.hash64(url);
     }
 
     @Override
     protected String toEncode(long hash) {
-        String encode = Base62.encode(String.valueOf(hash));
-        return encode;
+        if (isLegacy()) {
+            String encode = Base62.encode(String.valueOf(hash));
+            return encode;
+        }
+        return Base62Codec.encode(Long.remainderUnsigned(hash, CODE_SPACE), CODE_WIDTH);
+    }
+
+    private boolean isLegacy() {
+        return "legacy".equalsIgnoreCase(codec);
     }
 
     /**
@@ -117,13 +146,13 @@ public class HashShortUrl extends ShortUrlBase {
                 continue;
             }
 
-            if (FILTER.contains(currentShortUrl)) { // 防止 hash 冲突
+            if (bloomFilter.mightContain(currentShortUrl)) { // 防止 hash 冲突
                 // 此种情况布隆过滤器存在误判，即布隆过滤器中可能存在也可能不存在该key
                 // 布隆过滤器中存在，查redis 缓存
                 String redisLongUrl = this.redisTemplate.opsForValue().get(currentShortUrl) + "";
                 if (originUrl.equals(redisLongUrl)) {
                     // 重置缓存过期时间
-                    this.redisTemplate.expire(currentShortUrl, TIMEOUT, TimeUnit.HOURS);
+                    this.redisTemplate.expire(currentShortUrl, cacheTtlSeconds(), TimeUnit.SECONDS);
                     return currentShortUrl;
                 }
                 // 没有缓存,重新hash
@@ -147,36 +176,9 @@ public class HashShortUrl extends ShortUrlBase {
                 // 布隆过滤器不包含的一定不存在
                 // 存数据库
                 final String finalShortUrl = currentShortUrl;
-                // 混合执行模式：数据库用传统线程池，缓存用虚拟线程
-                this.getDatabaseExecutor().execute(() -> {
-                    try {
-                        // 数据库操作：使用传统线程池
-                        UrlMapping urlMapping = new UrlMapping().setShortUrl(finalShortUrl).setLongUrl(originUrl).setBuildType(0);
-                        FILTER.add(finalShortUrl);
-                        super.addUrlMapping(urlMapping);
-                        
-                        // 缓存操作：使用虚拟线程异步执行
-                        this.getCacheExecutor().execute(() -> {
-                            try {
-                                this.redisTemplate.opsForValue().set(finalShortUrl, originUrl, TIMEOUT, TimeUnit.HOURS);
-                                log.debug("Cache set successfully for shortUrl: {}", finalShortUrl);
-                            } catch (Exception cacheEx) {
-                                log.warn("Failed to set cache for shortUrl: {}, but database operation succeeded", finalShortUrl, cacheEx);
-                            }
-                        });
-                        
-                    } catch (Exception e) {
-                        log.error("Failed to process URL mapping for shortUrl: {}", finalShortUrl, e);
-                        // 数据库失败时，异步清理缓存
-                        this.getCacheExecutor().execute(() -> {
-                            try {
-                                this.redisTemplate.delete(finalShortUrl);
-                            } catch (Exception cacheEx) {
-                                log.warn("Failed to clean cache for shortUrl: {}", finalShortUrl, cacheEx);
-                            }
-                        });
-                    }
-                });
+                this.getCacheExecutor().execute(() -> bloomFilter.add(finalShortUrl));
+                // 缓存在虚拟线程上写入，入库进入写后队列
+                saveAsync(finalShortUrl, originUrl, null, 0);
                 return currentShortUrl;
             }
         }
@@ -186,20 +188,11 @@ public class HashShortUrl extends ShortUrlBase {
         currentShortUrl = toEncode(toHash(originUrl + timestampSuffix));
 
         // 最后一次尝试
-        if (!FILTER.contains(currentShortUrl)) {
+        if (!bloomFilter.mightContain(currentShortUrl)) {
             final String finalShortUrl = currentShortUrl;
-            this.getDatabaseExecutor().execute(() -> {
-                try {
-                    log.info("doProcess final attempt execute, shortUrl:{}", finalShortUrl);
-                    UrlMapping urlMapping = new UrlMapping().setShortUrl(finalShortUrl).setLongUrl(originUrl).setBuildType(0);
-                    FILTER.add(finalShortUrl);
-                    this.redisTemplate.opsForValue().set(finalShortUrl, originUrl, TIMEOUT, TimeUnit.HOURS);
-                    super.addUrlMapping(urlMapping);
-                } catch (Exception e) {
-                    log.error("Failed to process URL mapping in final attempt for shortUrl: {}", finalShortUrl, e);
-                    this.redisTemplate.delete(finalShortUrl);
-                }
-            });
+            log.info("doProcess final attempt, shortUrl:{}", finalShortUrl);
+            this.getCacheExecutor().execute(() -> bloomFilter.add(finalShortUrl));
+            saveAsync(finalShortUrl, originUrl, null, 0);
             return currentShortUrl;
         } else {
             log.error("Failed to generate unique short URL after maximum retries for: {}", originUrl);
@@ -207,22 +200,6 @@ public class HashShortUrl extends ShortUrlBase {
         }
     }
 
-    @Override
-    protected String redirectToLong(String shortUrl) {
-        // 查缓存
-        String longUrl = (String) this.redisTemplate.opsForValue().get(shortUrl);
-        if (null != longUrl) {
-            return longUrl;
-        }
-        UrlMapping urlMapping = super.getByShortUrl(shortUrl);
-        longUrl = urlMapping.getLongUrl();
-        if (null != urlMapping.getLongUrl()) {
-            //数据库有此短链接，添加缓存
-//            this.redisTemplate.opsForValue().set(shortUrl, longUrl, TIMEOUT, TimeUnit.HOURS);
-        }
-        return longUrl;
-    }
-
     /**
      * 带有过期时间的暂时这样
      * @param url
@@ -260,21 +237,14 @@ public class HashShortUrl extends ShortUrlBase {
             if (Boolean.TRUE.equals(success)) {
                 // 成功设置缓存，说明是第一次创建，异步入库
                 final String finalShortUrl = currentShortUrl;
-                this.getDatabaseExecutor().execute(() -> {
-                    log.info("doProcess start execute, shortUrl:{}", finalShortUrl);
-                    UrlMapping urlMapping = new UrlMapping()
-                            .setShortUrl(finalShortUrl)
-                            .setLongUrl(originUrl)
-                            .setBuildType(0)
-                            .setExpireTime(LocalDateTime.now().plusDays(expireTime));
-                    try {
-                        super.addUrlMapping(urlMapping);
-                    } catch (Exception e) {
-                        // 如果数据库写入失败，应删除缓存以保证数据一致性，允许重试
-                        log.error("Failed to add URL mapping to DB, removing from Redis. shortUrl: {}", finalShortUrl, e);
-                        this.redisTemplate.delete(finalShortUrl);
-                    }
-                });
+                onGenerated(finalShortUrl);
+                this.getCacheExecutor().execute(() -> bloomFilter.add(finalShortUrl));
+                // 异步入库：进入写后队列，写入失败时由队列清除缓存
+                persistAsync(new UrlMapping()
+                        .setShortUrl(finalShortUrl)
+                        .setLongUrl(originUrl)
+                        .setBuildType(0)
+                        .setExpireTime(LocalDateTime.now().plusDays(expireTime)));
                 return currentShortUrl;
             } else {
                 // 缓存中已存在该 shortUrl，说明发生了哈希冲突，需要重新生成
@@ -305,24 +275,120 @@ public class HashShortUrl extends ShortUrlBase {
         Boolean finalSuccess = this.redisTemplate.opsForValue().setIfAbsent(currentShortUrl, originUrl, expireTime, TimeUnit.DAYS);
         if (Boolean.TRUE.equals(finalSuccess)) {
             final String finalShortUrl = currentShortUrl;
-            this.getDatabaseExecutor().execute(() -> {
-                log.info("doProcess final attempt execute, shortUrl:{}", finalShortUrl);
-                UrlMapping urlMapping = new UrlMapping()
-                        .setShortUrl(finalShortUrl)
-                        .setLongUrl(originUrl)
-                        .setBuildType(0)
-                        .setExpireTime(LocalDateTime.now().plusDays(expireTime));
-                try {
-                    super.addUrlMapping(urlMapping);
-                } catch (Exception e) {
-                    log.error("Failed to add URL mapping to DB in final attempt, removing from Redis. shortUrl: {}", finalShortUrl, e);
-                    this.redisTemplate.delete(finalShortUrl);
-                }
-            });
+            onGenerated(finalShortUrl);
+            this.getCacheExecutor().execute(() -> bloomFilter.add(finalShortUrl));
+            persistAsync(new UrlMapping()
+                    .setShortUrl(finalShortUrl)
+                    .setLongUrl(originUrl)
+                    .setBuildType(0)
+                    .setExpireTime(LocalDateTime.now().plusDays(expireTime)));
             return currentShortUrl;
         } else {
             log.error("Failed to generate unique short URL after maximum retries for: {}", originUrl);
             throw new BusinessException("生成短链接失败，请稍后重试");
         }
     }
+
+    /**
+     * 批量占用：每轮先用布隆过滤器一次流水线判断，可能存在的短链一次 IN 查询确认，
+     * 其余短链一次流水线 SET NX EX 占用（过期时间为短链剩余有效期）；冲突的长链接重新 hash 进入下一轮
+     *
+     * @param candidates 长链接 -> 候选短链
+     * @param expireTime 过期时间
+     * @return
+     */
+    @Override
+    protected BatchClaim claimBatch(Map<String, String> candidates, LocalDateTime expireTime) {
+        final int MAX_ROUND = 10;
+        // 与单条生成一样按剩余有效期占用，占用键在短链有效期内一直作为冲突检测依据
+        long ttlSeconds = claimTtlSeconds(expireTime);
+        Map<String, String> created = new LinkedHashMap<>();
+        Map<String, String> existing = new LinkedHashMap<>();
+        Map<String, String> pending = new LinkedHashMap<>(candidates);
+        for (int round = 1; round <= MAX_ROUND && !pending.isEmpty(); round++) {
+            List<String> retry = new ArrayList<>();
+            // 长度为 1 的短链直接重新生成
+            for (Iterator<Map.Entry<String, String>> it = pending.entrySet().iterator(); it.hasNext(); ) {
+                Map.Entry<String, String> entry = it.next();
+                if (entry.getValue().length() == 1) {
+                    it.remove();
+                    retry.add(entry.getKey());
+                }
+            }
+
+            // 布隆过滤器判定可能存在的短链，查库确认
+            List<Map.Entry<String, String>> entries = new ArrayList<>(pending.entrySet());
+            boolean[] maybe = bloomFilter.mightContainAll(entries.stream().map(Map.Entry::getValue).toList());
+            List<String> suspects = new ArrayList<>();
+            for (int i = 0; i < maybe.length; i++) {
+                if (maybe[i]) {
+                    suspects.add(entries.get(i).getValue());
+                }
+            }
+            if (!suspects.isEmpty()) {
+                Map<String, UrlMapping> rows = new HashMap<>();
+                for (UrlMapping row : listByShortUrls(suspects)) {
+                    rows.put(row.getShortUrl(), row);
+                }
+                LocalDateTime now = LocalDateTime.now();
+                for (Iterator<Map.Entry<String, String>> it = pending.entrySet().iterator(); it.hasNext(); ) {
+                    Map.Entry<String, String> entry = it.next();
+                    UrlMapping row = rows.get(entry.getValue());
+                    if (null == row) {
+                        continue;
+                    }
+                    it.remove();
+                    boolean active = null == row.getExpireTime() || row.getExpireTime().isAfter(now);
+                    if (active && entry.getKey().equals(row.getLongUrl())) {
+                        existing.put(entry.getKey(), entry.getValue());
+                    } else {
+                        retry.add(entry.getKey());
+                    }
+                }
+            }
+
+            // 流水线 SET NX EX 占用，同批次内相同的候选短链也只有一个能成功
+            List<Map.Entry<String, String>> claiming = new ArrayList<>(pending.entrySet());
+            List<Object> results = this.redisTemplate.executePipelined(new SessionCallback<Object>() {
+                @Override
+                @SuppressWarnings("unchecked")
+                public <K, V> Object execute(RedisOperations<K, V> operations) {
+                    RedisOperations<String, Object> ops = (RedisOperations<String, Object>) operations;
+                    for (Map.Entry<String, String> entry : claiming) {
+                        ops.opsForValue().setIfAbsent(entry.getValue(), entry.getKey(), ttlSeconds, TimeUnit.SECONDS);
+                    }
+                    return null;
+                }
+            });
+            List<Map.Entry<String, String>> lost = new ArrayList<>();
+            for (int i = 0; i < claiming.size(); i++) {
+                if (Boolean.TRUE.equals(results.get(i))) {
+                    created.put(claiming.get(i).getKey(), claiming.get(i).getValue());
+                } else {
+                    lost.add(claiming.get(i));
+                }
+            }
+            if (!lost.isEmpty()) {
+                List<Object> values = this.redisTemplate.opsForValue().multiGet(lost.stream().map(Map.Entry::getValue).toList());
+                for (int i = 0; i < lost.size(); i++) {
+                    Map.Entry<String, String> entry = lost.get(i);
+                    if (null != values && entry.getKey().equals(values.get(i))) {
+                        existing.put(entry.getKey(), entry.getValue());
+                    } else {
+                        retry.add(entry.getKey());
+                    }
+                }
+            }
+
+            pending = new LinkedHashMap<>();
+            for (String longUrl : retry) {
+                pending.put(longUrl, toEncode(toHash(longUrl + DUPLICATE + round + ThreadLocalRandom.current().nextInt())));
+            }
+        }
+        if (!pending.isEmpty()) {
+            log.warn("Failed to claim unique short URLs for {} urls after maximum retries", pending.size());
+        }
+        this.bloomFilter.addAll(created.values());
+        return new BatchClaim(created, existing);
+    }
 }
@@ -0,0 +1,155 @@
+package com.zjz.mini.uri.run.domain.service.strategy;
+
+import com.zjz.mini.uri.framework.common.core.BusinessException;
+import com.zjz.mini.uri.framework.common.util.Base62Codec;
+import com.zjz.mini.uri.framework.common.util.UrlUtils;
+import com.zjz.mini.uri.run.domain.repository.IdSegmentRepository;
+import com.zjz.mini.uri.run.domain.service.ShortUrlBase;
+import com.zjz.mini.uri.run.infrastructure.id.FeistelPermutation;
+import com.zjz.mini.uri.run.infrastructure.id.ShortCodePool;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.Resource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+
+
+/**
+ * 基于预生成短链池
+ * <p>
+ * 后台从 id_segment 租用计数器区间，经 Feistel 置换打散后编码为短链放入本地池，
+ * 生成时只从池中取一个，请求线程上没有 Redis 或数据库访问，突发导入时耗时平稳。
+ * 短链固定 9 位且以 z 开头：hash 短链不会是 9 位，号段短链要用完 60 * 62^8 个 id 才会出现 z 开头，三种策略互不冲突。
+ *
+ * @author hkz329
+ */
+@Service
+@Slf4j
+public class PoolShortUrl extends ShortUrlBase {
+
+    private static final String BIZ_TAG = "short_url_pool";
+
+    private static final char PREFIX = 'z';
+
+    private static final int CODE_LENGTH = 8;
+
+    /**
+     * 62^8，置换值域
+     */
+    private static final long DOMAIN = 218_340_105_584_896L;
+
+    @Value("${miniuri.generate.strategy:hash}")
+    private String strategy;
+
+    @Value("${miniuri.generate.pool.capacity:10000}")
+    private int capacity;
+
+    @Value("${miniuri.generate.pool.low-watermark:2000}")
+    private int lowWatermark;
+
+    @Value("${miniuri.generate.pool.batch-size:1000}")
+    private int batchSize;
+
+    @Value("${miniuri.generate.pool.secret:20240601}")
+    private long secret;
+
+    @Resource
+    private IdSegmentRepository idSegmentRepository;
+
+    @Resource
+    private MeterRegistry meterRegistry;
+
+    /**
+     * 短链池补充
+     */
+    @Resource
+    @Qualifier("ioTaskExecutor")
+    private Executor ioTaskExecutor;
+
+    private FeistelPermutation permutation;
+
+    private ShortCodePool pool;
+
+    @PostConstruct
+    public void init() {
+        this.permutation = new FeistelPermutation(DOMAIN, secret);
+        this.pool = new ShortCodePool("short_url", capacity, lowWatermark, this::mint, ioTaskExecutor, meterRegistry);
+    }
+
+    /**
+     * 启用该策略时启动即填充，未启用时不访问 id_segment
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void onReady() {
+        if ("pool".equals(strategy)) {
+            this.pool.refillAsync();
+        }
+    }
+
+    @Override
+    protected int buildType() {
+        return 2;
+    }
+
+    @Override
+    protected void checkUrl(String url) {
+        if (!UrlUtils.checkURL(url)) {
+            throw new BusinessException("url 格式错误");
+        }
+    }
+
+    /**
+     * 号池策略与 url 内容无关
+     */
+    @Override
+    protected long toHash(String url) {
+        return 0;
+    }
+
+    @Override
+    protected String toEncode(long hash) {
+        return this.pool.take();
+    }
+
+    @Override
+    protected String doProcess(String shortUrl, String longUrl, String originUrl) {
+        saveAsync(shortUrl, originUrl, null, 2);
+        return shortUrl;
+    }
+
+    @Override
+    public String generateShortUrl(String url, Integer expireTime) {
+        this.checkUrl(url);
+        String shortUrl = this.pool.take();
+        saveAsync(shortUrl, url, LocalDateTime.now().plusDays(expireTime), 2);
+        return shortUrl;
+    }
+
+    /**
+     * 租用一段计数器并铸造一批短链
+     */
+    private List<String> mint() {
+        long max = this.idSegmentRepository.leaseSegment(BIZ_TAG, batchSize, 0);
+        List<String> codes = new ArrayList<>(batchSize);
+        for (long id = max - batchSize + 1; id <= max; id++) {
+            codes.add(encode(this.permutation.permute(id - 1)));
+        }
+        return codes;
+    }
+
+    private static String encode(long value) {
+        char[] buf = new char[CODE_LENGTH + 1];
+        buf[0] = PREFIX;
+        Base62Codec.encode(value, buf, 1, CODE_LENGTH);
+        return new String(buf);
+    }
+}
@@ -0,0 +1,111 @@
+package com.zjz.mini.uri.run.domain.service.strategy;
+
+import com.zjz.mini.uri.framework.common.core.BusinessException;
+import com.zjz.mini.uri.framework.common.util.Base62Codec;
+import com.zjz.mini.uri.framework.common.util.UrlUtils;
+import com.zjz.mini.uri.run.domain.repository.IdSegmentRepository;
+import com.zjz.mini.uri.run.domain.service.ShortUrlBase;
+import com.zjz.mini.uri.run.infrastructure.id.SegmentIdAllocator;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.Resource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.Executor;
+
+
+/**
+ * 基于号段 id
+ * <p>
+ * id 由 {@link SegmentIdAllocator} 从 id_segment 表按号段租用，本地递增后 base62 编码。
+ * id 全局唯一，生成时无需冲突检测，也不在请求线程上访问 Redis 或数据库。
+ * id 从 62^8 开始，短链固定 9 位；hash 短链的长度不会是 9 位，两种策略可以共存。
+ *
+ * @author hkz329
+ */
+@Service
+@Slf4j
+public class SegmentShortUrl extends ShortUrlBase {
+
+    private static final String BIZ_TAG = "short_url";
+
+    /**
+     * 62^8，编码为 9 位的最小 id
+     */
+    static final long MIN_ID = 218_340_105_584_896L;
+
+    @Value("${miniuri.generate.segment.step:1000}")
+    private int step;
+
+    @Value("${miniuri.generate.segment.preload-ratio:0.1}")
+    private double preloadRatio;
+
+    @Resource
+    private IdSegmentRepository idSegmentRepository;
+
+    @Resource
+    private MeterRegistry meterRegistry;
+
+    /**
+     * 号段预取
+     */
+    @Resource
+    @Qualifier("ioTaskExecutor")
+    private Executor ioTaskExecutor;
+
+    private SegmentIdAllocator allocator;
+
+    @PostConstruct
+    public void init() {
+        // 首次生成时才租用号段，未启用该策略时不访问 id_segment
+        this.allocator = new SegmentIdAllocator(BIZ_TAG, step, preloadRatio,
+                s -> this.idSegmentRepository.leaseSegment(BIZ_TAG, s, MIN_ID - 1), ioTaskExecutor);
+        Gauge.builder("miniuri.generate.segment.remaining", allocator, SegmentIdAllocator::remaining)
+                .description("当前号段剩余可分配 id 数量")
+                .register(meterRegistry);
+    }
+
+    @Override
+    protected int buildType() {
+        return 1;
+    }
+
+    @Override
+    protected void checkUrl(String url) {
+        if (!UrlUtils.checkURL(url)) {
+            throw new BusinessException("url 格式错误");
+        }
+    }
+
+    /**
+     * 号段策略与 url 内容无关，直接分配下一个 id
+     */
+    @Override
+    protected long toHash(String url) {
+        return this.allocator.nextId();
+    }
+
+    @Override
+    protected String toEncode(long id) {
+        return Base62Codec.encode(id);
+    }
+
+    @Override
+    protected String doProcess(String shortUrl, String longUrl, String originUrl) {
+        saveAsync(shortUrl, originUrl, null, 1);
+        return shortUrl;
+    }
+
+    @Override
+    public String generateShortUrl(String url, Integer expireTime) {
+        this.checkUrl(url);
+        String shortUrl = this.toEncode(this.toHash(url));
+        saveAsync(shortUrl, url, LocalDateTime.now().plusDays(expireTime), 1);
+        return shortUrl;
+    }
+}
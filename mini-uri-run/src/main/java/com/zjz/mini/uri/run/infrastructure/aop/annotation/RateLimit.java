@@ -0,0 +1,37 @@
+package com.zjz.mini.uri.run.infrastructure.aop.annotation;
+
+import java.lang.annotation.*;
+
+/**
+ * 按客户端 IP 限流
+ * <p>
+ * 限额优先取配置 miniuri.rate-limit.endpoints.{value}.*，未配置时取注解属性，再取全局默认值。
+ * 同名接口共享同一个限流器（如跳转快速通道与 MVC 跳转接口均为 redirect）。
+ *
+ * @author hkz329
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.METHOD)
+@Documented
+public @interface RateLimit {
+
+    /**
+     * 接口名，对应配置项
+     */
+    String value();
+
+    /**
+     * 每个 IP 每秒补充的令牌数，小于等于 0 表示使用配置
+     */
+    double permitsPerSecond() default -1;
+
+    /**
+     * 每个 IP 的桶容量（允许的突发请求数），小于等于 0 表示使用配置
+     */
+    int burst() default -1;
+
+    /**
+     * 所有节点合计每秒允许的请求数，小于 0 表示使用配置，0 表示不限制
+     */
+    long globalPermitsPerSecond() default -1;
+}
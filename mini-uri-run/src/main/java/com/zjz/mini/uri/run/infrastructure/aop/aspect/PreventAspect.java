@@ -1,23 +1,42 @@
 package com.zjz.mini.uri.run.infrastructure.aop.aspect;
 
-import cn.hutool.extra.spring.SpringUtil;
-import com.zjz.mini.uri.framework.common.util.JoinPointUtils;
 import com.zjz.mini.uri.run.infrastructure.aop.annotation.Prevent;
 import com.zjz.mini.uri.run.infrastructure.aop.handler.PreventHandler;
+import jakarta.annotation.Resource;
 import lombok.extern.slf4j.Slf4j;
 import org.aspectj.lang.JoinPoint;
 import org.aspectj.lang.annotation.Aspect;
 import org.aspectj.lang.annotation.Before;
 import org.aspectj.lang.annotation.Pointcut;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.context.ApplicationContext;
+import org.springframework.core.MethodIntrospector;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.core.annotation.AnnotationUtils;
 import org.springframework.stereotype.Component;
+import org.springframework.util.ClassUtils;
 
 import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 
+/**
+ * 接口防刷切面
+ * <p>
+ * 启动时扫描所有 @Prevent 方法，缓存注解、方法全名与处理策略 bean，
+ * 请求时只按 Method 查表，不再反射查找方法与注解。
+ */
 @Aspect
 @Component
 @Slf4j
-public class PreventAspect {
+public class PreventAspect implements SmartInitializingSingleton {
+
+    @Resource
+    private ApplicationContext applicationContext;
+
+    private final Map<Method, PreventMeta> metas = new ConcurrentHashMap<>();
 
     @Pointcut("@annotation(com.zjz.mini.uri.run.infrastructure.aop.annotation.Prevent)")
     public void pointcut() {
@@ -25,22 +44,53 @@ public class PreventAspect {
 
     @Before("pointcut()")
     public void doAdvice(JoinPoint jp) throws Throwable {
-        Method method = JoinPointUtils.getMethod(jp);
-        Prevent annotation = method.getAnnotation(Prevent.class);
-        // 方法全名
-        String methodFullName = method.getDeclaringClass().getName() + method.getName();
-        Object[] args = jp.getArgs();
-        // 自定义策略
-        Class<? extends PreventHandler> strategy = annotation.strategy();
-        boolean isPreventHandler;
-        if (PreventHandler.class.equals(strategy)) {
-            throw new RuntimeException("接口防刷无效的处理策略");
-        } else {
-            isPreventHandler = PreventHandler.class.isAssignableFrom(strategy);
+        Method method = ((MethodSignature) jp.getSignature()).getMethod();
+        PreventMeta meta = this.metas.get(method);
+        if (null == meta) {
+            // 启动后才注册的 bean
+            meta = this.metas.computeIfAbsent(method, this::resolve);
+        }
+        meta.handler().handle(meta.prevent(), meta.methodFullName(), jp.getArgs());
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        for (String beanName : this.applicationContext.getBeanDefinitionNames()) {
+            Class<?> type = this.applicationContext.getType(beanName, false);
+            if (null == type || !AnnotationUtils.isCandidateClass(type, Prevent.class)) {
+                continue;
+            }
+            Map<Method, Prevent> annotated;
+            try {
+                annotated = MethodIntrospector.selectMethods(ClassUtils.getUserClass(type),
+                        (MethodIntrospector.MetadataLookup<Prevent>) m -> AnnotatedElementUtils.findMergedAnnotation(m, Prevent.class));
+            } catch (Throwable e) {
+                // 依赖缺失等无法内省的类，与 Spring 的注解方法扫描一致直接跳过
+                log.debug("skip prevent scanning of bean: {}", beanName, e);
+                continue;
+            }
+            annotated.keySet().forEach(m -> this.metas.computeIfAbsent(m, this::resolve));
         }
-        if (isPreventHandler) {
-            PreventHandler handler = SpringUtil.getBean(strategy);
-            handler.handle(annotation, methodFullName, args);
+        log.info("prevent metadata cached, methods:{}", this.metas.size());
+    }
+
+    /**
+     * 解析注解并校验处理策略，无效策略在启动时即失败
+     */
+    private PreventMeta resolve(Method method) {
+        Prevent prevent = AnnotatedElementUtils.findMergedAnnotation(method, Prevent.class);
+        if (null == prevent) {
+            throw new IllegalStateException("方法缺少 @Prevent: " + method);
+        }
+        Class<? extends PreventHandler> strategy = prevent.strategy();
+        if (PreventHandler.class.equals(strategy)) {
+            throw new IllegalStateException("接口防刷无效的处理策略: " + method);
         }
+        // 方法全名
+        String methodFullName = method.getDeclaringClass().getName() + method.getName();
+        return new PreventMeta(prevent, methodFullName, this.applicationContext.getBean(strategy));
+    }
+
+    private record PreventMeta(Prevent prevent, String methodFullName, PreventHandler handler) {
     }
 }
@@ -0,0 +1,48 @@
+package com.zjz.mini.uri.run.infrastructure.aop.aspect;
+
+import com.zjz.mini.uri.run.infrastructure.HttpContextHolder;
+import com.zjz.mini.uri.run.infrastructure.aop.annotation.RateLimit;
+import com.zjz.mini.uri.run.infrastructure.ratelimit.ClientIpResolver;
+import com.zjz.mini.uri.run.infrastructure.ratelimit.RateLimitException;
+import com.zjz.mini.uri.run.infrastructure.ratelimit.RateLimiterRegistry;
+import jakarta.annotation.Resource;
+import jakarta.servlet.ServletRequest;
+import jakarta.servlet.http.HttpServletRequest;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.annotation.Before;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+/**
+ * 接口限流切面，先于防刷切面执行，本地拒绝的请求不再访问 Redis
+ *
+ * @author hkz329
+ */
+@Aspect
+@Component
+@Order(0)
+public class RateLimitAspect {
+
+    /**
+     * 快速通道已计入限流的请求标记，回落到 MVC 时不重复计数
+     */
+    public static final String CHECKED_ATTRIBUTE = RateLimitAspect.class.getName() + ".CHECKED";
+
+    @Resource
+    private RateLimiterRegistry rateLimiterRegistry;
+
+    @Resource
+    private ClientIpResolver clientIpResolver;
+
+    @Before("@annotation(rateLimit)")
+    public void doAdvice(RateLimit rateLimit) {
+        ServletRequest request = HttpContextHolder.getHttpRequest();
+        if (null != request && null != request.getAttribute(CHECKED_ATTRIBUTE)) {
+            return;
+        }
+        String clientIP = request instanceof HttpServletRequest http ? this.clientIpResolver.resolve(http) : null;
+        if (!this.rateLimiterRegistry.tryAcquire(rateLimit.value(), clientIP, rateLimit)) {
+            throw new RateLimitException("请求过于频繁，请稍后再试");
+        }
+    }
+}
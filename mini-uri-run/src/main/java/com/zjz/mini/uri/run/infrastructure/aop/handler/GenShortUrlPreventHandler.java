@@ -1,11 +1,10 @@
 package com.zjz.mini.uri.run.infrastructure.aop.handler;
 
 
-import cn.hutool.core.codec.Base64;
 import cn.hutool.extra.servlet.JakartaServletUtil;
-import cn.hutool.json.JSONUtil;
 import com.baomidou.mybatisplus.core.toolkit.StringUtils;
 import com.zjz.mini.uri.framework.common.core.BusinessException;
+import com.zjz.mini.uri.framework.common.util.Murmur3;
 import com.zjz.mini.uri.run.domain.dto.GenerateUrlReq;
 import com.zjz.mini.uri.run.infrastructure.HttpContextHolder;
 import com.zjz.mini.uri.run.infrastructure.aop.annotation.Prevent;
@@ -17,10 +16,14 @@ import org.slf4j.LoggerFactory;
 import org.springframework.data.redis.core.RedisTemplate;
 import org.springframework.stereotype.Component;
 
+import java.util.HexFormat;
 import java.util.concurrent.TimeUnit;
 
 /**
  * 生成短链接口防刷
+ * <p>
+ * 一次 SET NX EX 原子完成判重与占位，并发的相同请求只有一个能通过；
+ * key 为方法名、客户端 IP 与长链接的 128 位哈希，长度固定。
  *
  * @author hkz329
  */
@@ -28,6 +31,11 @@ import java.util.concurrent.TimeUnit;
 public class GenShortUrlPreventHandler implements PreventHandler {
 
     private static final Logger log = LoggerFactory.getLogger(GenShortUrlPreventHandler.class);
+
+    private static final String KEY_PREFIX = "miniuri:prevent:";
+
+    private static final HexFormat HEX = HexFormat.of();
+
     @Resource
     private RedisTemplate<String, Object> redisTemplate;
 
@@ -38,14 +46,16 @@ public class GenShortUrlPreventHandler implements PreventHandler {
         GenerateUrlReq req =(GenerateUrlReq) args[0];
         String originalUrl = req.getOriginalUrl();
         long expire = prevent.time();
-        String encode = Base64.encode(methodFullName + clientIP + originalUrl);
-        Object resp = this.redisTemplate.opsForValue().get(encode);
-
-        if (resp == null) {
-            this.redisTemplate.opsForValue().set(encode, originalUrl, expire, TimeUnit.SECONDS);
-        } else {
+        String key = key(methodFullName, clientIP, originalUrl);
+        Boolean acquired = this.redisTemplate.opsForValue().setIfAbsent(key, 1, expire, TimeUnit.SECONDS);
+        if (Boolean.FALSE.equals(acquired)) {
             String message = StringUtils.isNotBlank(prevent.message()) ? prevent.message() : expire + "秒内不允许重复请求!";
             throw new BusinessException(message);
         }
     }
+
+    private static String key(String methodFullName, String clientIP, String originalUrl) {
+        long[] hash = Murmur3.hash128(methodFullName + '|' + clientIP + '|' + originalUrl);
+        return KEY_PREFIX + HEX.toHexDigits(hash[0]) + HEX.toHexDigits(hash[1]);
+    }
 }
@@ -0,0 +1,170 @@
+package com.zjz.mini.uri.run.infrastructure.cache;
+
+import com.zjz.mini.uri.framework.common.util.Murmur3;
+
+import java.util.Collection;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 无锁布隆过滤器
+ * <p>
+ * 位图存放在 AtomicLongArray 中，置位使用 CAS，读写都不加锁，虚拟线程不会被钉住。
+ * 每个元素只计算一次 murmur3_128，取高低 64 位做双重哈希得到 k 个位置。
+ * 位数 m 与哈希函数个数 k 由预期元素数量与目标误判率计算。
+ *
+ * @author hkz329
+ */
+public class ConcurrentBloomFilter {
+
+    private final AtomicLongArray words;
+
+    private final long numBits;
+
+    private final int numHashFunctions;
+
+    /**
+     * 已置位数量，用于估算元素数量与误判率；写多读少，使用 LongAdder 避免置位线程竞争同一计数器
+     */
+    private final LongAdder bitCount = new LongAdder();
+
+    /**
+     * @param expectedInsertions 预期元素数量
+     * @param fpp                目标误判率
+     */
+    public ConcurrentBloomFilter(long expectedInsertions, double fpp) {
+        long n = Math.max(1, expectedInsertions);
+        long bits = optimalNumBits(n, fpp);
+        // 按 64 位对齐，上限受 AtomicLongArray 长度限制
+        int wordCount = (int) Math.min(Integer.MAX_VALUE - 8, (bits + 63) >>> 6);
+        this.words = new AtomicLongArray(wordCount);
+        this.numBits = (long) wordCount << 6;
+        this.numHashFunctions = optimalNumHashFunctions(n, this.numBits);
+    }
+
+    /**
+     * m = -n·ln(p) / (ln2)^2
+     */
+    public static long optimalNumBits(long n, double fpp) {
+        return (long) Math.ceil(-n * Math.log(fpp) / (Math.log(2) * Math.log(2)));
+    }
+
+    /**
+     * k = m/n·ln2
+     */
+    public static int optimalNumHashFunctions(long n, long numBits) {
+        return Math.max(1, (int) Math.round((double) numBits / n * Math.log(2)));
+    }
+
+    /**
+     * 加入元素
+     *
+     * @return 至少有一位由 0 变 1 时返回 true，即此前一定不存在
+     */
+    public boolean put(CharSequence value) {
+        long[] hash = hash128(value);
+        long combined = hash[0];
+        boolean changed = false;
+        for (int i = 0; i < numHashFunctions; i++) {
+            changed |= setBit((combined & Long.MAX_VALUE) % numBits);
+            combined += hash[1];
+        }
+        return changed;
+    }
+
+    /**
+     * 可能存在返回 true，返回 false 时一定不存在
+     */
+    public boolean mightContain(CharSequence value) {
+        long[] hash = hash128(value);
+        long combined = hash[0];
+        for (int i = 0; i < numHashFunctions; i++) {
+            long index = (combined & Long.MAX_VALUE) % numBits;
+            if ((words.get((int) (index >>> 6)) & (1L << index)) == 0) {
+                return false;
+            }
+            combined += hash[1];
+        }
+        return true;
+    }
+
+    /**
+     * 批量加入
+     */
+    public void addAll(Collection<? extends CharSequence> values) {
+        for (CharSequence value : values) {
+            put(value);
+        }
+    }
+
+    /**
+     * 全部可能存在时返回 true，任一元素一定不存在时返回 false
+     */
+    public boolean containsAll(Collection<? extends CharSequence> values) {
+        for (CharSequence value : values) {
+            if (!mightContain(value)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public long bitSize() {
+        return numBits;
+    }
+
+    public int hashFunctions() {
+        return numHashFunctions;
+    }
+
+    /**
+     * 置位比例
+     */
+    public double fillRatio() {
+        return (double) bitCount.sum() / numBits;
+    }
+
+    /**
+     * 按当前置位比例估算的误判率 fillRatio^k
+     */
+    public double expectedFpp() {
+        return Math.pow(fillRatio(), numHashFunctions);
+    }
+
+    /**
+     * 估算元素数量 n ≈ -m/k·ln(1 - X/m)
+     */
+    public long approximateElementCount() {
+        double fill = fillRatio();
+        if (fill >= 1) {
+            return Long.MAX_VALUE;
+        }
+        return Math.round(-Math.log1p(-fill) * numBits / numHashFunctions);
+    }
+
+    /**
+     * CAS 置位
+     *
+     * @return 该位由 0 变 1 时返回 true
+     */
+    private boolean setBit(long index) {
+        int wordIndex = (int) (index >>> 6);
+        long mask = 1L << index;
+        long oldValue;
+        do {
+            oldValue = words.get(wordIndex);
+            if ((oldValue & mask) != 0) {
+                return false;
+            }
+        } while (!words.compareAndSet(wordIndex, oldValue, oldValue | mask));
+        bitCount.increment();
+        return true;
+    }
+
+    /**
+     * murmur3_128，按小端拆成两个 64 位哈希（逐字符计算，不生成 byte[]）
+     */
+    static long[] hash128(CharSequence value) {
+        return Murmur3.hash128(value);
+    }
+}
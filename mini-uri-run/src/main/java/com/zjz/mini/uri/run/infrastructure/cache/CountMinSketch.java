@@ -0,0 +1,115 @@
+package com.zjz.mini.uri.run.infrastructure.cache;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * 分段并发 Count-Min Sketch
+ * 固定内存估算元素出现次数，只会高估不会低估。
+ * 与 LongAdder 相同的思路：计数表按线程分段，线程只累加自己所在的分段，不同线程的写入不竞争同一缓存行；
+ * 估算时把各分段同一列的计数相加后取各行最小值，读比写少得多。
+ *
+ * @author hkz329
+ */
+public class CountMinSketch {
+
+    private static final int MAX_STRIPES = 8;
+
+    private final int depth;
+
+    private final int width;
+
+    private final int mask;
+
+    private final AtomicLongArray[] stripes;
+
+    private final int stripeMask;
+
+    /**
+     * 分段数取 CPU 核数向上取整为 2 的幂，最多 8 段
+     *
+     * @param depth 行数（哈希函数个数）
+     * @param width 每行计数器个数，向上取整为 2 的幂
+     */
+    public CountMinSketch(int depth, int width) {
+        this(depth, width, Math.min(MAX_STRIPES, Runtime.getRuntime().availableProcessors()));
+    }
+
+    /**
+     * @param stripes 分段数，向上取整为 2 的幂
+     */
+    public CountMinSketch(int depth, int width, int stripes) {
+        this.depth = depth;
+        this.width = Integer.highestOneBit(Math.max(16, width - 1) << 1);
+        this.mask = this.width - 1;
+        int size = stripes <= 1 ? 1 : Integer.highestOneBit(stripes - 1) << 1;
+        this.stripes = new AtomicLongArray[size];
+        this.stripeMask = size - 1;
+        for (int i = 0; i < size; i++) {
+            this.stripes[i] = new AtomicLongArray(depth * this.width);
+        }
+    }
+
+    /**
+     * 在当前线程所在的分段计数加一
+     * @return 加一后该分段内的估算次数，不含其他分段
+     */
+    public long add(String key) {
+        long h = mix(key.hashCode());
+        int h1 = (int) h;
+        int h2 = (int) (h >>> 32);
+        AtomicLongArray table = this.stripes[(int) mix((int) Thread.currentThread().threadId()) & this.stripeMask];
+        long min = Long.MAX_VALUE;
+        for (int i = 0; i < depth; i++) {
+            int index = i * width + ((h1 + i * h2) & mask);
+            min = Math.min(min, table.incrementAndGet(index));
+        }
+        return min;
+    }
+
+    /**
+     * 估算所有分段合计的次数
+     */
+    public long estimate(String key) {
+        long h = mix(key.hashCode());
+        int h1 = (int) h;
+        int h2 = (int) (h >>> 32);
+        long min = Long.MAX_VALUE;
+        for (int i = 0; i < depth; i++) {
+            int index = i * width + ((h1 + i * h2) & mask);
+            long sum = 0;
+            for (AtomicLongArray table : this.stripes) {
+                sum += table.get(index);
+            }
+            min = Math.min(min, sum);
+        }
+        return min;
+    }
+
+    /**
+     * 分段数
+     */
+    public int stripes() {
+        return this.stripes.length;
+    }
+
+    public void clear() {
+        for (AtomicLongArray table : this.stripes) {
+            for (int i = 0; i < table.length(); i++) {
+                table.set(i, 0);
+            }
+        }
+    }
+
+    /**
+     * murmur3 fmix64，把 32 位 hashCode 扩散为两个独立的 32 位哈希
+     */
+    private static long mix(int hashCode) {
+        long k = hashCode;
+        k ^= k >>> 33;
+        k *= 0xff51afd7ed558ccdL;
+        k ^= k >>> 33;
+        k *= 0xc4ceb9fe1a85ec53L;
+        k ^= k >>> 33;
+        return k;
+    }
+}
@@ -0,0 +1,232 @@
+package com.zjz.mini.uri.run.infrastructure.cache;
+
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 热点短链探测与本地固定
+ * <p>
+ * 使用两个 Count-Min Sketch 组成滑动窗口（当前窗口 + 上一窗口）统计访问次数，
+ * 维护窗口内访问次数最高的 top-K 短链。热点短链的跳转地址以短租约固定在进程内存中，
+ * 租约到期后重新从下层缓存读取，失效最多延迟一个租约时长。
+ * <p>
+ * 每次跳转只在当前线程的 Sketch 分段上计数；已是热点时只读一次热点表，不写入；
+ * 分段内计数达到 minHits / 分段数 后才估算合计次数并尝试进入 top-K（合计达到 minHits 时至少有一个分段达到该值）。
+ * 热点表中的次数只在轮转与替换时刷新，且只在变化时写入。
+ *
+ * @author hkz329
+ */
+@Slf4j
+@Component
+public class HotKeyDetector {
+
+    private static final int SKETCH_DEPTH = 4;
+
+    @Value("${miniuri.cache.hotkey.enabled:true}")
+    private boolean enabled;
+
+    @Value("${miniuri.cache.hotkey.top-k:32}")
+    private int topK;
+
+    @Value("${miniuri.cache.hotkey.min-hits:200}")
+    private long minHits;
+
+    @Value("${miniuri.cache.hotkey.sketch-width:4096}")
+    private int sketchWidth;
+
+    @Value("${miniuri.cache.hotkey.lease-millis:2000}")
+    private long leaseMillis;
+
+    private volatile CountMinSketch current;
+
+    private volatile CountMinSketch previous;
+
+    /**
+     * 当前热点及其窗口内估算访问次数
+     */
+    private final Map<String, Long> hotKeys = new ConcurrentHashMap<>();
+
+    /**
+     * 热点短链的本地租约
+     */
+    private final Map<String, Lease> leases = new ConcurrentHashMap<>();
+
+    /**
+     * 分段内计数达到该值才估算合计次数
+     */
+    private long stripeThreshold;
+
+    /**
+     * top-K 已满时最冷热点的次数，不超过该值的短链不进入 promote
+     */
+    private volatile long admissionFloor;
+
+    @PostConstruct
+    public void init() {
+        this.current = new CountMinSketch(SKETCH_DEPTH, sketchWidth);
+        this.previous = new CountMinSketch(SKETCH_DEPTH, sketchWidth);
+        this.stripeThreshold = Math.max(1, minHits / this.current.stripes());
+    }
+
+    /**
+     * 记录一次访问
+     * @return 是否为热点
+     */
+    public boolean record(String shortUrl) {
+        if (!enabled) {
+            return false;
+        }
+        long local = current.add(shortUrl);
+        if (hotKeys.containsKey(shortUrl)) {
+            return true;
+        }
+        if (local < stripeThreshold) {
+            return false;
+        }
+        long hits = hits(shortUrl);
+        if (hits < minHits || (hotKeys.size() >= topK && hits <= admissionFloor)) {
+            return false;
+        }
+        return promote(shortUrl, hits);
+    }
+
+    /**
+     * 读取热点短链的租约，不存在或已过期返回 null
+     */
+    public String getPinned(String shortUrl) {
+        Lease lease = leases.get(shortUrl);
+        if (lease == null || lease.expiresAt() - System.nanoTime() <= 0) {
+            return null;
+        }
+        return lease.longUrl();
+    }
+
+    /**
+     * 为热点短链续租
+     */
+    public void pin(String shortUrl, String longUrl) {
+        if (hotKeys.containsKey(shortUrl)) {
+            leases.put(shortUrl, new Lease(longUrl, System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(leaseMillis)));
+        }
+    }
+
+    /**
+     * 短链失效时立即解除固定
+     */
+    public void unpin(String shortUrl) {
+        leases.remove(shortUrl);
+    }
+
+    /**
+     * 当前热点快照，按访问次数降序
+     */
+    public List<HotKey> snapshot() {
+        long now = System.nanoTime();
+        return hotKeys.entrySet().stream()
+                .map(e -> {
+                    Lease lease = leases.get(e.getKey());
+                    long remain = lease == null ? 0 : Math.max(0, TimeUnit.NANOSECONDS.toMillis(lease.expiresAt() - now));
+                    return new HotKey(e.getKey(), hits(e.getKey()), remain > 0, remain);
+                })
+                .sorted(Comparator.comparingLong(HotKey::hits).reversed())
+                .toList();
+    }
+
+    /**
+     * 滑动窗口：每个窗口结束时轮转，并剔除不再热的短链
+     */
+    @Scheduled(fixedRateString = "${miniuri.cache.hotkey.window-millis:10000}")
+    public void rotate() {
+        CountMinSketch expired = this.previous;
+        this.previous = this.current;
+        expired.clear();
+        this.current = expired;
+        hotKeys.entrySet().removeIf(e -> {
+            long hits = previous.estimate(e.getKey());
+            if (hits < minHits) {
+                leases.remove(e.getKey());
+                return true;
+            }
+            if (e.getValue() != hits) {
+                e.setValue(hits);
+            }
+            return false;
+        });
+        // 清理已不是热点的残留租约
+        leases.keySet().removeIf(k -> !hotKeys.containsKey(k));
+        synchronized (this) {
+            Map.Entry<String, Long> coldest = coldest();
+            this.admissionFloor = hotKeys.size() >= topK && null != coldest ? coldest.getValue() : 0;
+        }
+    }
+
+    /**
+     * 尝试进入 top-K，满员时替换访问次数最少的热点
+     */
+    private synchronized boolean promote(String shortUrl, long hits) {
+        if (hotKeys.containsKey(shortUrl)) {
+            return true;
+        }
+        if (hotKeys.size() < topK) {
+            hotKeys.put(shortUrl, hits);
+            log.info("hot key detected, shortUrl:{}, hits:{}", shortUrl, hits);
+            return true;
+        }
+        // 刷新热点次数后再比较，只在变化时写入
+        for (Map.Entry<String, Long> entry : hotKeys.entrySet()) {
+            long refreshed = hits(entry.getKey());
+            if (entry.getValue() != refreshed) {
+                entry.setValue(refreshed);
+            }
+        }
+        Map.Entry<String, Long> coldest = coldest();
+        if (coldest != null && coldest.getValue() < hits) {
+            hotKeys.remove(coldest.getKey());
+            leases.remove(coldest.getKey());
+            hotKeys.put(shortUrl, hits);
+            log.info("hot key detected, shortUrl:{}, hits:{}, replaced:{}", shortUrl, hits, coldest.getKey());
+            coldest = coldest();
+        }
+        this.admissionFloor = null != coldest && hotKeys.size() >= topK ? coldest.getValue() : 0;
+        return hotKeys.containsKey(shortUrl);
+    }
+
+    private Map.Entry<String, Long> coldest() {
+        Map.Entry<String, Long> coldest = null;
+        for (Map.Entry<String, Long> entry : hotKeys.entrySet()) {
+            if (coldest == null || entry.getValue() < coldest.getValue()) {
+                coldest = entry;
+            }
+        }
+        return coldest;
+    }
+
+    /**
+     * 滑动窗口内的估算次数
+     */
+    private long hits(String shortUrl) {
+        return current.estimate(shortUrl) + previous.estimate(shortUrl);
+    }
+
+    private record Lease(String longUrl, long expiresAt) {
+    }
+
+    /**
+     * 热点信息
+     * @param shortUrl             短链
+     * @param hits                 窗口内估算访问次数
+     * @param pinned               是否持有有效租约
+     * @param leaseRemainingMillis 租约剩余时间
+     */
+    public record HotKey(String shortUrl, long hits, boolean pinned, long leaseRemainingMillis) {
+    }
+}
@@ -0,0 +1,59 @@
+package com.zjz.mini.uri.run.infrastructure.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.Resource;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * 不存在短链的负缓存
+ * 数据库确认不存在的短链在短时间内直接返回，避免扫描器反复穿透到 Redis 和 MySQL
+ *
+ * @author hkz329
+ */
+@Component
+public class NegativeLookupCache {
+
+    @Value("${miniuri.cache.negative.max-size:100000}")
+    private long maxSize;
+
+    @Value("${miniuri.cache.negative.expire-seconds:30}")
+    private long expireSeconds;
+
+    @Resource
+    private MeterRegistry meterRegistry;
+
+    private Cache<String, Boolean> cache;
+
+    @PostConstruct
+    public void init() {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(Duration.ofSeconds(expireSeconds))
+                .recordStats()
+                .build();
+        // cache.gets{result=hit} 即为负缓存拦截次数
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "miniuri.redirect.negative");
+    }
+
+    public boolean contains(String shortUrl) {
+        return this.cache.getIfPresent(shortUrl) != null;
+    }
+
+    public void put(String shortUrl) {
+        this.cache.put(shortUrl, Boolean.TRUE);
+    }
+
+    /**
+     * 新生成短链时调用，避免刚生成的短链被负缓存挡住
+     */
+    public void invalidate(String shortUrl) {
+        this.cache.invalidate(shortUrl);
+    }
+}
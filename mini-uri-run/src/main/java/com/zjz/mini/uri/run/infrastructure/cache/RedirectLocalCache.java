@@ -0,0 +1,85 @@
+package com.zjz.mini.uri.run.infrastructure.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.Resource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * 跳转本地一级缓存
+ * 基于 Caffeine（W-TinyLFU），位于 Redis 之前，热点短链无需网络往返与 JSON 反序列化
+ *
+ * @author hkz329
+ */
+@Slf4j
+@Component
+public class RedirectLocalCache {
+
+    /**
+     * 单条缓存的固定开销估算（对象头、引用、节点等），单位字节
+     */
+    private static final int ENTRY_OVERHEAD = 96;
+
+    @Value("${miniuri.cache.local.max-size:10000}")
+    private long maxSize;
+
+    @Value("${miniuri.cache.local.max-bytes:0}")
+    private long maxBytes;
+
+    @Value("${miniuri.cache.local.expire-seconds:300}")
+    private long expireSeconds;
+
+    @Resource
+    private MeterRegistry meterRegistry;
+
+    private Cache<String, String> cache;
+
+    @PostConstruct
+    public void init() {
+        if (maxBytes > 0) {
+            // 按字节限制：权重为估算的内存占用
+            this.cache = Caffeine.newBuilder()
+                    .maximumWeight(maxBytes)
+                    .weigher((String shortUrl, String longUrl) -> weigh(shortUrl, longUrl))
+                    .expireAfterWrite(Duration.ofSeconds(expireSeconds))
+                    .recordStats()
+                    .build();
+        } else {
+            this.cache = Caffeine.newBuilder()
+                    .maximumSize(maxSize)
+                    .expireAfterWrite(Duration.ofSeconds(expireSeconds))
+                    .recordStats()
+                    .build();
+        }
+        // 暴露 cache.gets{result=hit|miss}、cache.evictions 等指标
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "miniuri.redirect.local");
+        log.info("redirect local cache initialized, maxSize:{}, maxBytes:{}, expireSeconds:{}", maxSize, maxBytes, expireSeconds);
+    }
+
+    public String get(String shortUrl) {
+        return this.cache.getIfPresent(shortUrl);
+    }
+
+    public void put(String shortUrl, String longUrl) {
+        if (shortUrl == null || longUrl == null) {
+            return;
+        }
+        this.cache.put(shortUrl, longUrl);
+    }
+
+    public void invalidate(String shortUrl) {
+        this.cache.invalidate(shortUrl);
+    }
+
+    private static int weigh(String shortUrl, String longUrl) {
+        // 紧凑字符串下 Latin-1 字符占 1 字节，这里按字符数粗略估算
+        return ENTRY_OVERHEAD + shortUrl.length() + longUrl.length();
+    }
+}
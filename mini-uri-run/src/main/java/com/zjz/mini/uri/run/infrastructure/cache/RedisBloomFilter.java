@@ -0,0 +1,368 @@
+package com.zjz.mini.uri.run.infrastructure.cache;
+
+import com.zjz.mini.uri.run.domain.entity.UrlMapping;
+import com.zjz.mini.uri.run.domain.repository.UrlMappingRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.Resource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
+
+/**
+ * Redis 位图布隆过滤器
+ * <p>
+ * 所有节点共享同一个位图，重启不丢失。位数 m 与哈希函数个数 k 由预期元素数量与目标误判率计算，
+ * 每个元素的 k 个位在一次流水线中读写。
+ * 位图不存在时，由一个节点（SET NX 抢占）并发流式读取 url_mapping 写入临时键，完成后 RENAME 覆盖正式键，
+ * 再写入参数签名，正式键在任何时刻都是完整的位图。重建完成前 mightContain 一律返回 true，
+ * 调用方按“可能存在”处理，不会误判为不存在。
+ * 已有位图的签名与本节点参数不同时，本节点不重建也不写入，只按“可能存在”处理，避免参数不同的节点互相覆盖；
+ * 调整参数后需删除 ready 键触发重建。
+ *
+ * @author hkz329
+ */
+@Slf4j
+@Component
+public class RedisBloomFilter {
+
+    private static final int PAGE_SIZE = 5000;
+
+    /**
+     * Redis 位图上限 2^32 位
+     */
+    private static final long MAX_BITS = 1L << 32;
+
+    private static final LocalDateTime SCAN_EPOCH = LocalDateTime.of(1970, 1, 1, 0, 0);
+
+    @Value("${miniuri.generate.bloom.key:miniuri:bloom:short_url}")
+    private String key;
+
+    @Value("${miniuri.generate.bloom.expected-insertions:10000000}")
+    private long expectedInsertions;
+
+    @Value("${miniuri.generate.bloom.fpp:0.001}")
+    private double fpp;
+
+    @Value("${miniuri.generate.bloom.parallelism:4}")
+    private int parallelism;
+
+    /**
+     * 追加扫描回退的秒数，覆盖写后队列从生成到提交的延迟
+     */
+    @Value("${miniuri.generate.bloom.sync-overlap-seconds:30}")
+    private long syncOverlapSeconds;
+
+    @Resource
+    private RedisTemplate<String, Object> redisTemplate;
+
+    @Resource
+    private UrlMappingRepository urlMappingRepository;
+
+    @Resource
+    private MeterRegistry meterRegistry;
+
+    @Resource
+    @Qualifier("cacheTaskExecutor")
+    private Executor cacheTaskExecutor;
+
+    private long numBits;
+
+    private int numHashFunctions;
+
+    /**
+     * 位图参数签名，参数变化时重建
+     */
+    private String signature;
+
+    private volatile boolean ready;
+
+    /**
+     * 已有位图由其他参数构建，本节点不写入
+     */
+    private volatile boolean foreign;
+
+    private volatile double fillRatio;
+
+    private final AtomicBoolean building = new AtomicBoolean();
+
+    @PostConstruct
+    public void init() {
+        long n = Math.max(1, expectedInsertions);
+        this.numBits = Math.min(MAX_BITS, ConcurrentBloomFilter.optimalNumBits(n, fpp));
+        this.numHashFunctions = ConcurrentBloomFilter.optimalNumHashFunctions(n, numBits);
+        this.signature = numBits + ":" + numHashFunctions;
+        Gauge.builder("miniuri.generate.bloom.fill.ratio", this, f -> f.fillRatio)
+                .description("共享布隆过滤器置位比例")
+                .register(meterRegistry);
+        Gauge.builder("miniuri.generate.bloom.fpp.estimated", this, f -> Math.pow(f.fillRatio, f.numHashFunctions))
+                .description("按置位比例估算的误判率 fillRatio^k")
+                .register(meterRegistry);
+        log.info("redis bloom filter initialized, key:{}, bits:{}, hashFunctions:{}", key, numBits, numHashFunctions);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onReady() {
+        refreshState();
+    }
+
+    /**
+     * 可能存在返回 true；位图未就绪时返回 true
+     */
+    public boolean mightContain(String shortUrl) {
+        if (!ready) {
+            return true;
+        }
+        long[] offsets = offsets(shortUrl);
+        List<Object> bits = redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            byte[] rawKey = rawKey();
+            for (long offset : offsets) {
+                connection.stringCommands().getBit(rawKey, offset);
+            }
+            return null;
+        });
+        for (Object bit : bits) {
+            if (!Boolean.TRUE.equals(bit)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 批量判断，一次流水线完成；位图未就绪时全部返回 true
+     */
+    public boolean[] mightContainAll(List<String> shortUrls) {
+        boolean[] result = new boolean[shortUrls.size()];
+        if (!ready) {
+            Arrays.fill(result, true);
+            return result;
+        }
+        List<Object> bits = redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            byte[] rawKey = rawKey();
+            for (String shortUrl : shortUrls) {
+                for (long offset : offsets(shortUrl)) {
+                    connection.stringCommands().getBit(rawKey, offset);
+                }
+            }
+            return null;
+        });
+        for (int i = 0; i < result.length; i++) {
+            boolean contains = true;
+            for (int j = i * numHashFunctions; j < (i + 1) * numHashFunctions && contains; j++) {
+                contains = Boolean.TRUE.equals(bits.get(j));
+            }
+            result[i] = contains;
+        }
+        return result;
+    }
+
+    public void add(String shortUrl) {
+        addAll(List.of(shortUrl));
+    }
+
+    /**
+     * 批量加入，一次流水线完成
+     */
+    public void addAll(Collection<String> shortUrls) {
+        if (foreign) {
+            return;
+        }
+        setBits(rawKey(), shortUrls);
+    }
+
+    private void setBits(byte[] rawKey, Collection<String> shortUrls) {
+        if (shortUrls.isEmpty()) {
+            return;
+        }
+        redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            for (String shortUrl : shortUrls) {
+                for (long offset : offsets(shortUrl)) {
+                    connection.stringCommands().setBit(rawKey, offset, true);
+                }
+            }
+            return null;
+        });
+    }
+
+    /**
+     * 定时刷新就绪状态与置位比例；位图缺失时触发重建
+     */
+    @Scheduled(fixedDelayString = "${miniuri.generate.bloom.refresh-interval-ms:60000}", initialDelayString = "${miniuri.generate.bloom.refresh-interval-ms:60000}")
+    public void refreshState() {
+        try {
+            Object stored = redisTemplate.opsForValue().get(readyKey());
+            this.ready = signature.equals(stored);
+            this.foreign = null != stored && !ready;
+            if (foreign) {
+                log.warn("redis bloom filter built with {}, local {}, delete {} to rebuild", stored, signature, readyKey());
+                return;
+            }
+            if (!ready) {
+                buildAsync();
+                return;
+            }
+            Long bitCount = redisTemplate.execute((RedisCallback<Long>) connection -> connection.stringCommands().bitCount(rawKey()));
+            this.fillRatio = bitCount == null ? 0 : (double) bitCount / numBits;
+        } catch (Exception e) {
+            log.warn("refresh redis bloom filter state failed", e);
+        }
+    }
+
+    private void buildAsync() {
+        if (!building.compareAndSet(false, true)) {
+            return;
+        }
+        cacheTaskExecutor.execute(() -> {
+            try {
+                Boolean locked = redisTemplate.opsForValue().setIfAbsent(buildLockKey(), signature, 30, TimeUnit.MINUTES);
+                if (Boolean.TRUE.equals(locked)) {
+                    build();
+                }
+            } catch (Exception e) {
+                log.error("build redis bloom filter failed", e);
+            } finally {
+                building.set(false);
+            }
+        });
+    }
+
+    /**
+     * 写入临时键后 RENAME 覆盖正式键，之后写入签名；重建期间新增的短链由追加扫描补齐。
+     * 多个节点的写后队列不按 id 顺序提交，追加扫描按 (create_time, id) 从已读取的最大创建时间往前
+     * 回退 syncOverlapSeconds 开始，补上 id 较小但提交较晚的行
+     */
+    private void build() throws Exception {
+        long start = System.currentTimeMillis();
+        byte[] rawTmpKey = tmpKey().getBytes(StandardCharsets.UTF_8);
+        // 清除上次中断的残留，并保证空表时临时键存在
+        redisTemplate.delete(tmpKey());
+        redisTemplate.execute((RedisCallback<Boolean>) connection -> connection.stringCommands().setBit(rawTmpKey, 0, false));
+        ScanProgress progress = new ScanProgress();
+        long[] lastId = new long[1];
+        scanInto(rawTmpKey, progress, () -> {
+            List<UrlMapping> page = urlMappingRepository.listShortUrlsAfter(lastId[0], PAGE_SIZE);
+            if (!page.isEmpty()) {
+                lastId[0] = page.get(page.size() - 1).getId();
+            }
+            return page;
+        });
+        // 重建期间入库的短链写入临时键
+        catchUp(rawTmpKey, progress);
+        redisTemplate.rename(tmpKey(), key);
+        redisTemplate.opsForValue().set(readyKey(), signature);
+        this.foreign = false;
+        this.ready = true;
+        // RENAME 前写入旧位图、RENAME 后才入库的短链
+        catchUp(rawKey(), progress);
+        redisTemplate.delete(buildLockKey());
+        log.info("redis bloom filter built, key:{}, elements:{}, cost:{}ms", key, progress.count, System.currentTimeMillis() - start);
+    }
+
+    /**
+     * 从已读取的最大创建时间回退 syncOverlapSeconds 后按 (create_time, id) 翻页读取
+     */
+    private void catchUp(byte[] target, ScanProgress progress) throws InterruptedException {
+        LocalDateTime from = null == progress.maxCreateTime ? SCAN_EPOCH : progress.maxCreateTime.minusSeconds(syncOverlapSeconds);
+        Object[] cursor = {from, 0L};
+        scanInto(target, progress, () -> {
+            List<UrlMapping> page = urlMappingRepository.listShortUrlsCreatedAfter((LocalDateTime) cursor[0], (Long) cursor[1], PAGE_SIZE);
+            if (!page.isEmpty()) {
+                UrlMapping last = page.get(page.size() - 1);
+                cursor[0] = last.getCreateTime();
+                cursor[1] = last.getId();
+            }
+            return page;
+        });
+    }
+
+    /**
+     * 逐页读取直到空页，批次并发写入位图，同时记录读取到的最大创建时间
+     */
+    private void scanInto(byte[] target, ScanProgress progress, Supplier<List<UrlMapping>> nextPage) throws InterruptedException {
+        Semaphore permits = new Semaphore(Math.max(1, parallelism));
+        List<CompletableFuture<Void>> futures = new ArrayList<>();
+        while (true) {
+            List<UrlMapping> page = nextPage.get();
+            if (page.isEmpty()) {
+                break;
+            }
+            progress.count += page.size();
+            for (UrlMapping row : page) {
+                if (null != row.getCreateTime() && (null == progress.maxCreateTime || row.getCreateTime().isAfter(progress.maxCreateTime))) {
+                    progress.maxCreateTime = row.getCreateTime();
+                }
+            }
+            List<String> codes = page.stream().map(UrlMapping::getShortUrl).toList();
+            permits.acquire();
+            futures.add(CompletableFuture.runAsync(() -> {
+                try {
+                    setBits(target, codes);
+                } finally {
+                    permits.release();
+                }
+            }, cacheTaskExecutor));
+        }
+        CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).join();
+    }
+
+    /**
+     * 与 {@link ConcurrentBloomFilter} 相同的双重哈希生成 k 个位置
+     */
+    private long[] offsets(String shortUrl) {
+        long[] hash = ConcurrentBloomFilter.hash128(shortUrl);
+        long[] offsets = new long[numHashFunctions];
+        long combined = hash[0];
+        for (int i = 0; i < numHashFunctions; i++) {
+            offsets[i] = (combined & Long.MAX_VALUE) % numBits;
+            combined += hash[1];
+        }
+        return offsets;
+    }
+
+    private byte[] rawKey() {
+        return key.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private String readyKey() {
+        return key + ":ready";
+    }
+
+    private String tmpKey() {
+        return key + ":rebuild";
+    }
+
+    private String buildLockKey() {
+        return key + ":building";
+    }
+
+    /**
+     * 重建进度：读取到的最大创建时间与累计数量
+     */
+    private static final class ScanProgress {
+
+        private LocalDateTime maxCreateTime;
+
+        private long count;
+    }
+}
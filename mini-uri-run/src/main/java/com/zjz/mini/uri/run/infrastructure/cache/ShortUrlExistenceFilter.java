@@ -0,0 +1,248 @@
+package com.zjz.mini.uri.run.infrastructure.cache;
+
+import com.zjz.mini.uri.run.domain.entity.UrlMapping;
+import com.zjz.mini.uri.run.domain.repository.UrlMappingRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.Resource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * 短链存在性过滤器
+ * <p>
+ * 启动时由 url_mapping 全量构建布隆过滤器，之后：
+ * 1. 本节点生成短链时直接加入
+ * 2. 定时按 create_time 增量同步其他节点新增的短链，每次回看 syncOverlapSeconds，
+ *    主键较小但提交较晚的行也能同步到
+ * 3. 过期清理后整体重建（布隆过滤器不支持删除）
+ * <p>
+ * 其他节点新增的短链要等到下次同步才会加入，过滤器只在 Redis 未命中后用于跳过数据库查询。
+ * 构建完成前一律放行。
+ * 位图使用无锁的 {@link ConcurrentBloomFilter}，生成与跳转的虚拟线程并发读写不加锁。
+ *
+ * @author hkz329
+ */
+@Slf4j
+@Component
+public class ShortUrlExistenceFilter {
+
+    private static final int PAGE_SIZE = 5000;
+
+    /**
+     * 未同步过时的起始时间
+     */
+    private static final LocalDateTime SYNC_EPOCH = LocalDateTime.of(1970, 1, 1, 0, 0);
+
+    @Value("${miniuri.cache.filter.enabled:true}")
+    private boolean enabled;
+
+    @Value("${miniuri.cache.filter.expected-insertions:1000000}")
+    private long expectedInsertions;
+
+    @Value("${miniuri.cache.filter.fpp:0.001}")
+    private double fpp;
+
+    /**
+     * 增量同步回看时间（秒），覆盖写后队列与事务提交的延迟
+     */
+    @Value("${miniuri.cache.filter.sync-overlap-seconds:30}")
+    private long syncOverlapSeconds;
+
+    @Resource
+    private UrlMappingRepository urlMappingRepository;
+
+    @Resource
+    private MeterRegistry meterRegistry;
+
+    @Resource
+    @Qualifier("ioTaskExecutor")
+    private Executor ioTaskExecutor;
+
+    private final AtomicReference<ConcurrentBloomFilter> filter = new AtomicReference<>();
+
+    /**
+     * 已同步到的最大创建时间（数据库时钟），未同步过为 null
+     */
+    private volatile LocalDateTime syncedUntil;
+
+    private final AtomicBoolean rebuilding = new AtomicBoolean();
+
+    /**
+     * 重建期间本节点新增的短链，替换后补入新过滤器
+     */
+    private final Queue<String> pendingAdds = new ConcurrentLinkedQueue<>();
+
+    private Counter rejectedCounter;
+
+    private Counter falsePositiveCounter;
+
+    @PostConstruct
+    public void init() {
+        this.rejectedCounter = Counter.builder("miniuri.redirect.filter.rejected")
+                .description("存在性过滤器直接拒绝的请求数")
+                .register(meterRegistry);
+        this.falsePositiveCounter = Counter.builder("miniuri.redirect.filter.false.positive")
+                .description("过滤器放行但数据库不存在的请求数")
+                .register(meterRegistry);
+        Gauge.builder("miniuri.redirect.filter.fpp.expected", filter, f -> f.get() == null ? 0 : f.get().expectedFpp())
+                .description("按当前填充度估算的误判率")
+                .register(meterRegistry);
+        Gauge.builder("miniuri.redirect.filter.fpp.observed", this, ShortUrlExistenceFilter::observedFpp)
+                .description("实际观测误判率 FP / (FP + TN)")
+                .register(meterRegistry);
+        Gauge.builder("miniuri.redirect.filter.size", filter, f -> f.get() == null ? 0 : f.get().approximateElementCount())
+                .register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onReady() {
+        if (enabled) {
+            rebuildAsync();
+        }
+    }
+
+    /**
+     * 可能存在返回 true；过滤器未就绪时放行
+     */
+    public boolean mightContain(String shortUrl) {
+        ConcurrentBloomFilter current = this.filter.get();
+        if (current == null || current.mightContain(shortUrl)) {
+            return true;
+        }
+        this.rejectedCounter.increment();
+        return false;
+    }
+
+    /**
+     * 新增短链
+     */
+    public void add(String shortUrl) {
+        ConcurrentBloomFilter current = this.filter.get();
+        if (current != null) {
+            current.put(shortUrl);
+        }
+        if (rebuilding.get()) {
+            pendingAdds.add(shortUrl);
+        }
+    }
+
+    /**
+     * 过滤器放行但数据库中不存在时调用，用于统计实际误判率
+     */
+    public void recordFalsePositive() {
+        if (this.filter.get() != null) {
+            this.falsePositiveCounter.increment();
+        }
+    }
+
+    /**
+     * 异步全量重建，完成后原子替换
+     */
+    public void rebuildAsync() {
+        if (!enabled || !rebuilding.compareAndSet(false, true)) {
+            return;
+        }
+        this.ioTaskExecutor.execute(() -> {
+            try {
+                rebuild();
+            } catch (Exception e) {
+                log.error("rebuild short url existence filter failed", e);
+            } finally {
+                rebuilding.set(false);
+            }
+        });
+    }
+
+    /**
+     * 增量同步其他节点新增的短链：读取 create_time 不早于 (上次同步到的时间 - 回看时间) 的行，重复加入不影响结果
+     */
+    @Scheduled(fixedDelayString = "${miniuri.cache.filter.sync-interval-ms:5000}")
+    public void syncIncrement() {
+        ConcurrentBloomFilter current = this.filter.get();
+        if (current == null || rebuilding.get()) {
+            return;
+        }
+        try {
+            LocalDateTime until = this.syncedUntil;
+            LocalDateTime createTime = null == until ? SYNC_EPOCH : until.minusSeconds(syncOverlapSeconds);
+            long lastId = 0;
+            while (true) {
+                List<UrlMapping> page = this.urlMappingRepository.listShortUrlsCreatedAfter(createTime, lastId, PAGE_SIZE);
+                if (!page.isEmpty()) {
+                    current.addAll(page.stream().map(UrlMapping::getShortUrl).toList());
+                    UrlMapping last = page.get(page.size() - 1);
+                    createTime = last.getCreateTime();
+                    lastId = last.getId();
+                    until = null == until || createTime.isAfter(until) ? createTime : until;
+                }
+                if (page.size() < PAGE_SIZE) {
+                    break;
+                }
+            }
+            this.syncedUntil = until;
+        } catch (Exception e) {
+            log.warn("sync short url existence filter failed", e);
+        }
+    }
+
+    private void rebuild() {
+        long start = System.currentTimeMillis();
+        ConcurrentBloomFilter current = this.filter.get();
+        long expected = Math.max(expectedInsertions, current == null ? 0 : current.approximateElementCount() * 3 / 2);
+        ConcurrentBloomFilter fresh = new ConcurrentBloomFilter(expected, fpp);
+        this.syncedUntil = load(fresh);
+        this.filter.set(fresh);
+        String pending;
+        while ((pending = pendingAdds.poll()) != null) {
+            fresh.put(pending);
+        }
+        log.info("short url existence filter rebuilt, elements:{}, expectedFpp:{}, cost:{} ms",
+                fresh.approximateElementCount(), fresh.expectedFpp(), System.currentTimeMillis() - start);
+    }
+
+    /**
+     * 按主键分页加载全部短链
+     * @return 加载到的最大创建时间，没有数据返回 null
+     */
+    private LocalDateTime load(ConcurrentBloomFilter target) {
+        long lastId = 0;
+        LocalDateTime maxCreateTime = null;
+        while (true) {
+            List<UrlMapping> page = this.urlMappingRepository.listShortUrlsAfter(lastId, PAGE_SIZE);
+            for (UrlMapping row : page) {
+                target.put(row.getShortUrl());
+                if (null != row.getCreateTime() && (null == maxCreateTime || row.getCreateTime().isAfter(maxCreateTime))) {
+                    maxCreateTime = row.getCreateTime();
+                }
+            }
+            if (!page.isEmpty()) {
+                lastId = page.get(page.size() - 1).getId();
+            }
+            if (page.size() < PAGE_SIZE) {
+                return maxCreateTime;
+            }
+        }
+    }
+
+    private double observedFpp() {
+        double fp = falsePositiveCounter.count();
+        double tn = rejectedCounter.count();
+        return fp + tn == 0 ? 0 : fp / (fp + tn);
+    }
+}
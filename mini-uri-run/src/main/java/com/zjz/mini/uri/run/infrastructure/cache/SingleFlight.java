@@ -0,0 +1,64 @@
+package com.zjz.mini.uri.run.infrastructure.cache;
+
+import io.micrometer.core.instrument.Counter;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * 按 key 合并并发请求（single-flight）
+ * 同一个 key 同时只有一个调用方真正执行加载，其余调用方等待并共享其结果，防止缓存击穿
+ *
+ * @author hkz329
+ */
+public class SingleFlight<K, V> {
+
+    private final ConcurrentHashMap<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+
+    /**
+     * 被合并（未实际执行加载）的调用次数，可为空
+     */
+    private final Counter coalescedCounter;
+
+    public SingleFlight(Counter coalescedCounter) {
+        this.coalescedCounter = coalescedCounter;
+    }
+
+    public V execute(K key, Supplier<V> loader) {
+        CompletableFuture<V> call = new CompletableFuture<>();
+        CompletableFuture<V> existing = this.inFlight.putIfAbsent(key, call);
+        if (existing != null) {
+            if (this.coalescedCounter != null) {
+                this.coalescedCounter.increment();
+            }
+            return await(existing);
+        }
+        try {
+            V value = loader.get();
+            call.complete(value);
+            return value;
+        } catch (RuntimeException | Error e) {
+            call.completeExceptionally(e);
+            throw e;
+        } finally {
+            this.inFlight.remove(key, call);
+        }
+    }
+
+    private V await(CompletableFuture<V> call) {
+        try {
+            // 虚拟线程阻塞在 CompletableFuture 上不会钉住载体线程
+            return call.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException re) {
+                throw re;
+            }
+            if (e.getCause() instanceof Error err) {
+                throw err;
+            }
+            throw e;
+        }
+    }
+}
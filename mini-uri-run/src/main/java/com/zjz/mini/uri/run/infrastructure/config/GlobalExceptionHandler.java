@@ -2,11 +2,14 @@ package com.zjz.mini.uri.run.infrastructure.config;
 
 import com.zjz.mini.uri.framework.common.core.BusinessException;
 import com.zjz.mini.uri.framework.common.core.R;
+import com.zjz.mini.uri.run.infrastructure.ratelimit.RateLimitException;
 import jakarta.servlet.http.HttpServletRequest;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.context.support.DefaultMessageSourceResolvable;
+import org.springframework.http.HttpStatus;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.ResponseStatus;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
 
 import java.util.stream.Collectors;
@@ -26,6 +29,15 @@ public class GlobalExceptionHandler {
         return R.fail(500, ex.getMsg());
     }
 
+    /**
+     * 限流拒绝量可能很大，不打印堆栈
+     */
+    @ExceptionHandler(RateLimitException.class)
+    @ResponseStatus(HttpStatus.TOO_MANY_REQUESTS)
+    public R<?> handleRateLimitException(RateLimitException ex) {
+        return R.fail(HttpStatus.TOO_MANY_REQUESTS.value(), ex.getMsg());
+    }
+
     @ExceptionHandler(MethodArgumentNotValidException.class)
     public R<?> handleParamsValidationException(HttpServletRequest request, MethodArgumentNotValidException ex) {
         String message = ex.getBindingResult().getAllErrors().stream().map(DefaultMessageSourceResolvable::getDefaultMessage).collect(Collectors.joining());
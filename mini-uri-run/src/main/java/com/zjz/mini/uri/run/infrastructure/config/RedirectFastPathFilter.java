@@ -0,0 +1,113 @@
+package com.zjz.mini.uri.run.infrastructure.config;
+
+import com.zjz.mini.uri.run.application.MiniUriService;
+import com.zjz.mini.uri.run.infrastructure.aop.aspect.RateLimitAspect;
+import com.zjz.mini.uri.run.infrastructure.ratelimit.ClientIpResolver;
+import com.zjz.mini.uri.run.infrastructure.ratelimit.RateLimiterRegistry;
+import com.zjz.mini.uri.run.infrastructure.stats.ShortUrlClickCounter;
+import jakarta.annotation.Resource;
+import jakarta.servlet.*;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.util.Set;
+
+/**
+ * 短链跳转快速通道
+ * <p>
+ * 注册在所有过滤器之前，识别 /{shortUrl} 形式的请求，只查询缓存层（热点租约、本地缓存、快照索引、Redis），
+ * 命中时直接写 302 返回，不再经过 RequestFilter、拦截器与 DispatcherServlet。
+ * 不是短链路径或缓存未命中时交给原有 MVC 流程处理（含数据库回源）。
+ * 短链请求先经过 redirect 限流，超出时直接返回 429，回落到 MVC 时不再重复计数。
+ * 命中时记录一次点击，未命中由 MVC 跳转记录。
+ *
+ * @author hkz329
+ */
+@Slf4j
+@Component
+public class RedirectFastPathFilter implements Filter {
+
+    /**
+     * 短链最大长度
+     */
+    private static final int MAX_CODE_LENGTH = 32;
+
+    /**
+     * 与短链格式相同的保留路径
+     */
+    private static final Set<String> RESERVED = Set.of("generate", "stats", "index", "error", "actuator", "manage", "static");
+
+    @Value("${miniuri.redirect.fast-path.enabled:true}")
+    private boolean enabled;
+
+    @Resource
+    private MiniUriService miniUriService;
+
+    @Resource
+    private RateLimiterRegistry rateLimiterRegistry;
+
+    @Resource
+    private ClientIpResolver clientIpResolver;
+
+    @Resource
+    private ShortUrlClickCounter shortUrlClickCounter;
+
+    @Override
+    public void doFilter(ServletRequest servletRequest, ServletResponse servletResponse, FilterChain filterChain)
+            throws IOException, ServletException {
+        HttpServletRequest request = (HttpServletRequest) servletRequest;
+        String shortUrl = enabled ? extractShortUrl(request) : null;
+        if (shortUrl != null) {
+            request.setAttribute(RateLimitAspect.CHECKED_ATTRIBUTE, Boolean.TRUE);
+            if (!this.rateLimiterRegistry.tryAcquire("redirect", this.clientIpResolver.resolve(request), null)) {
+                HttpServletResponse response = (HttpServletResponse) servletResponse;
+                response.setStatus(429);
+                response.setHeader("Retry-After", "1");
+                return;
+            }
+            String longUrl = null;
+            try {
+                longUrl = this.miniUriService.redirectFromCache(shortUrl);
+            } catch (Exception e) {
+                // 缓存层异常交给 MVC 流程兜底
+                log.warn("fast path redirect failed, shortUrl:{}", shortUrl, e);
+            }
+            if (longUrl != null) {
+                this.shortUrlClickCounter.record(shortUrl);
+                HttpServletResponse response = (HttpServletResponse) servletResponse;
+                response.setStatus(HttpServletResponse.SC_MOVED_TEMPORARILY);
+                response.setHeader("Location", longUrl);
+                return;
+            }
+        }
+        filterChain.doFilter(servletRequest, servletResponse);
+    }
+
+    /**
+     * 只接受 GET/HEAD 且路径为单段 base62 字符，否则返回 null
+     */
+    private static String extractShortUrl(HttpServletRequest request) {
+        String method = request.getMethod();
+        if (!"GET".equals(method) && !"HEAD".equals(method)) {
+            return null;
+        }
+        String uri = request.getRequestURI();
+        int start = request.getContextPath().length() + 1;
+        int length = uri.length() - start;
+        if (length <= 0 || length > MAX_CODE_LENGTH || uri.charAt(start - 1) != '/') {
+            return null;
+        }
+        for (int i = start; i < uri.length(); i++) {
+            char c = uri.charAt(i);
+            if (!((c >= '0' && c <= '9') || (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z'))) {
+                return null;
+            }
+        }
+        String shortUrl = uri.substring(start);
+        return RESERVED.contains(shortUrl) ? null : shortUrl;
+    }
+}
@@ -53,15 +53,33 @@ public class TreadPoolTaskConfig {
         executor.setThreadNamePrefix("db-task-");
         // 数据库操作拒绝策略：调用者运行，避免任务丢失
         executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
-        // 等待所有任务结束后再关闭线程池
+        // 等待所有任务结束后再关闭线程池，最多等待 60 秒
         executor.setWaitForTasksToCompleteOnShutdown(true);
-        executor.setAwaitTerminationMillis(60);
+        executor.setAwaitTerminationSeconds(60);
         // 允许核心线程超时，提高资源利用率
         executor.setAllowCoreThreadTimeOut(true);
         executor.initialize();
         return executor;
     }
 
+    /**
+     * 缓存预刷新线程池
+     * 特点：有界、队列满时拒绝（跳过本次刷新即可，不影响请求）
+     */
+    @Bean("cacheRefreshExecutor")
+    public ThreadPoolTaskExecutor cacheRefreshExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(Math.max(2, cpuNum / 2));
+        executor.setMaxPoolSize(cpuNum);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setKeepAliveSeconds(keepAliveTime);
+        executor.setThreadNamePrefix("cache-refresh-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.AbortPolicy());
+        executor.setAllowCoreThreadTimeOut(true);
+        executor.initialize();
+        return executor;
+    }
+
     /**
      * 通用任务执行器（保持兼容性）
      * 实际指向数据库任务执行器
@@ -2,7 +2,10 @@ package com.zjz.mini.uri.run.infrastructure.config;
 
 import com.zjz.mini.uri.run.infrastructure.interceptor.VisitorStatsInterceptor;
 import jakarta.annotation.Resource;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
 import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
 
@@ -15,6 +18,17 @@ public class WebMvcConfig implements WebMvcConfigurer {
     @Resource
     private VisitorStatsInterceptor visitorStatsInterceptor;
 
+    /**
+     * 短链跳转快速通道，排在所有过滤器之前
+     */
+    @Bean
+    public FilterRegistrationBean<RedirectFastPathFilter> redirectFastPathFilterRegistration(RedirectFastPathFilter filter) {
+        FilterRegistrationBean<RedirectFastPathFilter> registration = new FilterRegistrationBean<>(filter);
+        registration.addUrlPatterns("/*");
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE);
+        return registration;
+    }
+
     @Override
     public void addInterceptors(InterceptorRegistry registry) {
         // 注册访问统计拦截器
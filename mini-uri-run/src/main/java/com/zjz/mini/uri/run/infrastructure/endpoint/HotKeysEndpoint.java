@@ -0,0 +1,28 @@
+package com.zjz.mini.uri.run.infrastructure.endpoint;
+
+import com.zjz.mini.uri.run.infrastructure.cache.HotKeyDetector;
+import jakarta.annotation.Resource;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * 热点短链监控端点
+ * GET /manage/hotkeys 查看当前热点及本地固定情况，便于故障时排查
+ *
+ * @author hkz329
+ */
+@Component
+@Endpoint(id = "hotkeys")
+public class HotKeysEndpoint {
+
+    @Resource
+    private HotKeyDetector hotKeyDetector;
+
+    @ReadOperation
+    public List<HotKeyDetector.HotKey> hotKeys() {
+        return hotKeyDetector.snapshot();
+    }
+}
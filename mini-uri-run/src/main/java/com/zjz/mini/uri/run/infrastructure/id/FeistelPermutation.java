@@ -0,0 +1,76 @@
+package com.zjz.mini.uri.run.infrastructure.id;
+
+/**
+ * 基于 Feistel 网络的整数置换
+ * <p>
+ * 把 [0, domain) 内的整数一一映射到 [0, domain)：先在覆盖 domain 的最小偶数位宽上做平衡 Feistel，
+ * 结果超出 domain 时继续迭代（cycle-walking），直到落回区间内。
+ * 顺序的计数器经过置换后不可预测，且天然无重复。
+ *
+ * @author hkz329
+ */
+public class FeistelPermutation {
+
+    private static final int ROUNDS = 4;
+
+    private final long domain;
+
+    private final int halfBits;
+
+    private final long halfMask;
+
+    private final long[] roundKeys = new long[ROUNDS];
+
+    /**
+     * @param domain 值域大小
+     * @param secret 置换密钥，不同密钥得到不同的置换
+     */
+    public FeistelPermutation(long domain, long secret) {
+        if (domain < 2) {
+            throw new IllegalArgumentException("domain must be greater than 1");
+        }
+        int bits = 64 - Long.numberOfLeadingZeros(domain - 1);
+        this.domain = domain;
+        this.halfBits = (bits + 1) / 2;
+        this.halfMask = (1L << halfBits) - 1;
+        long k = secret;
+        for (int i = 0; i < ROUNDS; i++) {
+            k = mix(k + 0x9e3779b97f4a7c15L);
+            roundKeys[i] = k;
+        }
+    }
+
+    public long permute(long value) {
+        if (value < 0 || value >= domain) {
+            throw new IllegalArgumentException("value out of domain: " + value);
+        }
+        long x = value;
+        do {
+            x = encrypt(x);
+        } while (x >= domain);
+        return x;
+    }
+
+    private long encrypt(long x) {
+        long left = x >>> halfBits;
+        long right = x & halfMask;
+        for (int i = 0; i < ROUNDS; i++) {
+            long next = left ^ (mix(right ^ roundKeys[i]) & halfMask);
+            left = right;
+            right = next;
+        }
+        return (left << halfBits) | right;
+    }
+
+    /**
+     * murmur3 fmix64
+     */
+    private static long mix(long k) {
+        k ^= k >>> 33;
+        k *= 0xff51afd7ed558ccdL;
+        k ^= k >>> 33;
+        k *= 0xc4ceb9fe1a85ec53L;
+        k ^= k >>> 33;
+        return k;
+    }
+}
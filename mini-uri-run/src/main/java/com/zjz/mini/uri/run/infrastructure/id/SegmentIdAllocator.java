@@ -0,0 +1,141 @@
+package com.zjz.mini.uri.run.infrastructure.id;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.IntToLongFunction;
+
+/**
+ * 号段 id 分配器（双缓冲）
+ * <p>
+ * 每次从序列表租用一段连续 id 在本地递增分配，当前号段消耗到 preloadRatio 时
+ * 在后台预取下一号段，号段用完时直接切换，分配过程不访问数据库。
+ * 进程重启会丢弃未用完的号段，id 不连续但不会重复。
+ * 切换号段时可能等待预取结果，使用 ReentrantLock 而不是 synchronized，避免虚拟线程被钉住。
+ *
+ * @author hkz329
+ */
+@Slf4j
+public class SegmentIdAllocator {
+
+    private final String name;
+
+    private final int step;
+
+    private final double preloadRatio;
+
+    /**
+     * 租用号段：入参为步长，返回号段上界（含）
+     */
+    private final IntToLongFunction leaser;
+
+    private final Executor executor;
+
+    private volatile Segment current;
+
+    private volatile CompletableFuture<Segment> next;
+
+    private final ReentrantLock lock = new ReentrantLock();
+
+    /**
+     * @param name         名称，用于日志
+     * @param step         号段长度
+     * @param preloadRatio 当前号段消耗到该比例时预取下一号段
+     * @param leaser       租用号段，返回号段上界（含）
+     * @param executor     预取执行器
+     */
+    public SegmentIdAllocator(String name, int step, double preloadRatio, IntToLongFunction leaser, Executor executor) {
+        this.name = name;
+        this.step = step;
+        this.preloadRatio = preloadRatio;
+        this.leaser = leaser;
+        this.executor = executor;
+    }
+
+    public long nextId() {
+        while (true) {
+            Segment segment = this.current;
+            if (segment != null) {
+                long id = segment.cursor.getAndIncrement();
+                if (id <= segment.max) {
+                    if (id == segment.preloadAt) {
+                        // 只有恰好取到阈值的线程触发预取
+                        preloadNext();
+                    }
+                    return id;
+                }
+            }
+            switchSegment(segment);
+        }
+    }
+
+    /**
+     * 当前号段剩余可分配数量
+     */
+    public long remaining() {
+        Segment segment = this.current;
+        return segment == null ? 0 : Math.max(0, segment.max - segment.cursor.get() + 1);
+    }
+
+    private void preloadNext() {
+        lock.lock();
+        try {
+            if (this.next == null) {
+                this.next = CompletableFuture.supplyAsync(this::lease, this.executor);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void switchSegment(Segment exhausted) {
+        lock.lock();
+        try {
+            if (this.current != exhausted) {
+                // 其他线程已切换
+                return;
+            }
+            CompletableFuture<Segment> preloaded = this.next;
+            this.next = null;
+            Segment segment = null;
+            if (preloaded != null) {
+                try {
+                    segment = preloaded.join();
+                } catch (CompletionException e) {
+                    log.warn("preload id segment failed, name:{}", name, e.getCause());
+                }
+            }
+            this.current = segment != null ? segment : lease();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private Segment lease() {
+        long start = System.currentTimeMillis();
+        long max = this.leaser.applyAsLong(this.step);
+        Segment segment = new Segment(max - this.step + 1, max, preloadRatio);
+        log.info("id segment leased, name:{}, range:[{}, {}], cost:{}ms", name, segment.cursor.get(), max,
+                System.currentTimeMillis() - start);
+        return segment;
+    }
+
+    private static final class Segment {
+
+        private final AtomicLong cursor;
+
+        private final long max;
+
+        private final long preloadAt;
+
+        private Segment(long min, long max, double preloadRatio) {
+            this.cursor = new AtomicLong(min);
+            this.max = max;
+            this.preloadAt = min + (long) ((max - min) * preloadRatio);
+        }
+    }
+}
@@ -0,0 +1,141 @@
+package com.zjz.mini.uri.run.infrastructure.id;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
+
+/**
+ * 预生成短链池
+ * <p>
+ * 后台按批次铸造短链放入本地队列，取用时只做一次出队。
+ * 队列深度低于水位线时触发后台补充，直到填满；队列为空时在调用线程上同步铸造一批兜底。
+ *
+ * @author hkz329
+ */
+@Slf4j
+public class ShortCodePool {
+
+    private final String name;
+
+    private final BlockingQueue<String> queue;
+
+    private final int lowWatermark;
+
+    /**
+     * 铸造一批全局唯一的短链
+     */
+    private final Supplier<List<String>> minter;
+
+    private final Executor executor;
+
+    private final AtomicBoolean refilling = new AtomicBoolean();
+
+    private final Timer refillTimer;
+
+    private final Counter exhaustedCounter;
+
+    /**
+     * @param name         名称，作为指标标签
+     * @param capacity     队列容量
+     * @param lowWatermark 低水位线
+     * @param minter       铸造一批短链
+     * @param executor     补充执行器
+     */
+    public ShortCodePool(String name, int capacity, int lowWatermark, Supplier<List<String>> minter,
+                         Executor executor, MeterRegistry meterRegistry) {
+        this.name = name;
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.lowWatermark = lowWatermark;
+        this.minter = minter;
+        this.executor = executor;
+        Gauge.builder("miniuri.generate.pool.depth", queue, BlockingQueue::size)
+                .description("短链池剩余数量")
+                .tag("pool", name)
+                .register(meterRegistry);
+        this.refillTimer = Timer.builder("miniuri.generate.pool.refill.latency")
+                .description("短链池补充一批的耗时")
+                .tag("pool", name)
+                .register(meterRegistry);
+        this.exhaustedCounter = Counter.builder("miniuri.generate.pool.exhausted")
+                .description("短链池为空时同步铸造的次数")
+                .tag("pool", name)
+                .register(meterRegistry);
+    }
+
+    /**
+     * 取一个短链
+     */
+    public String take() {
+        String code = queue.poll();
+        if (code == null) {
+            // 补充跟不上，同步铸造一批，多余的放回池中
+            exhaustedCounter.increment();
+            List<String> batch = mint();
+            code = batch.get(0);
+            for (int i = 1; i < batch.size(); i++) {
+                if (!queue.offer(batch.get(i))) {
+                    break;
+                }
+            }
+        }
+        if (queue.size() < lowWatermark) {
+            refillAsync();
+        }
+        return code;
+    }
+
+    public int depth() {
+        return queue.size();
+    }
+
+    /**
+     * 触发后台补充，已在补充中则忽略
+     */
+    public void refillAsync() {
+        if (!refilling.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            executor.execute(() -> {
+                try {
+                    while (queue.remainingCapacity() > 0) {
+                        List<String> batch = mint();
+                        for (String code : batch) {
+                            // 队列已满时丢弃剩余短链，号段不回收，只是浪费部分 id
+                            if (!queue.offer(code)) {
+                                break;
+                            }
+                        }
+                    }
+                } catch (Exception e) {
+                    log.error("refill short code pool failed, pool:{}", name, e);
+                } finally {
+                    refilling.set(false);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            refilling.set(false);
+            log.warn("refill short code pool rejected, pool:{}", name);
+        }
+    }
+
+    private List<String> mint() {
+        long start = System.nanoTime();
+        try {
+            return minter.get();
+        } finally {
+            refillTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+}
@@ -0,0 +1,489 @@
+package com.zjz.mini.uri.run.infrastructure.persistence;
+
+import com.zjz.mini.uri.run.domain.entity.UrlMapping;
+import com.zjz.mini.uri.run.domain.repository.UrlMappingRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.annotation.Resource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+/**
+ * 待入库映射的本地预写日志
+ * <p>
+ * 映射进入写后队列前先追加到日志文件，由同步线程每 syncIntervalMillis 统一 fsync 一次（组提交），
+ * 追加方等待所在批次落盘后返回，进程崩溃后仍可恢复；落盘失败或超时抛出 {@link SyncFailedException}，由调用方同步入库。
+ * 写后队列确认入库后回调 {@link #confirm(long)}，已关闭且全部确认的日志段直接删除。
+ * 启动时重放残留日志段写入 url_mapping（insert ignore，可重复执行，不覆盖已存在的短链）后删除。
+ * <p>
+ * 记录格式：[长度 int][crc32c int][序号 long][buildType byte][过期时间 long][短链长度 short][短链][长链接长度 int][长链接]
+ *
+ * @author hkz329
+ */
+@Slf4j
+@Component
+public class MappingJournal {
+
+    private static final String SEGMENT_PREFIX = "journal-";
+
+    private static final String SEGMENT_SUFFIX = ".log";
+
+    private static final int HEADER_BYTES = 8;
+
+    private static final long NO_EXPIRE = Long.MIN_VALUE;
+
+    private static final int REPLAY_BATCH = 500;
+
+    @Value("${miniuri.persist.journal.enabled:true}")
+    private boolean enabled;
+
+    @Value("${miniuri.persist.journal.dir:data/journal}")
+    private String dir;
+
+    @Value("${miniuri.persist.journal.sync-interval-millis:2}")
+    private long syncIntervalMillis;
+
+    @Value("${miniuri.persist.journal.segment-bytes:67108864}")
+    private long segmentBytes;
+
+    /**
+     * 全部确认的活动段超过该时间后切换，使其可以删除
+     */
+    @Value("${miniuri.persist.journal.roll-interval-millis:60000}")
+    private long rollIntervalMillis;
+
+    @Value("${miniuri.persist.journal.append-timeout-millis:1000}")
+    private long appendTimeoutMillis;
+
+    @Resource
+    private UrlMappingRepository urlMappingRepository;
+
+    @Resource
+    private RedisTemplate<String, Object> redisTemplate;
+
+    @Resource
+    private MeterRegistry meterRegistry;
+
+    private final ReentrantLock lock = new ReentrantLock();
+
+    /**
+     * 首个序号 -> 日志段
+     */
+    private final ConcurrentSkipListMap<Long, Segment> segments = new ConcurrentSkipListMap<>();
+
+    private final AtomicLong nextSeq = new AtomicLong(1);
+
+    private Segment active;
+
+    /**
+     * 当前组提交批次，fsync 完成后完成该 future
+     */
+    private CompletableFuture<Void> pendingSync = new CompletableFuture<>();
+
+    private boolean dirty;
+
+    private volatile boolean running;
+
+    private Thread syncer;
+
+    private Timer syncTimer;
+
+    private Counter syncFailedCounter;
+
+    @PostConstruct
+    public void init() throws IOException {
+        Gauge.builder("miniuri.persist.journal.lag", this, MappingJournal::lag)
+                .description("已写入日志但尚未确认入库的映射数量")
+                .register(meterRegistry);
+        Gauge.builder("miniuri.persist.journal.segments", segments, Map::size)
+                .description("磁盘上的日志段数量")
+                .register(meterRegistry);
+        this.syncTimer = Timer.builder("miniuri.persist.journal.sync.latency")
+                .description("组提交 fsync 耗时")
+                .register(meterRegistry);
+        this.syncFailedCounter = Counter.builder("miniuri.persist.journal.sync.failed")
+                .description("写入或落盘失败、等待超时的追加次数")
+                .register(meterRegistry);
+        if (!enabled) {
+            return;
+        }
+        Path directory = Paths.get(dir);
+        Files.createDirectories(directory);
+        replay(directory);
+        this.active = openSegment(directory, nextSeq.get());
+        this.running = true;
+        this.syncer = Thread.ofPlatform().name("mapping-journal-sync").daemon().start(this::syncLoop);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (!enabled) {
+            return;
+        }
+        this.running = false;
+        try {
+            this.syncer.join(TimeUnit.SECONDS.toMillis(5));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        lock.lock();
+        try {
+            sync();
+            // 写后队列已在此前排空，全部确认的段直接删除，下次启动无需重放
+            for (Segment segment : segments.values()) {
+                segment.closed = true;
+                segment.channel.close();
+                deleteIfConfirmed(segment);
+            }
+        } catch (IOException e) {
+            log.warn("close mapping journal failed", e);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 追加一条映射并等待组提交落盘
+     *
+     * @return 日志序号，未启用时返回 0
+     * @throws SyncFailedException 写入、落盘失败或等待超时，映射不能依赖日志恢复
+     */
+    public long append(UrlMapping urlMapping) {
+        if (!enabled || !running) {
+            return 0;
+        }
+        ByteBuffer record = encode(urlMapping);
+        long seq;
+        CompletableFuture<Void> synced;
+        // 本条记录在活动段中的起始位置，写入失败时截断到该位置
+        long position = -1;
+        lock.lock();
+        try {
+            seq = nextSeq.getAndIncrement();
+            record.putLong(HEADER_BYTES, seq);
+            CRC32C crc = new CRC32C();
+            crc.update(record.slice(HEADER_BYTES, record.limit() - HEADER_BYTES));
+            record.putInt(4, (int) crc.getValue());
+            if (active.channel.size() + record.limit() > segmentBytes) {
+                rollSegment(seq);
+            }
+            position = active.channel.size();
+            while (record.hasRemaining()) {
+                active.channel.write(record);
+            }
+            active.appended.incrementAndGet();
+            dirty = true;
+            synced = pendingSync;
+        } catch (IOException e) {
+            // 记录未完整写入，不计入日志段，无需确认；截断残留字节，否则之后的记录在重放时随校验失败一起丢失
+            if (position >= 0) {
+                discardTorn(position);
+            }
+            syncFailedCounter.increment();
+            throw new SyncFailedException(0, e);
+        } finally {
+            lock.unlock();
+        }
+        try {
+            synced.get(appendTimeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            syncFailedCounter.increment();
+            throw new SyncFailedException(seq, e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            syncFailedCounter.increment();
+            throw new SyncFailedException(seq, e);
+        } catch (ExecutionException e) {
+            syncFailedCounter.increment();
+            throw new SyncFailedException(seq, e.getCause());
+        }
+        return seq;
+    }
+
+    /**
+     * 截断写入失败的残留字节，截断失败时切换到新的日志段，需持有 lock
+     */
+    private void discardTorn(long position) {
+        try {
+            active.channel.truncate(position);
+        } catch (IOException e) {
+            log.warn("truncate torn journal record failed, roll segment, path:{}", active.path, e);
+            try {
+                rollSegment(nextSeq.get());
+            } catch (IOException re) {
+                log.error("roll mapping journal segment failed", re);
+            }
+        }
+    }
+
+    /**
+     * 确认已入库
+     */
+    public void confirm(long seq) {
+        if (seq <= 0) {
+            return;
+        }
+        Map.Entry<Long, Segment> entry = segments.floorEntry(seq);
+        if (null == entry) {
+            return;
+        }
+        Segment segment = entry.getValue();
+        segment.confirmed.incrementAndGet();
+        if (segment.closed) {
+            deleteIfConfirmed(segment);
+        }
+    }
+
+    /**
+     * 尚未确认入库的映射数量
+     */
+    public long lag() {
+        long lag = 0;
+        for (Segment segment : segments.values()) {
+            lag += segment.appended.get() - segment.confirmed.get();
+        }
+        return lag;
+    }
+
+    private void syncLoop() {
+        while (running) {
+            try {
+                Thread.sleep(syncIntervalMillis);
+                lock.lock();
+                try {
+                    sync();
+                    if (active.appended.get() > 0 && active.appended.get() == active.confirmed.get()
+                            && System.currentTimeMillis() - active.createdAt > rollIntervalMillis) {
+                        rollSegment(nextSeq.get());
+                    }
+                } finally {
+                    lock.unlock();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Exception e) {
+                log.error("mapping journal sync loop error", e);
+            }
+        }
+    }
+
+    /**
+     * fsync 并完成当前组提交批次，需持有 lock
+     */
+    private void sync() throws IOException {
+        if (!dirty) {
+            return;
+        }
+        long start = System.nanoTime();
+        CompletableFuture<Void> completing = pendingSync;
+        try {
+            active.channel.force(false);
+            completing.complete(null);
+        } catch (IOException e) {
+            completing.completeExceptionally(e);
+            throw e;
+        } finally {
+            pendingSync = new CompletableFuture<>();
+            dirty = false;
+            syncTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    /**
+     * 落盘并关闭活动段，开启新段，需持有 lock
+     */
+    private void rollSegment(long firstSeq) throws IOException {
+        sync();
+        Segment closing = active;
+        closing.closed = true;
+        closing.channel.close();
+        this.active = openSegment(closing.path.getParent(), firstSeq);
+        deleteIfConfirmed(closing);
+    }
+
+    private Segment openSegment(Path directory, long firstSeq) throws IOException {
+        Path path = directory.resolve(String.format("%s%020d%s", SEGMENT_PREFIX, firstSeq, SEGMENT_SUFFIX));
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        Segment segment = new Segment(path, channel);
+        segments.put(firstSeq, segment);
+        return segment;
+    }
+
+    private void deleteIfConfirmed(Segment segment) {
+        if (segment.confirmed.get() < segment.appended.get() || !segment.deleted.compareAndSet(false, true)) {
+            return;
+        }
+        segments.values().remove(segment);
+        try {
+            Files.deleteIfExists(segment.path);
+        } catch (IOException e) {
+            log.warn("delete mapping journal segment failed, path:{}", segment.path, e);
+        }
+    }
+
+    /**
+     * 重放残留日志段，遇到不完整或校验失败的记录即停止读取该段（崩溃时未写完的尾部）
+     */
+    private void replay(Path directory) throws IOException {
+        List<Path> files;
+        try (Stream<Path> stream = Files.list(directory)) {
+            files = stream.filter(p -> p.getFileName().toString().startsWith(SEGMENT_PREFIX)).sorted().toList();
+        }
+        if (files.isEmpty()) {
+            return;
+        }
+        long start = System.currentTimeMillis();
+        long replayed = 0;
+        long maxSeq = 0;
+        for (Path file : files) {
+            List<UrlMapping> batch = new ArrayList<>(REPLAY_BATCH);
+            ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(file));
+            while (buffer.remaining() >= HEADER_BYTES) {
+                int length = buffer.getInt(buffer.position());
+                int checksum = buffer.getInt(buffer.position() + 4);
+                if (length < HEADER_BYTES || buffer.remaining() < length) {
+                    log.warn("mapping journal truncated record, file:{}, offset:{}", file, buffer.position());
+                    break;
+                }
+                ByteBuffer body = buffer.slice(buffer.position() + HEADER_BYTES, length - HEADER_BYTES);
+                CRC32C crc = new CRC32C();
+                crc.update(body.duplicate());
+                if ((int) crc.getValue() != checksum) {
+                    log.warn("mapping journal checksum mismatch, file:{}, offset:{}", file, buffer.position());
+                    break;
+                }
+                maxSeq = Math.max(maxSeq, body.getLong(0));
+                batch.add(decode(body));
+                buffer.position(buffer.position() + length);
+                if (batch.size() >= REPLAY_BATCH) {
+                    replayBatch(batch);
+                    replayed += batch.size();
+                    batch.clear();
+                }
+            }
+            if (!batch.isEmpty()) {
+                replayBatch(batch);
+                replayed += batch.size();
+            }
+            Files.delete(file);
+        }
+        nextSeq.set(maxSeq + 1);
+        log.info("mapping journal replayed, files:{}, records:{}, cost:{}ms", files.size(), replayed, System.currentTimeMillis() - start);
+    }
+
+    /**
+     * 写入一批重放记录，短链已被其他映射占用时保留库中映射并清除缓存
+     */
+    private void replayBatch(List<UrlMapping> batch) {
+        for (UrlMapping conflict : urlMappingRepository.insertBatch(batch)) {
+            log.error("mapping journal replay conflict, shortUrl already mapped to another long URL, removing from Redis. shortUrl:{}, longUrl:{}",
+                    conflict.getShortUrl(), conflict.getLongUrl());
+            redisTemplate.delete(conflict.getShortUrl());
+        }
+    }
+
+    private static ByteBuffer encode(UrlMapping urlMapping) {
+        byte[] shortUrl = urlMapping.getShortUrl().getBytes(StandardCharsets.UTF_8);
+        byte[] longUrl = urlMapping.getLongUrl().getBytes(StandardCharsets.UTF_8);
+        int length = HEADER_BYTES + 8 + 1 + 8 + 8 + 2 + shortUrl.length + 4 + longUrl.length;
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        buffer.putInt(length).putInt(0).putLong(0)
+                .put(urlMapping.getBuildType().byteValue())
+                .putLong(null == urlMapping.getExpireTime() ? NO_EXPIRE : urlMapping.getExpireTime().atZone(ZoneId.systemDefault()).toEpochSecond())
+                .putLong(null == urlMapping.getUrlFingerprint() ? 0 : urlMapping.getUrlFingerprint())
+                .putShort((short) shortUrl.length).put(shortUrl)
+                .putInt(longUrl.length).put(longUrl);
+        return buffer.flip();
+    }
+
+    private static UrlMapping decode(ByteBuffer body) {
+        body.position(8);
+        int buildType = body.get();
+        long expire = body.getLong();
+        long fingerprint = body.getLong();
+        byte[] shortUrl = new byte[body.getShort()];
+        body.get(shortUrl);
+        byte[] longUrl = new byte[body.getInt()];
+        body.get(longUrl);
+        return new UrlMapping()
+                .setShortUrl(new String(shortUrl, StandardCharsets.UTF_8))
+                .setLongUrl(new String(longUrl, StandardCharsets.UTF_8))
+                .setBuildType(buildType)
+                .setUrlFingerprint(fingerprint)
+                .setExpireTime(expire == NO_EXPIRE ? null : LocalDateTime.ofInstant(Instant.ofEpochSecond(expire), ZoneId.systemDefault()));
+    }
+
+    /**
+     * 追加未能确认落盘
+     */
+    public static class SyncFailedException extends RuntimeException {
+
+        private final long seq;
+
+        public SyncFailedException(long seq, Throwable cause) {
+            super("mapping journal sync failed, seq:" + seq, cause);
+            this.seq = seq;
+        }
+
+        /**
+         * 已写入日志的序号，入库后仍需确认；记录未写入时为 0
+         */
+        public long seq() {
+            return seq;
+        }
+    }
+
+    private static final class Segment {
+
+        private final Path path;
+
+        private final FileChannel channel;
+
+        private final long createdAt = System.currentTimeMillis();
+
+        private final AtomicLong appended = new AtomicLong();
+
+        private final AtomicLong confirmed = new AtomicLong();
+
+        private final AtomicBoolean deleted = new AtomicBoolean();
+
+        private volatile boolean closed;
+
+        private Segment(Path path, FileChannel channel) {
+            this.path = path;
+            this.channel = channel;
+        }
+    }
+}
@@ -0,0 +1,259 @@
+package com.zjz.mini.uri.run.infrastructure.persistence;
+
+import com.zjz.mini.uri.run.domain.entity.UrlMapping;
+import com.zjz.mini.uri.run.domain.repository.UrlMappingRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.Resource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * url_mapping 写后队列
+ * <p>
+ * 生成短链后只把映射放入有界队列，由单个写线程按数量或时间凑批，
+ * 同一短链在批内只写入一次，每批一条多行 insert ignore，已存在的短链不覆盖。
+ * 队列满时等待 offerTimeoutMillis，仍满则在调用线程上同步写入单条。
+ * 停机时在 Web 服务停止接收请求之后排空队列再退出。
+ * 入队前先写入本地预写日志 {@link MappingJournal}，入库后确认，进程崩溃时未入库的映射在下次启动时重放；
+ * 日志未能落盘时不入队，在调用线程上同步写入。
+ *
+ * @author hkz329
+ */
+@Slf4j
+@Component
+public class UrlMappingWriteBehind implements SmartLifecycle {
+
+    @Value("${miniuri.persist.queue-capacity:20000}")
+    private int queueCapacity;
+
+    @Value("${miniuri.persist.batch-size:500}")
+    private int batchSize;
+
+    @Value("${miniuri.persist.flush-interval-millis:50}")
+    private long flushIntervalMillis;
+
+    @Value("${miniuri.persist.offer-timeout-millis:100}")
+    private long offerTimeoutMillis;
+
+    @Value("${miniuri.persist.shutdown-timeout-millis:30000}")
+    private long shutdownTimeoutMillis;
+
+    @Resource
+    private UrlMappingRepository urlMappingRepository;
+
+    @Resource
+    private RedisTemplate<String, Object> redisTemplate;
+
+    @Resource
+    private MeterRegistry meterRegistry;
+
+    @Resource
+    private MappingJournal mappingJournal;
+
+    private BlockingQueue<Pending> queue;
+
+    private Thread writer;
+
+    private volatile boolean running;
+
+    private DistributionSummary batchSizeSummary;
+
+    private Timer flushTimer;
+
+    private Counter overflowCounter;
+
+    private Counter failedCounter;
+
+    private Counter conflictCounter;
+
+    private Counter journalFallbackCounter;
+
+    @PostConstruct
+    public void init() {
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        Gauge.builder("miniuri.persist.queue.depth", queue, BlockingQueue::size)
+                .description("等待写入 url_mapping 的映射数量")
+                .register(meterRegistry);
+        this.batchSizeSummary = DistributionSummary.builder("miniuri.persist.batch.size")
+                .description("每批写入的行数（合并后）")
+                .register(meterRegistry);
+        this.flushTimer = Timer.builder("miniuri.persist.flush.latency")
+                .description("每批写入耗时")
+                .register(meterRegistry);
+        this.overflowCounter = Counter.builder("miniuri.persist.overflow")
+                .description("队列已满在调用线程上同步写入的次数")
+                .register(meterRegistry);
+        this.failedCounter = Counter.builder("miniuri.persist.failed")
+                .description("写入失败并已清除缓存的映射数量")
+                .register(meterRegistry);
+        this.conflictCounter = Counter.builder("miniuri.persist.conflict")
+                .description("短链已被其他映射占用、未写入并已清除缓存的映射数量")
+                .register(meterRegistry);
+        this.journalFallbackCounter = Counter.builder("miniuri.persist.journal.fallback")
+                .description("预写日志未能落盘、在调用线程上同步写入的次数")
+                .register(meterRegistry);
+    }
+
+    /**
+     * 放入写后队列，预写日志未能落盘时在调用线程上同步写入
+     */
+    public void enqueue(UrlMapping urlMapping) {
+        Pending pending;
+        try {
+            pending = new Pending(urlMapping, this.mappingJournal.append(urlMapping));
+        } catch (MappingJournal.SyncFailedException e) {
+            this.journalFallbackCounter.increment();
+            log.warn("Mapping journal not durable, writing URL mapping synchronously. shortUrl: {}", urlMapping.getShortUrl(), e);
+            flush(List.of(new Pending(urlMapping, e.seq())));
+            return;
+        }
+        try {
+            if (this.running && this.queue.offer(pending, offerTimeoutMillis, TimeUnit.MILLISECONDS)) {
+                return;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        this.overflowCounter.increment();
+        flush(List.of(pending));
+    }
+
+    @Override
+    public void start() {
+        this.running = true;
+        this.writer = Thread.ofPlatform().name("url-mapping-writer").daemon().start(this::drainLoop);
+    }
+
+    /**
+     * 停止接收并排空队列
+     */
+    @Override
+    public void stop() {
+        this.running = false;
+        try {
+            this.writer.join(shutdownTimeoutMillis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (!this.queue.isEmpty()) {
+            log.error("url mapping write-behind queue not drained before shutdown, remaining:{}", this.queue.size());
+        } else {
+            log.info("url mapping write-behind queue drained");
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return this.running;
+    }
+
+    /**
+     * Web 服务在 DEFAULT_PHASE - 2048 停止（优雅停机为 - 1024），phase 更小的先启动、后停止，
+     * 保证 Web 服务停止之后才排空队列，停机时不再有新的映射进入
+     */
+    @Override
+    public int getPhase() {
+        return SmartLifecycle.DEFAULT_PHASE - 4096;
+    }
+
+    private void drainLoop() {
+        List<Pending> batch = new ArrayList<>(batchSize);
+        while (this.running || !this.queue.isEmpty()) {
+            try {
+                Pending first = this.queue.poll(flushIntervalMillis, TimeUnit.MILLISECONDS);
+                if (null == first) {
+                    continue;
+                }
+                batch.add(first);
+                // 凑满一批或等到 flushInterval
+                long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(flushIntervalMillis);
+                while (batch.size() < batchSize) {
+                    if (this.queue.drainTo(batch, batchSize - batch.size()) > 0) {
+                        continue;
+                    }
+                    long remaining = deadline - System.nanoTime();
+                    Pending next = remaining > 0 && this.running ? this.queue.poll(remaining, TimeUnit.NANOSECONDS) : null;
+                    if (null == next) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+                flush(batch);
+            } catch (InterruptedException e) {
+                // 停机时由 running 与队列状态决定是否退出
+                Thread.interrupted();
+            } catch (Exception e) {
+                log.error("url mapping write-behind loop error", e);
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    /**
+     * 同一短链只写入批内第一次出现的映射，整批 insert ignore，失败时逐条重试
+     * 短链已被其他映射占用（漏判的冲突）或仍写入失败时不覆盖原有映射，清除缓存使跳转回源到库中的映射
+     * 处理完成（包括放弃的行）后在预写日志中确认
+     */
+    private void flush(List<Pending> batch) {
+        Map<String, UrlMapping> coalesced = new LinkedHashMap<>();
+        List<UrlMapping> conflicts = new ArrayList<>();
+        for (Pending pending : batch) {
+            UrlMapping urlMapping = pending.urlMapping();
+            UrlMapping first = coalesced.putIfAbsent(urlMapping.getShortUrl(), urlMapping);
+            if (null != first && !first.getLongUrl().equals(urlMapping.getLongUrl())) {
+                conflicts.add(urlMapping);
+            }
+        }
+        List<UrlMapping> rows = new ArrayList<>(coalesced.values());
+        long start = System.nanoTime();
+        try {
+            conflicts.addAll(this.urlMappingRepository.insertBatch(rows));
+            this.batchSizeSummary.record(rows.size());
+        } catch (Exception e) {
+            log.warn("Batch insert of {} URL mappings failed, retrying one by one", rows.size(), e);
+            for (UrlMapping row : rows) {
+                try {
+                    conflicts.addAll(this.urlMappingRepository.insertBatch(List.of(row)));
+                } catch (Exception ex) {
+                    this.failedCounter.increment();
+                    log.error("Failed to add URL mapping to DB, removing from Redis. shortUrl: {}", row.getShortUrl(), ex);
+                    this.redisTemplate.delete(row.getShortUrl());
+                }
+            }
+        } finally {
+            this.flushTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+        for (UrlMapping conflict : conflicts) {
+            this.conflictCounter.increment();
+            log.error("Short URL already mapped to another long URL, removing from Redis. shortUrl: {}, longUrl: {}",
+                    conflict.getShortUrl(), conflict.getLongUrl());
+            this.redisTemplate.delete(conflict.getShortUrl());
+        }
+        for (Pending pending : batch) {
+            this.mappingJournal.confirm(pending.journalSeq());
+        }
+    }
+
+    /**
+     * 队列元素：映射及其预写日志序号
+     */
+    private record Pending(UrlMapping urlMapping, long journalSeq) {
+    }
+}
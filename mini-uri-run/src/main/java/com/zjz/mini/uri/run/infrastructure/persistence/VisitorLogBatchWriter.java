@@ -0,0 +1,252 @@
+package com.zjz.mini.uri.run.infrastructure.persistence;
+
+import com.zjz.mini.uri.run.domain.dao.VisitorLogMapper;
+import com.zjz.mini.uri.run.domain.entity.VisitorLog;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.Resource;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.ibatis.session.ExecutorType;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.mybatis.spring.SqlSessionTemplate;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * visitor_log 批量写入
+ * <p>
+ * 访问日志放入有界队列，由单个写线程按数量或时间凑批；每批在 TransactionTemplate 的一个事务内
+ * 通过 BATCH 执行器的 SqlSessionTemplate 写入（连接池为 auto-commit，直接打开的会话 commit/rollback 不生效），
+ * 连接串开启 rewriteBatchedStatements 时驱动会改写为多行 insert。失败时整批回滚后重试，
+ * 重试用尽则丢弃并计数。访问日志只用于分析，队列满时直接丢弃，不阻塞请求线程。
+ * 日志补录等已有整批数据的场景调用 {@link #writeAll} 在调用线程上分批写入。
+ *
+ * @author hkz329
+ */
+@Slf4j
+@Component
+public class VisitorLogBatchWriter implements SmartLifecycle {
+
+    @Value("${miniuri.stats.visitor-log.queue-capacity:50000}")
+    private int queueCapacity;
+
+    @Value("${miniuri.stats.visitor-log.batch-size:1000}")
+    private int batchSize;
+
+    @Value("${miniuri.stats.visitor-log.flush-interval-millis:1000}")
+    private long flushIntervalMillis;
+
+    @Value("${miniuri.stats.visitor-log.max-attempts:3}")
+    private int maxAttempts;
+
+    @Value("${miniuri.stats.visitor-log.retry-backoff-millis:200}")
+    private long retryBackoffMillis;
+
+    @Resource
+    private SqlSessionFactory sqlSessionFactory;
+
+    @Resource
+    private TransactionTemplate transactionTemplate;
+
+    @Resource
+    private MeterRegistry meterRegistry;
+
+    /**
+     * BATCH 执行器，会话绑定到当前事务
+     */
+    private SqlSessionTemplate batchSqlSession;
+
+    private BlockingQueue<VisitorLog> queue;
+
+    private Thread writer;
+
+    private volatile boolean running;
+
+    private DistributionSummary batchSizeSummary;
+
+    private Timer flushTimer;
+
+    private Counter droppedCounter;
+
+    private Counter retryCounter;
+
+    private Counter failedCounter;
+
+    @PostConstruct
+    public void init() {
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.batchSqlSession = new SqlSessionTemplate(sqlSessionFactory, ExecutorType.BATCH);
+        Gauge.builder("miniuri.visitor.log.queue.depth", queue, BlockingQueue::size)
+                .description("等待写入 visitor_log 的日志数量")
+                .register(meterRegistry);
+        this.batchSizeSummary = DistributionSummary.builder("miniuri.visitor.log.batch.size")
+                .description("每批写入的行数")
+                .register(meterRegistry);
+        this.flushTimer = Timer.builder("miniuri.visitor.log.flush.latency")
+                .description("每批写入耗时（含重试）")
+                .register(meterRegistry);
+        this.droppedCounter = Counter.builder("miniuri.visitor.log.dropped")
+                .description("队列已满被丢弃的日志数")
+                .register(meterRegistry);
+        this.retryCounter = Counter.builder("miniuri.visitor.log.retry")
+                .description("整批写入失败后重试的次数")
+                .register(meterRegistry);
+        this.failedCounter = Counter.builder("miniuri.visitor.log.failed")
+                .description("重试用尽被丢弃的日志数")
+                .register(meterRegistry);
+    }
+
+    /**
+     * 放入写入队列，队列满或未启动时丢弃
+     */
+    public void enqueue(VisitorLog visitorLog) {
+        if (!this.running || !this.queue.offer(visitorLog)) {
+            this.droppedCounter.increment();
+        }
+    }
+
+    /**
+     * 在调用线程上按 batchSize 分批写入
+     *
+     * @return 写入成功的行数
+     */
+    public int writeAll(List<VisitorLog> rows) {
+        int written = 0;
+        for (int from = 0; from < rows.size(); from += batchSize) {
+            List<VisitorLog> chunk = rows.subList(from, Math.min(rows.size(), from + batchSize));
+            if (flush(chunk)) {
+                written += chunk.size();
+            }
+        }
+        return written;
+    }
+
+    @Override
+    public void start() {
+        this.running = true;
+        this.writer = Thread.ofPlatform().name("visitor-log-writer").daemon().start(this::drainLoop);
+    }
+
+    /**
+     * 停止接收并排空队列
+     */
+    @Override
+    public void stop() {
+        this.running = false;
+        try {
+            this.writer.join(TimeUnit.SECONDS.toMillis(30));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (!this.queue.isEmpty()) {
+            log.error("visitor log queue not drained before shutdown, remaining:{}", this.queue.size());
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return this.running;
+    }
+
+    /**
+     * Web 服务在 DEFAULT_PHASE - 2048 停止（优雅停机为 - 1024），phase 更小的先启动、后停止，
+     * 保证 Web 服务停止之后才排空队列，停机时不再有新的日志进入
+     */
+    @Override
+    public int getPhase() {
+        return SmartLifecycle.DEFAULT_PHASE - 4096;
+    }
+
+    private void drainLoop() {
+        List<VisitorLog> batch = new ArrayList<>(batchSize);
+        while (this.running || !this.queue.isEmpty()) {
+            try {
+                VisitorLog first = this.queue.poll(flushIntervalMillis, TimeUnit.MILLISECONDS);
+                if (null == first) {
+                    continue;
+                }
+                batch.add(first);
+                // 凑满一批或等到 flushInterval
+                long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(flushIntervalMillis);
+                while (batch.size() < batchSize) {
+                    if (this.queue.drainTo(batch, batchSize - batch.size()) > 0) {
+                        continue;
+                    }
+                    long remaining = deadline - System.nanoTime();
+                    VisitorLog next = remaining > 0 && this.running ? this.queue.poll(remaining, TimeUnit.NANOSECONDS) : null;
+                    if (null == next) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+                flush(batch);
+            } catch (InterruptedException e) {
+                // 停机时由 running 与队列状态决定是否退出
+                Thread.interrupted();
+            } catch (Exception e) {
+                log.error("visitor log writer loop error", e);
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    /**
+     * 一批一个事务，失败回滚后按退避时间重试
+     *
+     * @return 是否写入成功
+     */
+    private boolean flush(List<VisitorLog> batch) {
+        long start = System.nanoTime();
+        try {
+            for (int attempt = 1; ; attempt++) {
+                try {
+                    insertBatch(batch);
+                    this.batchSizeSummary.record(batch.size());
+                    return true;
+                } catch (Exception e) {
+                    if (attempt >= maxAttempts) {
+                        this.failedCounter.increment(batch.size());
+                        log.error("visitor log batch insert failed after {} attempts, dropped {} rows", attempt, batch.size(), e);
+                        return false;
+                    }
+                    this.retryCounter.increment();
+                    log.warn("visitor log batch insert failed, attempt {}/{}, rows:{}", attempt, maxAttempts, batch.size(), e);
+                    try {
+                        Thread.sleep(retryBackoffMillis * attempt);
+                    } catch (InterruptedException ie) {
+                        Thread.currentThread().interrupt();
+                        return false;
+                    }
+                }
+            }
+        } finally {
+            this.flushTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    /**
+     * 一批一个事务，异常时整批回滚，重试不会重复写入已提交的行
+     */
+    private void insertBatch(List<VisitorLog> batch) {
+        this.transactionTemplate.executeWithoutResult(status -> {
+            VisitorLogMapper mapper = this.batchSqlSession.getMapper(VisitorLogMapper.class);
+            for (VisitorLog row : batch) {
+                mapper.insert(row);
+            }
+            this.batchSqlSession.flushStatements();
+        });
+    }
+}
@@ -0,0 +1,99 @@
+package com.zjz.mini.uri.run.infrastructure.ratelimit;
+
+import cn.hutool.core.lang.Validator;
+import cn.hutool.core.net.NetUtil;
+import cn.hutool.core.util.StrUtil;
+import jakarta.annotation.PostConstruct;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * 限流使用的客户端 IP
+ * <p>
+ * 默认取连接的 remoteAddr，客户端自带的 X-Forwarded-For / X-Real-IP 不可信，伪造后即可绕过按 IP 的限流。
+ * 只有 remoteAddr 属于配置的可信代理时才读取转发头：X-Forwarded-For 从右向左跳过可信代理，
+ * 取第一个不可信的地址；没有 X-Forwarded-For 时取 X-Real-IP。
+ * 可信代理支持单个 IP 与 IPv4 CIDR（如 10.0.0.0/8）。
+ *
+ * @author hkz329
+ */
+@Component
+public class ClientIpResolver {
+
+    @Value("${miniuri.rate-limit.trusted-proxies:}")
+    private String[] trustedProxies;
+
+    private Set<String> trustedAddresses = Set.of();
+
+    private List<String> trustedRanges = List.of();
+
+    @PostConstruct
+    public void init() {
+        Set<String> addresses = new HashSet<>();
+        List<String> ranges = new ArrayList<>();
+        if (null != trustedProxies) {
+            for (String proxy : trustedProxies) {
+                String p = proxy.trim();
+                if (p.isEmpty()) {
+                    continue;
+                }
+                if (p.indexOf('/') >= 0) {
+                    ranges.add(p);
+                } else {
+                    addresses.add(p);
+                }
+            }
+        }
+        this.trustedAddresses = addresses;
+        this.trustedRanges = ranges;
+    }
+
+    public String resolve(HttpServletRequest request) {
+        String remoteAddr = request.getRemoteAddr();
+        if (!isTrusted(remoteAddr)) {
+            return remoteAddr;
+        }
+        String forwardedFor = request.getHeader("X-Forwarded-For");
+        if (StrUtil.isNotBlank(forwardedFor)) {
+            String[] hops = forwardedFor.split(",");
+            String candidate = remoteAddr;
+            for (int i = hops.length - 1; i >= 0; i--) {
+                String hop = hops[i].trim();
+                if (hop.isEmpty()) {
+                    continue;
+                }
+                candidate = hop;
+                if (!isTrusted(hop)) {
+                    break;
+                }
+            }
+            return candidate;
+        }
+        String realIp = request.getHeader("X-Real-IP");
+        return StrUtil.isNotBlank(realIp) ? realIp.trim() : remoteAddr;
+    }
+
+    private boolean isTrusted(String ip) {
+        if (null == ip) {
+            return false;
+        }
+        if (this.trustedAddresses.contains(ip)) {
+            return true;
+        }
+        if (this.trustedRanges.isEmpty() || !Validator.isIpv4(ip)) {
+            return false;
+        }
+        for (String range : this.trustedRanges) {
+            if (NetUtil.isInRange(ip, range)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
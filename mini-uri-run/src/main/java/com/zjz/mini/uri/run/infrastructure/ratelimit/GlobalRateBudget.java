@@ -0,0 +1,158 @@
+package com.zjz.mini.uri.run.infrastructure.ratelimit;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.core.RedisTemplate;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 跨节点的每秒全局限额
+ * <p>
+ * 所有节点对同一秒的 Redis 计数器 INCRBY 租用一小段额度，本地消耗完再租下一段，
+ * 大部分请求不访问 Redis；计数器超过限额后本节点在该秒内直接拒绝。
+ * Redis 不可用时放行，本地令牌桶仍然生效。
+ * <p>
+ * 本地额度用 CAS 扣减，不加锁；额度用完时只有一个线程访问 Redis 租用（leasing 标记），
+ * 其他线程等待该次租用结束后再扣减，Redis 往返期间不持有任何锁。
+ *
+ * @author hkz329
+ */
+@Slf4j
+public class GlobalRateBudget {
+
+    /**
+     * 等待进行中的租用时，自旋该次数后改为短暂休眠
+     */
+    private static final int SPINS = 64;
+
+    private static final long PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(50);
+
+    private final String keyPrefix;
+
+    private final long permitsPerSecond;
+
+    private final long leaseSize;
+
+    private final RedisTemplate<String, Object> redisTemplate;
+
+    private final AtomicReference<Window> window = new AtomicReference<>(new Window(0));
+
+    public GlobalRateBudget(String endpoint, long permitsPerSecond, long leaseSize, RedisTemplate<String, Object> redisTemplate) {
+        this.keyPrefix = "miniuri:ratelimit:" + endpoint + ":";
+        this.permitsPerSecond = permitsPerSecond;
+        this.leaseSize = Math.max(1, Math.min(leaseSize, permitsPerSecond));
+        this.redisTemplate = redisTemplate;
+    }
+
+    public boolean tryAcquire() {
+        long second = System.currentTimeMillis() / 1000;
+        Window w = window(second);
+        for (int spins = 0; ; spins++) {
+            if (w.take()) {
+                return true;
+            }
+            if (w.exhausted) {
+                return false;
+            }
+            if (w.leasing.compareAndSet(false, true)) {
+                try {
+                    // 拿到标记前其他线程可能刚完成租用
+                    if (w.take()) {
+                        return true;
+                    }
+                    long granted = lease(w.second);
+                    if (granted <= 0) {
+                        w.exhausted = true;
+                        return false;
+                    }
+                    w.remaining.addAndGet(granted - 1);
+                    return true;
+                } finally {
+                    w.leasing.set(false);
+                }
+            }
+            // 等待进行中的租用，进入下一秒时改用新的窗口
+            if (spins < SPINS) {
+                Thread.onSpinWait();
+            } else {
+                LockSupport.parkNanos(PARK_NANOS);
+                long now = System.currentTimeMillis() / 1000;
+                if (now != second) {
+                    second = now;
+                    w = window(second);
+                    spins = 0;
+                }
+            }
+        }
+    }
+
+    /**
+     * 当前秒的窗口，进入新的一秒时 CAS 替换
+     */
+    private Window window(long second) {
+        Window w = this.window.get();
+        while (w.second < second) {
+            Window next = new Window(second);
+            if (this.window.compareAndSet(w, next)) {
+                return next;
+            }
+            w = this.window.get();
+        }
+        return w;
+    }
+
+    /**
+     * 租用一段额度，返回实际可用的数量
+     */
+    private long lease(long second) {
+        String key = this.keyPrefix + second;
+        try {
+            Long total = this.redisTemplate.opsForValue().increment(key, this.leaseSize);
+            if (null == total) {
+                return this.leaseSize;
+            }
+            if (total == this.leaseSize) {
+                this.redisTemplate.expire(key, 2, TimeUnit.SECONDS);
+            }
+            return Math.min(this.leaseSize, this.permitsPerSecond - (total - this.leaseSize));
+        } catch (Exception e) {
+            log.warn("global rate budget lease failed, key:{}", key, e);
+            return this.leaseSize;
+        }
+    }
+
+    /**
+     * 一秒内的本地额度
+     */
+    private static final class Window {
+
+        private final long second;
+
+        private final AtomicLong remaining = new AtomicLong();
+
+        private final AtomicBoolean leasing = new AtomicBoolean();
+
+        private volatile boolean exhausted;
+
+        private Window(long second) {
+            this.second = second;
+        }
+
+        /**
+         * CAS 扣减一个额度
+         */
+        private boolean take() {
+            long r;
+            while ((r = this.remaining.get()) > 0) {
+                if (this.remaining.compareAndSet(r, r - 1)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+}
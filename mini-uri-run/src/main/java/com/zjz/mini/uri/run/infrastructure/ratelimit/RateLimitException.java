@@ -0,0 +1,20 @@
+package com.zjz.mini.uri.run.infrastructure.ratelimit;
+
+import com.zjz.mini.uri.framework.common.core.BusinessException;
+
+import java.io.Serial;
+
+/**
+ * 超出限流额度，响应 429
+ *
+ * @author hkz329
+ */
+public class RateLimitException extends BusinessException {
+
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+    public RateLimitException(String msg) {
+        super(msg);
+    }
+}
@@ -0,0 +1,122 @@
+package com.zjz.mini.uri.run.infrastructure.ratelimit;
+
+import com.zjz.mini.uri.run.infrastructure.aop.annotation.RateLimit;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.Resource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.env.Environment;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 两级限流
+ * <p>
+ * 第一级为本地按 IP 的令牌桶，绝大部分滥用请求在本节点拒绝，不访问 Redis；
+ * 第二级为可选的跨节点全局每秒限额（{@link GlobalRateBudget}），只对通过第一级的请求生效。
+ * 每个接口名对应一个限流器，首次使用时按 配置 > 注解 > 默认值 创建。
+ *
+ * @author hkz329
+ */
+@Slf4j
+@Component
+public class RateLimiterRegistry {
+
+    private static final String ENDPOINT_PREFIX = "miniuri.rate-limit.endpoints.";
+
+    @Value("${miniuri.rate-limit.enabled:true}")
+    private boolean enabled;
+
+    @Value("${miniuri.rate-limit.default-permits-per-second:20}")
+    private double defaultPermitsPerSecond;
+
+    @Value("${miniuri.rate-limit.default-burst:40}")
+    private int defaultBurst;
+
+    @Value("${miniuri.rate-limit.stripes:64}")
+    private int stripes;
+
+    @Value("${miniuri.rate-limit.max-keys:100000}")
+    private int maxKeys;
+
+    /**
+     * 全局限额每次租用的比例
+     */
+    @Value("${miniuri.rate-limit.global-lease-ratio:0.05}")
+    private double globalLeaseRatio;
+
+    @Resource
+    private Environment environment;
+
+    @Resource
+    private RedisTemplate<String, Object> redisTemplate;
+
+    @Resource
+    private MeterRegistry meterRegistry;
+
+    private final Map<String, Endpoint> endpoints = new ConcurrentHashMap<>();
+
+    /**
+     * 尝试通过限流
+     *
+     * @param endpoint 接口名
+     * @param clientIp 客户端 IP
+     * @param limit    接口上的注解，没有时传 null
+     * @return 被拒绝时返回 false
+     */
+    public boolean tryAcquire(String endpoint, String clientIp, RateLimit limit) {
+        if (!enabled) {
+            return true;
+        }
+        Endpoint e = this.endpoints.get(endpoint);
+        if (null == e) {
+            e = this.endpoints.computeIfAbsent(endpoint, name -> create(name, limit));
+        }
+        if (!e.local.tryAcquire(null == clientIp ? "unknown" : clientIp)) {
+            e.localRejected.increment();
+            return false;
+        }
+        if (null != e.global && !e.global.tryAcquire()) {
+            e.globalRejected.increment();
+            return false;
+        }
+        return true;
+    }
+
+    private Endpoint create(String name, RateLimit limit) {
+        double permitsPerSecond = this.environment.getProperty(ENDPOINT_PREFIX + name + ".permits-per-second", Double.class,
+                null != limit && limit.permitsPerSecond() > 0 ? limit.permitsPerSecond() : this.defaultPermitsPerSecond);
+        int burst = this.environment.getProperty(ENDPOINT_PREFIX + name + ".burst", Integer.class,
+                null != limit && limit.burst() > 0 ? limit.burst() : this.defaultBurst);
+        long globalPermitsPerSecond = this.environment.getProperty(ENDPOINT_PREFIX + name + ".global-permits-per-second", Long.class,
+                null != limit && limit.globalPermitsPerSecond() >= 0 ? limit.globalPermitsPerSecond() : 0L);
+
+        TokenBucketLimiter local = new TokenBucketLimiter(permitsPerSecond, burst, this.stripes, this.maxKeys);
+        GlobalRateBudget global = globalPermitsPerSecond > 0
+                ? new GlobalRateBudget(name, globalPermitsPerSecond, (long) Math.ceil(globalPermitsPerSecond * this.globalLeaseRatio), this.redisTemplate)
+                : null;
+        Gauge.builder("miniuri.ratelimit.buckets", local, TokenBucketLimiter::size)
+                .tag("endpoint", name)
+                .description("本地令牌桶数量")
+                .register(this.meterRegistry);
+        log.info("rate limiter created, endpoint:{}, permitsPerSecond:{}, burst:{}, globalPermitsPerSecond:{}",
+                name, permitsPerSecond, burst, globalPermitsPerSecond);
+        return new Endpoint(local, global, rejectedCounter(name, "local"), rejectedCounter(name, "global"));
+    }
+
+    private Counter rejectedCounter(String endpoint, String tier) {
+        return Counter.builder("miniuri.ratelimit.rejected")
+                .tag("endpoint", endpoint)
+                .tag("tier", tier)
+                .description("被限流拒绝的请求数")
+                .register(this.meterRegistry);
+    }
+
+    private record Endpoint(TokenBucketLimiter local, GlobalRateBudget global, Counter localRejected, Counter globalRejected) {
+    }
+}
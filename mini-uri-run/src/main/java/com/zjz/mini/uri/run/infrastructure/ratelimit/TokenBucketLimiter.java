@@ -0,0 +1,118 @@
+package com.zjz.mini.uri.run.infrastructure.ratelimit;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 本地令牌桶限流，按 key（客户端 IP）分桶
+ * <p>
+ * 桶按 key 的哈希分散到多个分段，每个分段一把锁，不同分段的 key 互不竞争；
+ * 每个分段按访问顺序保留最多 maxKeysPerStripe 个桶，超出时淘汰最久未访问的桶，内存有界。
+ * 使用 ReentrantLock，虚拟线程在锁上等待时不会钉住载体线程。
+ *
+ * @author hkz329
+ */
+public class TokenBucketLimiter {
+
+    private final double permitsPerNano;
+
+    private final double burst;
+
+    private final Stripe[] stripes;
+
+    private final int mask;
+
+    /**
+     * @param permitsPerSecond 每秒补充的令牌数
+     * @param burst            桶容量
+     * @param stripes          分段数，向上取整为 2 的幂
+     * @param maxKeys          最多保留的桶数量
+     */
+    public TokenBucketLimiter(double permitsPerSecond, int burst, int stripes, int maxKeys) {
+        if (permitsPerSecond <= 0 || burst <= 0) {
+            throw new IllegalArgumentException("permitsPerSecond and burst must be positive");
+        }
+        this.permitsPerNano = permitsPerSecond / TimeUnit.SECONDS.toNanos(1);
+        this.burst = burst;
+        int size = Integer.highestOneBit(Math.max(1, stripes - 1)) << 1;
+        this.stripes = new Stripe[size];
+        this.mask = size - 1;
+        int maxKeysPerStripe = Math.max(16, maxKeys / size);
+        for (int i = 0; i < size; i++) {
+            this.stripes[i] = new Stripe(maxKeysPerStripe);
+        }
+    }
+
+    /**
+     * 尝试获取一个令牌
+     */
+    public boolean tryAcquire(String key) {
+        int h = key.hashCode();
+        Stripe stripe = this.stripes[(h ^ (h >>> 16)) & this.mask];
+        long now = System.nanoTime();
+        stripe.lock.lock();
+        try {
+            Bucket bucket = stripe.buckets.get(key);
+            if (null == bucket) {
+                bucket = new Bucket(this.burst, now);
+                stripe.buckets.put(key, bucket);
+            } else {
+                bucket.tokens = Math.min(this.burst, bucket.tokens + (now - bucket.lastRefillNanos) * this.permitsPerNano);
+                bucket.lastRefillNanos = now;
+            }
+            if (bucket.tokens >= 1) {
+                bucket.tokens -= 1;
+                return true;
+            }
+            return false;
+        } finally {
+            stripe.lock.unlock();
+        }
+    }
+
+    /**
+     * 当前保留的桶数量
+     */
+    public int size() {
+        int size = 0;
+        for (Stripe stripe : this.stripes) {
+            stripe.lock.lock();
+            try {
+                size += stripe.buckets.size();
+            } finally {
+                stripe.lock.unlock();
+            }
+        }
+        return size;
+    }
+
+    private static final class Bucket {
+
+        private double tokens;
+
+        private long lastRefillNanos;
+
+        private Bucket(double tokens, long lastRefillNanos) {
+            this.tokens = tokens;
+            this.lastRefillNanos = lastRefillNanos;
+        }
+    }
+
+    private static final class Stripe {
+
+        private final ReentrantLock lock = new ReentrantLock();
+
+        private final LinkedHashMap<String, Bucket> buckets;
+
+        private Stripe(int maxKeys) {
+            this.buckets = new LinkedHashMap<>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, Bucket> eldest) {
+                    return size() > maxKeys;
+                }
+            };
+        }
+    }
+}
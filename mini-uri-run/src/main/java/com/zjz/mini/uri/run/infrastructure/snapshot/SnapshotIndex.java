@@ -0,0 +1,176 @@
+package com.zjz.mini.uri.run.infrastructure.snapshot;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * 短链快照索引（只读，内存映射）
+ * <p>
+ * 文件布局：
+ * <pre>
+ * | header 64B | arena: 变长记录 | table: slotCount * 8B |
+ * header: magic, version, slotCount, entryCount, tableOffset, createTime
+ * arena 记录: [int codeLen][int urlLen][long expireEpochSecond][code][url]，不跨越映射分段，
+ *            分段剩余不足时以 codeLen = 0 或不足一个记录头的空白填充
+ * table 槽位: 高 24 位为哈希标签，低 40 位为 (记录偏移 + 1)，0 表示空槽，线性探测
+ * </pre>
+ * 打开时只映射文件并校验头部，耗时与链接数量无关；数据位于堆外，由操作系统页缓存按需加载。
+ *
+ * @author hkz329
+ */
+public class SnapshotIndex implements Closeable {
+
+    static final int MAGIC = 0x4D555249;
+    static final int VERSION = 1;
+    static final int HEADER_SIZE = 64;
+    static final int RECORD_HEADER_SIZE = 16;
+    /**
+     * 单个映射分段 1GB，记录与槽位都不会跨越分段
+     */
+    static final int REGION_SHIFT = 30;
+    static final long REGION_SIZE = 1L << REGION_SHIFT;
+    static final long OFFSET_MASK = (1L << 40) - 1;
+
+    private final Path path;
+
+    private final FileChannel channel;
+
+    private final MappedByteBuffer[] regions;
+
+    private final long slotCount;
+
+    private final long entryCount;
+
+    private final long tableOffset;
+
+    private final long createTime;
+
+    private SnapshotIndex(Path path, FileChannel channel, MappedByteBuffer[] regions) {
+        this.path = path;
+        this.channel = channel;
+        this.regions = regions;
+        ByteBuffer header = regions[0];
+        if (header.getInt(0) != MAGIC || header.getInt(4) != VERSION) {
+            throw new IllegalStateException("invalid snapshot index file: " + path);
+        }
+        this.slotCount = header.getLong(8);
+        this.entryCount = header.getLong(16);
+        this.tableOffset = header.getLong(24);
+        this.createTime = header.getLong(32);
+    }
+
+    public static SnapshotIndex open(Path path) throws IOException {
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.READ);
+        try {
+            long size = channel.size();
+            int regionCount = (int) ((size + REGION_SIZE - 1) >>> REGION_SHIFT);
+            MappedByteBuffer[] regions = new MappedByteBuffer[Math.max(1, regionCount)];
+            for (int i = 0; i < regions.length; i++) {
+                long start = (long) i << REGION_SHIFT;
+                regions[i] = channel.map(FileChannel.MapMode.READ_ONLY, start, Math.min(REGION_SIZE, size - start));
+            }
+            return new SnapshotIndex(path, channel, regions);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * 查询长链接，不存在或已过期返回 null
+     */
+    public String get(String shortUrl) {
+        long hash = hash(shortUrl);
+        long tag = tag(hash);
+        long mask = slotCount - 1;
+        long slot = hash & mask;
+        for (long probe = 0; probe < slotCount; probe++) {
+            long value = readLong(tableOffset + (slot << 3));
+            if (value == 0) {
+                return null;
+            }
+            if ((value >>> 40) == tag) {
+                long offset = (value & OFFSET_MASK) - 1;
+                ByteBuffer region = regions[(int) (offset >>> REGION_SHIFT)];
+                int pos = (int) (offset & (REGION_SIZE - 1));
+                int codeLen = region.getInt(pos);
+                if (matches(region, pos + RECORD_HEADER_SIZE, codeLen, shortUrl)) {
+                    long expireEpochSecond = region.getLong(pos + 8);
+                    if (expireEpochSecond > 0 && expireEpochSecond <= System.currentTimeMillis() / 1000) {
+                        return null;
+                    }
+                    int urlLen = region.getInt(pos + 4);
+                    byte[] url = new byte[urlLen];
+                    region.get(pos + RECORD_HEADER_SIZE + codeLen, url);
+                    return new String(url, StandardCharsets.UTF_8);
+                }
+            }
+            slot = (slot + 1) & mask;
+        }
+        return null;
+    }
+
+    public long getEntryCount() {
+        return entryCount;
+    }
+
+    public long getCreateTime() {
+        return createTime;
+    }
+
+    public Path getPath() {
+        return path;
+    }
+
+    @Override
+    public void close() throws IOException {
+        // 映射在 GC 回收后释放，这里只关闭文件句柄
+        channel.close();
+    }
+
+    private long readLong(long position) {
+        return regions[(int) (position >>> REGION_SHIFT)].getLong((int) (position & (REGION_SIZE - 1)));
+    }
+
+    /**
+     * 短链均为 ASCII，逐字节比较，避免编码分配
+     */
+    private static boolean matches(ByteBuffer region, int pos, int codeLen, String shortUrl) {
+        if (codeLen != shortUrl.length()) {
+            return false;
+        }
+        for (int i = 0; i < codeLen; i++) {
+            if (region.get(pos + i) != (byte) shortUrl.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 短链哈希：FNV-1a 64 + murmur3 fmix64，读写两端必须一致
+     */
+    static long hash(String shortUrl) {
+        long h = 0xcbf29ce484222325L;
+        for (int i = 0; i < shortUrl.length(); i++) {
+            h ^= shortUrl.charAt(i);
+            h *= 0x100000001b3L;
+        }
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+
+    static long tag(long hash) {
+        return hash >>> 40;
+    }
+}
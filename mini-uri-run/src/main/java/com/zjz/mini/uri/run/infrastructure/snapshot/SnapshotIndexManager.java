@@ -0,0 +1,219 @@
+package com.zjz.mini.uri.run.infrastructure.snapshot;
+
+import com.zjz.mini.uri.run.domain.entity.UrlMapping;
+import com.zjz.mini.uri.run.domain.repository.UrlMappingRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.annotation.Resource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.ZoneId;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Stream;
+
+/**
+ * 快照索引管理
+ * <p>
+ * 1. 启动时映射目录下最新的快照文件，只读头部，毫秒级完成
+ * 2. 后台按 cron 从 url_mapping 流式重建，写入临时文件后原子改名，再原子替换当前索引
+ * 3. authoritative 模式下快照未命中即视为不存在，跳转读路径不再依赖 Redis 与 MySQL
+ *
+ * @author hkz329
+ */
+@Slf4j
+@Component
+public class SnapshotIndexManager {
+
+    private static final String FILE_PREFIX = "snapshot-";
+
+    private static final String FILE_SUFFIX = ".idx";
+
+    @Value("${miniuri.snapshot.enabled:false}")
+    private boolean enabled;
+
+    @Value("${miniuri.snapshot.dir:data/snapshot}")
+    private String dir;
+
+    @Value("${miniuri.snapshot.authoritative:false}")
+    private boolean authoritative;
+
+    @Value("${miniuri.snapshot.retain-files:2}")
+    private int retainFiles;
+
+    @Resource
+    private UrlMappingRepository urlMappingRepository;
+
+    @Resource
+    private MeterRegistry meterRegistry;
+
+    @Resource
+    @Qualifier("ioTaskExecutor")
+    private Executor ioTaskExecutor;
+
+    private final AtomicReference<SnapshotIndex> index = new AtomicReference<>();
+
+    private final AtomicBoolean rebuilding = new AtomicBoolean();
+
+    @PostConstruct
+    public void init() {
+        Gauge.builder("miniuri.snapshot.entries", index, i -> i.get() == null ? 0 : i.get().getEntryCount())
+                .description("当前快照索引中的映射数量")
+                .register(meterRegistry);
+        if (!enabled) {
+            return;
+        }
+        Path latest = listSnapshots().stream().findFirst().orElse(null);
+        if (latest == null) {
+            return;
+        }
+        long start = System.nanoTime();
+        try {
+            index.set(SnapshotIndex.open(latest));
+            log.info("snapshot index loaded, file:{}, entries:{}, cost:{}ms", latest,
+                    index.get().getEntryCount(), (System.nanoTime() - start) / 1_000_000);
+        } catch (IOException | RuntimeException e) {
+            log.error("load snapshot index failed, file:{}", latest, e);
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onReady() {
+        if (enabled && index.get() == null) {
+            rebuildAsync();
+        }
+    }
+
+    @Scheduled(cron = "${miniuri.snapshot.rebuild-cron:0 30 3 * * ?}")
+    public void scheduledRebuild() {
+        if (enabled) {
+            rebuildAsync();
+        }
+    }
+
+    /**
+     * 查询快照，未启用或不存在返回 null
+     */
+    public String get(String shortUrl) {
+        SnapshotIndex current = index.get();
+        return current == null ? null : current.get(shortUrl);
+    }
+
+    /**
+     * 快照已加载且配置为权威数据源时，未命中可直接判定短链不存在
+     */
+    public boolean isAuthoritative() {
+        return authoritative && index.get() != null;
+    }
+
+    public void rebuildAsync() {
+        if (!rebuilding.compareAndSet(false, true)) {
+            return;
+        }
+        ioTaskExecutor.execute(() -> {
+            try {
+                rebuild();
+            } catch (Exception e) {
+                log.error("rebuild snapshot index failed", e);
+            } finally {
+                rebuilding.set(false);
+            }
+        });
+    }
+
+    private void rebuild() throws IOException {
+        long start = System.currentTimeMillis();
+        Path directory = Paths.get(dir);
+        Files.createDirectories(directory);
+        Path target = directory.resolve(FILE_PREFIX + start + FILE_SUFFIX);
+        Path tmp = directory.resolve(target.getFileName() + ".tmp");
+        long entries;
+        try (SnapshotIndexWriter writer = new SnapshotIndexWriter(tmp)) {
+            ZoneId zone = ZoneId.systemDefault();
+            urlMappingRepository.forEachActive(mapping -> append(writer, mapping, zone));
+            writer.finish();
+            entries = writer.getEntryCount();
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(tmp);
+            throw e;
+        }
+        Files.move(tmp, target, StandardCopyOption.ATOMIC_MOVE);
+
+        SnapshotIndex previous = index.getAndSet(SnapshotIndex.open(target));
+        if (previous != null) {
+            // 读请求可能仍持有旧索引，映射在其不可达后由 GC 释放
+            previous.close();
+        }
+        cleanup();
+        log.info("snapshot index rebuilt, file:{}, entries:{}, cost:{}ms", target, entries, System.currentTimeMillis() - start);
+    }
+
+    private static void append(SnapshotIndexWriter writer, UrlMapping mapping, ZoneId zone) {
+        long expire = mapping.getExpireTime() == null ? 0 : mapping.getExpireTime().atZone(zone).toEpochSecond();
+        try {
+            writer.append(mapping.getShortUrl(), mapping.getLongUrl(), expire);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * 只保留最近的若干个快照文件
+     */
+    private void cleanup() {
+        List<Path> snapshots = listSnapshots();
+        for (int i = Math.max(1, retainFiles); i < snapshots.size(); i++) {
+            try {
+                Files.deleteIfExists(snapshots.get(i));
+            } catch (IOException e) {
+                log.warn("delete snapshot file failed, file:{}", snapshots.get(i), e);
+            }
+        }
+    }
+
+    /**
+     * 目录下的快照文件，按生成时间降序
+     */
+    private List<Path> listSnapshots() {
+        Path directory = Paths.get(dir);
+        if (!Files.isDirectory(directory)) {
+            return List.of();
+        }
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(p -> {
+                        String name = p.getFileName().toString();
+                        return name.startsWith(FILE_PREFIX) && name.endsWith(FILE_SUFFIX);
+                    })
+                    .sorted(Comparator.comparing((Path p) -> p.getFileName().toString()).reversed())
+                    .toList();
+        } catch (IOException e) {
+            log.warn("list snapshot files failed, dir:{}", directory, e);
+            return List.of();
+        }
+    }
+
+    @PreDestroy
+    public void destroy() throws IOException {
+        SnapshotIndex current = index.getAndSet(null);
+        if (current != null) {
+            current.close();
+        }
+    }
+}
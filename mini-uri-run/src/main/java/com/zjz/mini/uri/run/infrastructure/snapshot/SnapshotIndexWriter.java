@@ -0,0 +1,159 @@
+package com.zjz.mini.uri.run.infrastructure.snapshot;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import static com.zjz.mini.uri.run.infrastructure.snapshot.SnapshotIndex.*;
+
+/**
+ * 快照索引构建
+ * <p>
+ * 1. 流式追加记录到 arena，堆内只保留写缓冲
+ * 2. finish 时按记录数确定槽位数（负载因子 0.5），顺序扫描 arena 把偏移写入文件尾部的哈希表
+ * 整个过程堆内存占用与链接数量无关。
+ *
+ * @author hkz329
+ */
+public class SnapshotIndexWriter implements Closeable {
+
+    private static final int BUFFER_SIZE = 1 << 20;
+
+    private final FileChannel channel;
+
+    private final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+
+    /**
+     * 下一条记录在文件中的位置
+     */
+    private long position = HEADER_SIZE;
+
+    private long entryCount;
+
+    public SnapshotIndexWriter(Path path) throws IOException {
+        this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+        this.channel.position(HEADER_SIZE);
+    }
+
+    /**
+     * 追加一条映射
+     * @param expireEpochSecond 过期时间（秒），0 表示永不过期
+     */
+    public void append(String shortUrl, String longUrl, long expireEpochSecond) throws IOException {
+        byte[] code = shortUrl.getBytes(StandardCharsets.UTF_8);
+        byte[] url = longUrl.getBytes(StandardCharsets.UTF_8);
+        int size = RECORD_HEADER_SIZE + code.length + url.length;
+        if (code.length == 0 || size > BUFFER_SIZE) {
+            throw new IllegalArgumentException("invalid mapping for snapshot, shortUrl: " + shortUrl);
+        }
+        // 记录不跨越映射分段，剩余空间不足时补零
+        long regionRemain = REGION_SIZE - (position & (REGION_SIZE - 1));
+        if (size > regionRemain) {
+            pad(regionRemain);
+        }
+        if (buffer.remaining() < size) {
+            flush();
+        }
+        buffer.putInt(code.length).putInt(url.length).putLong(expireEpochSecond).put(code).put(url);
+        position += size;
+        entryCount++;
+    }
+
+    /**
+     * 构建哈希表并写入头部
+     */
+    public void finish() throws IOException {
+        flush();
+        long arenaEnd = position;
+        long tableOffset = (arenaEnd + 7) & ~7L;
+        long slotCount = Long.highestOneBit(Math.max(16, entryCount * 2 - 1) << 1);
+        long fileSize = tableOffset + (slotCount << 3);
+        if (arenaEnd > OFFSET_MASK) {
+            throw new IllegalStateException("snapshot arena too large: " + arenaEnd);
+        }
+        // 扩展文件，新增部分为 0 即空槽
+        channel.write(ByteBuffer.wrap(new byte[1]), fileSize - 1);
+
+        int regionCount = (int) ((fileSize + REGION_SIZE - 1) >>> REGION_SHIFT);
+        MappedByteBuffer[] regions = new MappedByteBuffer[regionCount];
+        for (int i = 0; i < regionCount; i++) {
+            long start = (long) i << REGION_SHIFT;
+            regions[i] = channel.map(FileChannel.MapMode.READ_WRITE, start, Math.min(REGION_SIZE, fileSize - start));
+        }
+
+        long mask = slotCount - 1;
+        long pos = HEADER_SIZE;
+        while (pos < arenaEnd) {
+            long regionRemain = REGION_SIZE - (pos & (REGION_SIZE - 1));
+            ByteBuffer region = regions[(int) (pos >>> REGION_SHIFT)];
+            int p = (int) (pos & (REGION_SIZE - 1));
+            if (regionRemain < RECORD_HEADER_SIZE || region.getInt(p) == 0) {
+                // 分段尾部填充
+                pos += regionRemain;
+                continue;
+            }
+            int codeLen = region.getInt(p);
+            int urlLen = region.getInt(p + 4);
+            byte[] code = new byte[codeLen];
+            region.get(p + RECORD_HEADER_SIZE, code);
+            long hash = hash(new String(code, StandardCharsets.UTF_8));
+            long slot = hash & mask;
+            while (true) {
+                long slotPos = tableOffset + (slot << 3);
+                ByteBuffer tableRegion = regions[(int) (slotPos >>> REGION_SHIFT)];
+                int tp = (int) (slotPos & (REGION_SIZE - 1));
+                if (tableRegion.getLong(tp) == 0) {
+                    tableRegion.putLong(tp, (tag(hash) << 40) | (pos + 1));
+                    break;
+                }
+                slot = (slot + 1) & mask;
+            }
+            pos += RECORD_HEADER_SIZE + codeLen + urlLen;
+        }
+
+        ByteBuffer header = regions[0];
+        header.putInt(0, MAGIC);
+        header.putInt(4, VERSION);
+        header.putLong(8, slotCount);
+        header.putLong(16, entryCount);
+        header.putLong(24, tableOffset);
+        header.putLong(32, System.currentTimeMillis());
+        for (MappedByteBuffer region : regions) {
+            region.force();
+        }
+    }
+
+    public long getEntryCount() {
+        return entryCount;
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    private void pad(long length) throws IOException {
+        flush();
+        ByteBuffer zeros = ByteBuffer.allocate((int) Math.min(length, BUFFER_SIZE));
+        long remain = length;
+        while (remain > 0) {
+            zeros.clear().limit((int) Math.min(remain, zeros.capacity()));
+            remain -= channel.write(zeros);
+        }
+        position += length;
+    }
+
+    private void flush() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+}
@@ -0,0 +1,97 @@
+package com.zjz.mini.uri.run.infrastructure.stats;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Consumer;
+
+/**
+ * 多生产者单消费者的有界无锁环形队列
+ * <p>
+ * 生产者 CAS 抢占 tail 后写入槽位（release 语义），消费者按 head 顺序读取，槽位为 null 表示
+ * 生产者已抢占但尚未写入，本轮停止读取。满时 offer 直接返回 false，不等待。
+ * 请求线程只有一次 CAS 与一次数组写入，不分配对象。
+ *
+ * @author hkz329
+ */
+public class ClickRingBuffer {
+
+    private final AtomicReferenceArray<String> slots;
+
+    private final int mask;
+
+    private final int capacity;
+
+    /**
+     * 下一个写入位置，生产者竞争
+     */
+    private final AtomicLong tail = new AtomicLong();
+
+    /**
+     * 下一个读取位置，只由消费者推进
+     */
+    private final AtomicLong head = new AtomicLong();
+
+    /**
+     * @param capacity 向上取整为 2 的幂
+     */
+    public ClickRingBuffer(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("capacity must be positive: " + capacity);
+        }
+        this.capacity = capacity == 1 ? 1 : Integer.highestOneBit(capacity - 1) << 1;
+        this.mask = this.capacity - 1;
+        this.slots = new AtomicReferenceArray<>(this.capacity);
+    }
+
+    /**
+     * 写入一个元素，队列已满返回 false
+     */
+    public boolean offer(String value) {
+        long t;
+        do {
+            t = this.tail.get();
+            if (t - this.head.get() >= this.capacity) {
+                return false;
+            }
+        } while (!this.tail.compareAndSet(t, t + 1));
+        this.slots.setRelease((int) t & this.mask, value);
+        return true;
+    }
+
+    /**
+     * 读取至多 limit 个元素，只允许单个线程调用
+     *
+     * @return 读取的数量
+     */
+    public int drain(Consumer<String> consumer, int limit) {
+        long h = this.head.get();
+        int count = 0;
+        while (count < limit) {
+            int index = (int) h & this.mask;
+            String value = this.slots.getAcquire(index);
+            if (null == value) {
+                break;
+            }
+            this.slots.setPlain(index, null);
+            h++;
+            count++;
+            consumer.accept(value);
+        }
+        if (count > 0) {
+            // 槽位清空先于 head 发布，生产者看到新的 head 时槽位已可写入
+            this.head.setRelease(h);
+        }
+        return count;
+    }
+
+    /**
+     * 已写入（含抢占未完成）尚未读取的数量
+     */
+    public int size() {
+        return (int) Math.max(0, this.tail.get() - this.head.get());
+    }
+
+    public int capacity() {
+        return this.capacity;
+    }
+}
@@ -0,0 +1,252 @@
+package com.zjz.mini.uri.run.infrastructure.stats;
+
+import com.zjz.mini.uri.run.domain.dao.UrlClickStatsMapper;
+import com.zjz.mini.uri.run.domain.entity.UrlClickStats;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.Resource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 短链点击计数
+ * <p>
+ * 跳转线程只把短链写入无锁环形队列 {@link ClickRingBuffer}，队列满时丢弃并计数，不阻塞跳转。
+ * 单个计数线程读取队列，在本地按 (日期, 短链) 累加，每隔 flushIntervalMillis 把增量合并为
+ * 多行 insert ... on duplicate key update 写入 url_click_stats，每个短链每天每个周期最多一行。
+ * 写入失败时增量保留到下个周期；停机时在 Web 服务停止之后排空队列并写入。
+ *
+ * @author hkz329
+ */
+@Slf4j
+@Component
+public class ShortUrlClickCounter implements SmartLifecycle {
+
+    /**
+     * 每轮最多读取的数量
+     */
+    private static final int DRAIN_LIMIT = 4096;
+
+    @Value("${miniuri.stats.click.enabled:true}")
+    private boolean enabled;
+
+    @Value("${miniuri.stats.click.buffer-capacity:65536}")
+    private int bufferCapacity;
+
+    @Value("${miniuri.stats.click.flush-interval-millis:1000}")
+    private long flushIntervalMillis;
+
+    @Value("${miniuri.stats.click.batch-size:500}")
+    private int batchSize;
+
+    @Resource
+    private UrlClickStatsMapper urlClickStatsMapper;
+
+    @Resource
+    private MeterRegistry meterRegistry;
+
+    /**
+     * 未启动时为 null，record 直接返回
+     */
+    private volatile ClickRingBuffer buffer;
+
+    /**
+     * 日期 -> 短链 -> 增量，只由计数线程访问
+     */
+    private final Map<LocalDate, Map<String, long[]>> pending = new HashMap<>();
+
+    private LocalDate currentDay;
+
+    private long currentDayEndMillis;
+
+    private Map<String, long[]> currentCounts;
+
+    private Thread worker;
+
+    private volatile boolean running;
+
+    private Counter droppedCounter;
+
+    private Counter failedCounter;
+
+    private DistributionSummary flushSizeSummary;
+
+    private Timer flushTimer;
+
+    /**
+     * 记录一次点击，停止后或队列满时丢弃并计数
+     */
+    public void record(String shortUrl) {
+        ClickRingBuffer b = this.buffer;
+        if (null == b) {
+            return;
+        }
+        if (!this.running || !b.offer(shortUrl)) {
+            this.droppedCounter.increment();
+        }
+    }
+
+    @Override
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        ClickRingBuffer b = new ClickRingBuffer(bufferCapacity);
+        Gauge.builder("miniuri.click.buffer.depth", b, ClickRingBuffer::size)
+                .description("等待计数的点击数量")
+                .register(meterRegistry);
+        this.droppedCounter = Counter.builder("miniuri.click.dropped")
+                .description("队列已满被丢弃的点击数")
+                .register(meterRegistry);
+        this.failedCounter = Counter.builder("miniuri.click.flush.failed")
+                .description("写入失败的次数")
+                .register(meterRegistry);
+        this.flushSizeSummary = DistributionSummary.builder("miniuri.click.flush.size")
+                .description("每次写入的 (短链, 日期) 行数")
+                .register(meterRegistry);
+        this.flushTimer = Timer.builder("miniuri.click.flush.latency")
+                .description("每次写入耗时")
+                .register(meterRegistry);
+        this.running = true;
+        this.buffer = b;
+        this.worker = Thread.ofPlatform().name("short-url-click-counter").daemon().start(this::loop);
+    }
+
+    /**
+     * 停止计数线程，排空队列后写入
+     */
+    @Override
+    public void stop() {
+        if (!this.running) {
+            return;
+        }
+        this.running = false;
+        LockSupport.unpark(this.worker);
+        try {
+            this.worker.join(TimeUnit.SECONDS.toMillis(30));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (this.worker.isAlive()) {
+            // 计数线程仍在写入（如数据库写入缓慢），队列只允许单个消费者，不在此读取，剩余点击按丢弃计数
+            int remaining = this.buffer.size();
+            log.error("short url click counter not stopped in time, remaining:{}", remaining);
+            this.droppedCounter.increment(remaining);
+        } else {
+            // 计数线程最后一次读取之后才写入的点击不再计数
+            int late = this.buffer.drain(shortUrl -> {
+            }, Integer.MAX_VALUE);
+            if (late > 0) {
+                this.droppedCounter.increment(late);
+            }
+            // pending 只由计数线程访问，线程退出后才读取
+            if (!this.pending.isEmpty()) {
+                log.error("short url click counts not flushed before shutdown, days:{}", this.pending.size());
+            }
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return this.running;
+    }
+
+    /**
+     * Web 服务在 DEFAULT_PHASE - 2048 停止，phase 更小的后停止，停机排空时不再有新的点击
+     */
+    @Override
+    public int getPhase() {
+        return SmartLifecycle.DEFAULT_PHASE - 4096;
+    }
+
+    private void loop() {
+        long nextFlush = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(flushIntervalMillis);
+        while (this.running) {
+            try {
+                int drained = this.buffer.drain(this::count, DRAIN_LIMIT);
+                long now = System.nanoTime();
+                if (now - nextFlush >= 0) {
+                    flush();
+                    nextFlush = now + TimeUnit.MILLISECONDS.toNanos(flushIntervalMillis);
+                } else if (drained == 0) {
+                    LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(1));
+                }
+            } catch (Exception e) {
+                log.error("short url click counter loop error", e);
+            }
+        }
+        // 停机：排空后写入
+        while (this.buffer.drain(this::count, DRAIN_LIMIT) > 0) {
+            // 继续读取
+        }
+        flush();
+    }
+
+    private void count(String shortUrl) {
+        long now = System.currentTimeMillis();
+        if (null == this.currentCounts || now >= this.currentDayEndMillis) {
+            this.currentDay = LocalDate.now();
+            this.currentDayEndMillis = this.currentDay.plusDays(1).atStartOfDay(ZoneId.systemDefault()).toInstant().toEpochMilli();
+            this.currentCounts = this.pending.computeIfAbsent(this.currentDay, d -> new HashMap<>());
+        }
+        long[] counter = this.currentCounts.get(shortUrl);
+        if (null == counter) {
+            this.currentCounts.put(shortUrl, new long[]{1});
+        } else {
+            counter[0]++;
+        }
+    }
+
+    /**
+     * 按 batchSize 分批累加写入，失败的批次保留到下个周期
+     */
+    private void flush() {
+        if (this.pending.isEmpty()) {
+            return;
+        }
+        List<UrlClickStats> rows = new ArrayList<>();
+        for (Map.Entry<LocalDate, Map<String, long[]>> day : this.pending.entrySet()) {
+            for (Map.Entry<String, long[]> entry : day.getValue().entrySet()) {
+                rows.add(new UrlClickStats()
+                        .setShortUrl(entry.getKey())
+                        .setStatDate(day.getKey())
+                        .setClickCount(entry.getValue()[0]));
+            }
+        }
+        this.pending.clear();
+        this.currentCounts = null;
+        if (rows.isEmpty()) {
+            return;
+        }
+        long start = System.nanoTime();
+        for (int from = 0; from < rows.size(); from += batchSize) {
+            List<UrlClickStats> batch = rows.subList(from, Math.min(rows.size(), from + batchSize));
+            try {
+                this.urlClickStatsMapper.addBatch(batch);
+            } catch (Exception e) {
+                this.failedCounter.increment();
+                log.warn("short url click flush failed, requeue {} rows", batch.size(), e);
+                for (UrlClickStats row : batch) {
+                    this.pending.computeIfAbsent(row.getStatDate(), d -> new HashMap<>())
+                            .computeIfAbsent(row.getShortUrl(), k -> new long[1])[0] += row.getClickCount();
+                }
+            }
+        }
+        this.flushSizeSummary.record(rows.size());
+        this.flushTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+    }
+}
@@ -0,0 +1,228 @@
+package com.zjz.mini.uri.run.infrastructure.stats;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.security.DigestException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDateTime;
+import java.util.HexFormat;
+
+/**
+ * 访问统计日志解析
+ * <p>
+ * 日志格式：{@code 2025-11-03 10:00:00.123|VISITOR_EVENT|/|首页|127.0.0.1|Mozilla/5.0|http://google.com}。
+ * 通过 FileChannel 按块读入复用的缓冲区，在字节上查找换行与 '|'，时间戳按固定位置解析，
+ * 只为需要的字段按 UTF-8 解码生成字符串；访客 ID 直接对行内 "ip|ua" 字节计算 MD5，
+ * 与 {@code md5(ip + "|" + ua)} 一致。末尾不完整的行不消费，返回的结束位置即下次开始位置。
+ * 非线程安全，每个解析线程一个实例。
+ *
+ * @author hkz329
+ */
+public class VisitorLogParser {
+
+    private static final byte[] MARKER = "VISITOR_EVENT".getBytes(StandardCharsets.US_ASCII);
+
+    /**
+     * 字段分隔符个数：时间|标记|路径|页面名|IP|UA|来源
+     */
+    private static final int SEPARATORS = 6;
+
+    /**
+     * yyyy-MM-dd HH:mm:ss.SSS
+     */
+    private static final int TIMESTAMP_LENGTH = 23;
+
+    private static final HexFormat HEX = HexFormat.of();
+
+    private final byte[] buf;
+
+    private final ByteBuffer byteBuffer;
+
+    private final int[] separators = new int[SEPARATORS];
+
+    private final MessageDigest md5;
+
+    private final byte[] digest = new byte[16];
+
+    public VisitorLogParser(int bufferSize) {
+        this.buf = new byte[bufferSize];
+        this.byteBuffer = ByteBuffer.wrap(this.buf);
+        try {
+            this.md5 = MessageDigest.getInstance("MD5");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * 访问事件回调
+     */
+    @FunctionalInterface
+    public interface Handler {
+
+        void onEvent(LocalDateTime visitTime, String pagePath, String clientIp, String userAgent, String referer, String visitorId);
+    }
+
+    /**
+     * @param endOffset 最后一个完整行之后的位置
+     * @param lines     读取的完整行数
+     * @param events    访问事件数
+     * @param malformed 含标记但格式错误或超过缓冲区长度的行数
+     */
+    public record Result(long endOffset, long lines, long events, long malformed) {
+    }
+
+    /**
+     * 解析 [start, end) 范围内的完整行
+     */
+    public Result parse(FileChannel channel, long start, long end, Handler handler) throws IOException {
+        long base = start;
+        int length = 0;
+        long lines = 0;
+        long events = 0;
+        long malformed = 0;
+        // 当前行超过缓冲区长度，丢弃到下一个换行
+        boolean skipping = false;
+        while (base + length < end) {
+            this.byteBuffer.limit((int) Math.min(this.buf.length, length + (end - base - length)));
+            this.byteBuffer.position(length);
+            int read = channel.read(this.byteBuffer, base + length);
+            if (read <= 0) {
+                break;
+            }
+            int scanFrom = length;
+            length += read;
+            int lineStart = 0;
+            for (int i = scanFrom; i < length; i++) {
+                if (this.buf[i] != '\n') {
+                    continue;
+                }
+                if (skipping) {
+                    skipping = false;
+                } else {
+                    lines++;
+                    int lineEnd = i > lineStart && this.buf[i - 1] == '\r' ? i - 1 : i;
+                    int state = parseLine(lineStart, lineEnd, handler);
+                    if (state > 0) {
+                        events++;
+                    } else if (state < 0) {
+                        malformed++;
+                    }
+                }
+                lineStart = i + 1;
+            }
+            if (lineStart == 0 && length == this.buf.length) {
+                // 单行超过缓冲区
+                if (!skipping) {
+                    skipping = true;
+                    lines++;
+                    malformed++;
+                }
+                lineStart = length;
+            }
+            System.arraycopy(this.buf, lineStart, this.buf, 0, length - lineStart);
+            base += lineStart;
+            length -= lineStart;
+        }
+        // 超长行在范围末尾仍未结束时，剩余部分下次作为普通行读取，不含标记字段会被忽略
+        return new Result(base, lines, events, malformed);
+    }
+
+    /**
+     * @return 1 访问事件，0 其他行，-1 格式错误
+     */
+    private int parseLine(int from, int to, Handler handler) {
+        int count = 0;
+        for (int i = from; i < to && count < SEPARATORS; i++) {
+            if (this.buf[i] == '|') {
+                this.separators[count++] = i;
+            }
+        }
+        if (count < 2 || !isMarker(this.separators[0] + 1, this.separators[1])) {
+            return 0;
+        }
+        if (count < SEPARATORS || this.separators[0] - from != TIMESTAMP_LENGTH) {
+            return -1;
+        }
+        LocalDateTime visitTime = parseTimestamp(from);
+        if (null == visitTime) {
+            return -1;
+        }
+        int[] s = this.separators;
+        String pagePath = utf8(s[1] + 1, s[2]);
+        String clientIp = utf8(s[3] + 1, s[4]);
+        String userAgent = utf8(s[4] + 1, s[5]);
+        String referer = utf8(s[5] + 1, to);
+        handler.onEvent(visitTime, pagePath, clientIp, userAgent, referer, visitorId(s[3] + 1, s[5]));
+        return 1;
+    }
+
+    private boolean isMarker(int from, int to) {
+        if (to - from != MARKER.length) {
+            return false;
+        }
+        for (int i = 0; i < MARKER.length; i++) {
+            if (this.buf[from + i] != MARKER[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 固定位置解析 yyyy-MM-dd HH:mm:ss.SSS，格式不符返回 null
+     */
+    private LocalDateTime parseTimestamp(int p) {
+        byte[] b = this.buf;
+        if (b[p + 4] != '-' || b[p + 7] != '-' || b[p + 10] != ' ' || b[p + 13] != ':' || b[p + 16] != ':' || b[p + 19] != '.') {
+            return null;
+        }
+        int year = digits(p, 4);
+        int month = digits(p + 5, 2);
+        int day = digits(p + 8, 2);
+        int hour = digits(p + 11, 2);
+        int minute = digits(p + 14, 2);
+        int second = digits(p + 17, 2);
+        int millis = digits(p + 20, 3);
+        if ((year | month | day | hour | minute | second | millis) < 0) {
+            return null;
+        }
+        try {
+            return LocalDateTime.of(year, month, day, hour, minute, second, millis * 1_000_000);
+        } catch (RuntimeException e) {
+            return null;
+        }
+    }
+
+    private int digits(int p, int n) {
+        int value = 0;
+        for (int i = p; i < p + n; i++) {
+            int d = this.buf[i] - '0';
+            if (d < 0 || d > 9) {
+                return -1;
+            }
+            value = value * 10 + d;
+        }
+        return value;
+    }
+
+    private String utf8(int from, int to) {
+        return new String(this.buf, from, to - from, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * MD5("ip|ua") 的十六进制
+     */
+    private String visitorId(int from, int to) {
+        this.md5.update(this.buf, from, to - from);
+        try {
+            this.md5.digest(this.digest, 0, this.digest.length);
+        } catch (DigestException e) {
+            throw new IllegalStateException(e);
+        }
+        return HEX.formatHex(this.digest);
+    }
+}
@@ -0,0 +1,115 @@
+package com.zjz.mini.uri.run.test;
+
+import cn.hutool.core.codec.Base62;
+import cn.hutool.core.util.HashUtil;
+import com.google.common.hash.HashCode;
+import com.google.common.hash.Hashing;
+import com.zjz.mini.uri.framework.common.util.Base62Codec;
+import com.zjz.mini.uri.framework.common.util.Murmur3;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.util.StopWatch;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ThreadLocalRandom;
+
+public class ShortCodeCodecTest {
+
+    private static final String URL = "https://www.zhangjinzhao.com/short-chain-system/#%E7%9F%AD%E9%93%BE%E6%8E%A5%E8%B7%AF%E7%94%B1%E5%88%B0%E5%8E%9F%E9%93%BE%E6%8E%A5";
+
+    /**
+     * 逐字符计算的结果与 Guava 对 UTF-8 字节计算的结果一致，覆盖各长度尾部、多字节字符与孤立代理字符
+     */
+    @Test
+    public void test_murmur3_matches_guava() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        String[] samples = {"", "a", "短链接", "emoji 😀 end", "lone \uD800 high", "lone \uDC00 low", URL};
+        for (String sample : samples) {
+            assertSameHash(sample);
+        }
+        for (int i = 0; i < 10_000; i++) {
+            StringBuilder sb = new StringBuilder();
+            int length = random.nextInt(0, 64);
+            for (int j = 0; j < length; j++) {
+                int kind = random.nextInt(10);
+                sb.append(kind < 7 ? (char) random.nextInt(0x20, 0x7F) : (char) random.nextInt(0x80, 0xFFFF));
+            }
+            assertSameHash(sb.toString());
+        }
+    }
+
+    private static void assertSameHash(String value) {
+        HashCode expected = Hashing.murmur3_128().hashString(value, StandardCharsets.UTF_8);
+        ByteBuffer buffer = ByteBuffer.wrap(expected.asBytes()).order(ByteOrder.LITTLE_ENDIAN);
+        long[] actual = Murmur3.hash128(value);
+        Assertions.assertEquals(buffer.getLong(0), actual[0], value);
+        Assertions.assertEquals(buffer.getLong(8), actual[1], value);
+        Assertions.assertEquals(expected.asLong(), Murmur3.hash64(value), value);
+    }
+
+    /**
+     * 编解码往返，定长编码补 '0'，与号段/号池原编码一致
+     */
+    @Test
+    public void test_base62_round_trip() {
+        Assertions.assertEquals("0", Base62Codec.encode(0));
+        Assertions.assertEquals("00000000", Base62Codec.encode(0, 8));
+        Assertions.assertEquals("zzzzzzzz", Base62Codec.encode(Base62Codec.pow(8) - 1, 8));
+        Assertions.assertEquals("100000000", Base62Codec.encode(Base62Codec.pow(8)));
+        Assertions.assertEquals(Long.MAX_VALUE, Base62Codec.decode(Base62Codec.encode(Long.MAX_VALUE)));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> Base62Codec.encode(Base62Codec.pow(8), 8));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> Base62Codec.encode(-1));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> Base62Codec.decode("ab-c"));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> Base62Codec.decode("zzzzzzzzzzzz"));
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        for (int i = 0; i < 100_000; i++) {
+            long value = random.nextLong(Base62Codec.pow(8));
+            String code = Base62Codec.encode(value, 8);
+            Assertions.assertEquals(8, code.length());
+            Assertions.assertEquals(value, Base62Codec.decode(code));
+        }
+    }
+
+    /**
+     * 原路径：getBytes + murmur32 + 十进制串 base62
+     * 新路径：逐字符 murmur3_64 + 定长 base62
+     */
+    @Test
+    @EnabledIfSystemProperty(named = "miniuri.bench", matches = "true")
+    public void test_codec_benchmark() {
+        int count = 1_000_000;
+        long space = Base62Codec.pow(8);
+        long sink = 0;
+        StopWatch stopWatch = new StopWatch("short code codec");
+
+        // 预热
+        for (int i = 0; i < 200_000; i++) {
+            sink += legacy(URL + i).length();
+            sink += Base62Codec.encode(Long.remainderUnsigned(Murmur3.hash64(URL + i), space), 8).length();
+        }
+
+        stopWatch.start("legacy murmur32 + Base62(decimal)");
+        for (int i = 0; i < count; i++) {
+            sink += legacy(URL + i).length();
+        }
+        stopWatch.stop();
+
+        stopWatch.start("murmur3_64(chars) + Base62Codec(8)");
+        for (int i = 0; i < count; i++) {
+            sink += Base62Codec.encode(Long.remainderUnsigned(Murmur3.hash64(URL + i), space), 8).length();
+        }
+        stopWatch.stop();
+
+        System.out.println(stopWatch.prettyPrint());
+        Assertions.assertTrue(sink > 0);
+    }
+
+    private static String legacy(String url) {
+        int i = HashUtil.murmur32(url.getBytes());
+        long num = i < 0 ? Integer.MAX_VALUE - (long) i : i;
+        return Base62.encode(String.valueOf(num));
+    }
+}
@@ -0,0 +1,133 @@
+package com.zjz.mini.uri.run.test.aop;
+
+import com.zjz.mini.uri.framework.common.core.BusinessException;
+import com.zjz.mini.uri.run.domain.dto.GenerateUrlReq;
+import com.zjz.mini.uri.run.infrastructure.HttpContextHolder;
+import com.zjz.mini.uri.run.infrastructure.aop.annotation.Prevent;
+import com.zjz.mini.uri.run.infrastructure.aop.aspect.PreventAspect;
+import com.zjz.mini.uri.run.infrastructure.aop.handler.GenShortUrlPreventHandler;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentMatchers;
+import org.mockito.Mockito;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.context.annotation.EnableAspectJAutoProxy;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+import org.springframework.mock.web.MockHttpServletRequest;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class PreventAspectTest {
+
+    @EnableAspectJAutoProxy
+    static class AopConfig {
+    }
+
+    public static class GenerateApi {
+
+        @Prevent(time = 5, message = "5秒内不允许重复生成", strategy = GenShortUrlPreventHandler.class)
+        public String generate(GenerateUrlReq req) {
+            return req.getOriginalUrl();
+        }
+    }
+
+    public static class InvalidApi {
+
+        @Prevent(time = 5)
+        public String generate(GenerateUrlReq req) {
+            return req.getOriginalUrl();
+        }
+    }
+
+    /**
+     * 以 ConcurrentHashMap.putIfAbsent 模拟 Redis SET NX EX 的原子语义
+     */
+    @SuppressWarnings("unchecked")
+    private static RedisTemplate<String, Object> redisTemplate(Map<String, Object> store) {
+        RedisTemplate<String, Object> template = Mockito.mock(RedisTemplate.class);
+        ValueOperations<String, Object> ops = Mockito.mock(ValueOperations.class);
+        Mockito.when(template.opsForValue()).thenReturn(ops);
+        Mockito.when(ops.setIfAbsent(ArgumentMatchers.anyString(), ArgumentMatchers.any(),
+                        ArgumentMatchers.anyLong(), ArgumentMatchers.any(TimeUnit.class)))
+                .thenAnswer(inv -> null == store.putIfAbsent(inv.getArgument(0), inv.getArgument(1)));
+        return template;
+    }
+
+    private static AnnotationConfigApplicationContext context(Class<?> api, Map<String, Object> store) {
+        AnnotationConfigApplicationContext context = new AnnotationConfigApplicationContext();
+        context.registerBean("redisTemplate", RedisTemplate.class, () -> redisTemplate(store));
+        context.register(AopConfig.class, PreventAspect.class, GenShortUrlPreventHandler.class, api);
+        context.refresh();
+        return context;
+    }
+
+    private static GenerateUrlReq req(String url) {
+        GenerateUrlReq req = new GenerateUrlReq();
+        req.setOriginalUrl(url);
+        return req;
+    }
+
+    /**
+     * 两个相同请求同时到达，只有一个通过，另一个被判为重复；不同长链接互不影响
+     */
+    @Test
+    public void test_concurrent_identical_requests() throws Exception {
+        Map<String, Object> store = new ConcurrentHashMap<>();
+        try (AnnotationConfigApplicationContext context = context(GenerateApi.class, store)) {
+            GenerateApi api = context.getBean(GenerateApi.class);
+            for (int round = 0; round < 50; round++) {
+                String url = "https://example.com/" + round;
+                CyclicBarrier barrier = new CyclicBarrier(2);
+                AtomicInteger passed = new AtomicInteger();
+                AtomicInteger rejected = new AtomicInteger();
+                List<Future<?>> futures = new ArrayList<>();
+                try (ExecutorService executor = Executors.newFixedThreadPool(2)) {
+                    for (int i = 0; i < 2; i++) {
+                        futures.add(executor.submit(() -> {
+                            MockHttpServletRequest request = new MockHttpServletRequest();
+                            request.setRemoteAddr("203.0.113.9");
+                            HttpContextHolder.setHttpRequest(request);
+                            try {
+                                barrier.await();
+                                api.generate(req(url));
+                                passed.incrementAndGet();
+                            } catch (BusinessException e) {
+                                Assertions.assertEquals("5秒内不允许重复生成", e.getMessage());
+                                rejected.incrementAndGet();
+                            } finally {
+                                HttpContextHolder.remove();
+                            }
+                            return null;
+                        }));
+                    }
+                }
+                for (Future<?> future : futures) {
+                    future.get();
+                }
+                Assertions.assertEquals(1, passed.get(), "round " + round);
+                Assertions.assertEquals(1, rejected.get(), "round " + round);
+            }
+            Assertions.assertEquals(50, store.size());
+        }
+    }
+
+    /**
+     * 未指定处理策略的 @Prevent 在启动扫描时即失败，而不是等到第一次请求
+     */
+    @Test
+    public void test_invalid_strategy_fails_at_startup() {
+        IllegalStateException e = Assertions.assertThrows(IllegalStateException.class,
+                () -> context(InvalidApi.class, new ConcurrentHashMap<>()));
+        Assertions.assertTrue(e.getMessage().startsWith("接口防刷无效的处理策略"), e.getMessage());
+    }
+}
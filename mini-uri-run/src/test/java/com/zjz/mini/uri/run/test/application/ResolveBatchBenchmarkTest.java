@@ -0,0 +1,69 @@
+package com.zjz.mini.uri.run.test.application;
+
+import com.zjz.mini.uri.run.application.MiniUriService;
+import com.zjz.mini.uri.run.domain.dto.ResolveBatchReq;
+import com.zjz.mini.uri.run.domain.entity.UrlMapping;
+import com.zjz.mini.uri.run.domain.repository.UrlMappingRepository;
+import com.zjz.mini.uri.run.infrastructure.cache.RedirectLocalCache;
+import jakarta.annotation.Resource;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.util.StopWatch;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 批量解析与逐个跳转的吞吐对比，依赖 Redis 与 MySQL
+ * mvn test -Dtest=ResolveBatchBenchmarkTest -Dminiuri.bench=true
+ */
+@SpringBootTest
+@ActiveProfiles("dev")
+@EnabledIfSystemProperty(named = "miniuri.bench", matches = "true")
+public class ResolveBatchBenchmarkTest {
+
+    @Resource
+    private MiniUriService miniUriService;
+
+    @Resource
+    private UrlMappingRepository urlMappingRepository;
+
+    @Resource
+    private RedirectLocalCache redirectLocalCache;
+
+    @Test
+    public void test_batch_vs_single() {
+        List<String> shortUrls = urlMappingRepository.listShortUrlsAfter(0, 1000).stream()
+                .map(UrlMapping::getShortUrl)
+                .toList();
+        Assertions.assertFalse(shortUrls.isEmpty(), "url_mapping is empty");
+        ResolveBatchReq req = new ResolveBatchReq();
+        req.setShortUrls(shortUrls);
+        int rounds = 20;
+
+        StopWatch stopWatch = new StopWatch();
+        stopWatch.start("single x " + shortUrls.size());
+        for (int r = 0; r < rounds; r++) {
+            // 每轮清空本地缓存，只比较 Redis / MySQL 访问方式
+            shortUrls.forEach(redirectLocalCache::invalidate);
+            for (String shortUrl : shortUrls) {
+                miniUriService.redirect(shortUrl);
+            }
+        }
+        stopWatch.stop();
+
+        stopWatch.start("batch x " + shortUrls.size());
+        Map<String, String> resolved = null;
+        for (int r = 0; r < rounds; r++) {
+            shortUrls.forEach(redirectLocalCache::invalidate);
+            resolved = miniUriService.resolveBatch(req);
+        }
+        stopWatch.stop();
+
+        Assertions.assertEquals(shortUrls.size(), resolved.size());
+        System.out.println(stopWatch.prettyPrint());
+    }
+}
@@ -0,0 +1,167 @@
+package com.zjz.mini.uri.run.test.application;
+
+import com.zjz.mini.uri.run.application.VisitorStatsAggregator;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.mockito.Mockito;
+import org.springframework.data.redis.connection.RedisPipelineException;
+import org.springframework.data.redis.core.HyperLogLogOperations;
+import org.springframework.data.redis.core.RedisOperations;
+import org.springframework.data.redis.core.SessionCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.util.StopWatch;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+public class VisitorStatsAggregatorTest {
+
+    private final Map<String, Long> counters = new ConcurrentHashMap<>();
+
+    private final Map<String, Set<String>> sets = new ConcurrentHashMap<>();
+
+    private final AtomicInteger pipelines = new AtomicInteger();
+
+    @SuppressWarnings("unchecked")
+    private VisitorStatsAggregator newAggregator(int maxPendingVisitors) {
+        ValueOperations<String, String> valueOps = Mockito.mock(ValueOperations.class);
+        Mockito.when(valueOps.increment(Mockito.anyString(), Mockito.anyLong())).thenAnswer(inv ->
+                counters.merge(inv.getArgument(0), inv.getArgument(1), Long::sum));
+        HyperLogLogOperations<String, String> hllOps = Mockito.mock(HyperLogLogOperations.class);
+        Mockito.when(hllOps.add(Mockito.anyString(), Mockito.any(String[].class))).thenAnswer(inv -> {
+            Set<String> set = sets.computeIfAbsent(inv.getArgument(0), k -> ConcurrentHashMap.newKeySet());
+            Object[] args = inv.getArguments();
+            for (int i = 1; i < args.length; i++) {
+                set.add((String) args[i]);
+            }
+            return 0L;
+        });
+        RedisOperations<String, String> ops = Mockito.mock(RedisOperations.class);
+        Mockito.when(ops.opsForValue()).thenReturn(valueOps);
+        Mockito.when(ops.opsForHyperLogLog()).thenReturn(hllOps);
+        StringRedisTemplate template = Mockito.mock(StringRedisTemplate.class);
+        Mockito.when(template.executePipelined(Mockito.any(SessionCallback.class))).thenAnswer(inv -> {
+            pipelines.incrementAndGet();
+            ((SessionCallback<Object>) inv.getArgument(0)).execute(ops);
+            return List.of();
+        });
+
+        VisitorStatsAggregator aggregator = new VisitorStatsAggregator();
+        ReflectionTestUtils.setField(aggregator, "maxPendingVisitors", maxPendingVisitors);
+        ReflectionTestUtils.setField(aggregator, "retentionDays", 7);
+        ReflectionTestUtils.setField(aggregator, "stringRedisTemplate", template);
+        ReflectionTestUtils.setField(aggregator, "meterRegistry", new SimpleMeterRegistry());
+        aggregator.init();
+        return aggregator;
+    }
+
+    /**
+     * 并发记录后一次流水线写入，PV 与去重访客数准确
+     */
+    @Test
+    public void test_flush_aggregates() {
+        VisitorStatsAggregator aggregator = newAggregator(100_000);
+        int threads = 16;
+        int perThread = 10_000;
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int t = 0; t < threads; t++) {
+                executor.submit(() -> {
+                    for (int i = 0; i < perThread; i++) {
+                        aggregator.record("/", "visitor-" + (i % 500));
+                    }
+                });
+            }
+        }
+        LocalDate yesterday = LocalDate.now().minusDays(1);
+        aggregator.record("/", yesterday, "visitor-old");
+        aggregator.flush();
+        // 没有增量时不访问 Redis
+        aggregator.flush();
+
+        String today = LocalDate.now().toString();
+        Assertions.assertEquals(1, pipelines.get());
+        Assertions.assertEquals((long) threads * perThread, counters.get("visitor:pv:/:" + today));
+        Assertions.assertEquals(500, sets.get("visitor:uvh:/:" + today).size());
+        Assertions.assertEquals(1L, counters.get("visitor:pv:/:" + yesterday));
+    }
+
+    /**
+     * 待写入访客超限时 UV 事件被丢弃，PV 不受影响
+     */
+    @Test
+    public void test_bounded_pending_visitors() {
+        VisitorStatsAggregator aggregator = newAggregator(100);
+        for (int i = 0; i < 1000; i++) {
+            aggregator.record("/", "visitor-" + i);
+        }
+        aggregator.flush();
+        String today = LocalDate.now().toString();
+        Assertions.assertEquals(1000L, counters.get("visitor:pv:/:" + today));
+        Assertions.assertEquals(100, sets.get("visitor:uvh:/:" + today).size());
+    }
+
+    /**
+     * 流水线部分失败只放回失败命令对应的增量，已执行的 INCRBY 不重复计数
+     */
+    @Test
+    @SuppressWarnings("unchecked")
+    public void test_partial_failure_requeues_failed_commands() {
+        VisitorStatsAggregator aggregator = newAggregator(100);
+        LocalDate yesterday = LocalDate.now().minusDays(1);
+        aggregator.record("/a", yesterday, null);
+        aggregator.record("/b", yesterday, null);
+        StringRedisTemplate template = (StringRedisTemplate) ReflectionTestUtils.getField(aggregator, "stringRedisTemplate");
+        // 每个增量 INCRBY + EXPIRE，第二个增量的 INCRBY 失败
+        Mockito.when(template.executePipelined(Mockito.any(SessionCallback.class))).thenAnswer(inv -> {
+            throw new RedisPipelineException(new IllegalStateException("boom"), List.of(1L, true, new IllegalStateException("boom"), true));
+        }).thenAnswer(inv -> {
+            pipelines.incrementAndGet();
+            return List.of();
+        });
+        aggregator.flush();
+        // 只有失败的一个增量被放回，过去日期的集合未被移除
+        Map<LocalDate, Map<String, ?>> days = (Map<LocalDate, Map<String, ?>>) ReflectionTestUtils.getField(aggregator, "days");
+        Assertions.assertEquals(1, days.get(yesterday).values().stream().filter(slot ->
+                ((LongAdder) ReflectionTestUtils.getField(slot, "pv")).sum() > 0).count());
+        aggregator.flush();
+        Assertions.assertEquals(1, pipelines.get());
+        // 没有新增后移除过去日期
+        aggregator.flush();
+        Assertions.assertFalse(days.containsKey(yesterday));
+    }
+
+    @Test
+    @EnabledIfSystemProperty(named = "miniuri.bench", matches = "true")
+    public void test_record_benchmark() {
+        VisitorStatsAggregator aggregator = newAggregator(1_000_000);
+        int threads = 8;
+        int perThread = 1_000_000;
+        StopWatch stopWatch = new StopWatch("visitor stats aggregator");
+        stopWatch.start(threads + " threads x " + perThread + " record(path, visitor)");
+        try (ExecutorService executor = Executors.newFixedThreadPool(threads)) {
+            for (int t = 0; t < threads; t++) {
+                executor.submit(() -> {
+                    for (int i = 0; i < perThread; i++) {
+                        aggregator.record("/", "visitor-" + (i & 1023));
+                    }
+                });
+            }
+        }
+        stopWatch.stop();
+        System.out.println(stopWatch.prettyPrint());
+        System.out.printf("ns/record per thread: %.1f%n", (double) stopWatch.getTotalTimeNanos() / perThread);
+        aggregator.flush();
+        Assertions.assertEquals((long) threads * perThread, counters.get("visitor:pv:/:" + LocalDate.now()));
+    }
+}
@@ -0,0 +1,112 @@
+package com.zjz.mini.uri.run.test.cache;
+
+import cn.hutool.bloomfilter.BitMapBloomFilter;
+import cn.hutool.bloomfilter.BloomFilterUtil;
+import com.google.common.hash.BloomFilter;
+import com.google.common.hash.Funnels;
+import com.zjz.mini.uri.run.infrastructure.cache.ConcurrentBloomFilter;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.util.StopWatch;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
+
+public class ConcurrentBloomFilterTest {
+
+    /**
+     * 多线程并发加入后没有漏判，误判率接近目标值
+     */
+    @Test
+    public void test_concurrent_put() throws Exception {
+        int threads = 32;
+        int perThread = 10_000;
+        ConcurrentBloomFilter filter = new ConcurrentBloomFilter((long) threads * perThread, 0.01);
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int t = 0; t < threads; t++) {
+                int thread = t;
+                executor.submit(() -> {
+                    List<String> batch = new ArrayList<>();
+                    for (int i = 0; i < perThread; i++) {
+                        batch.add("code-" + thread + "-" + i);
+                    }
+                    filter.addAll(batch);
+                });
+            }
+        }
+
+        for (int t = 0; t < threads; t++) {
+            List<String> batch = new ArrayList<>();
+            for (int i = 0; i < perThread; i++) {
+                batch.add("code-" + t + "-" + i);
+            }
+            Assertions.assertTrue(filter.containsAll(batch));
+        }
+
+        int falsePositives = 0;
+        int probes = 100_000;
+        for (int i = 0; i < probes; i++) {
+            if (filter.mightContain("absent-" + i)) {
+                falsePositives++;
+            }
+        }
+        double fpp = (double) falsePositives / probes;
+        Assertions.assertTrue(fpp < 0.02, "fpp: " + fpp);
+        Assertions.assertTrue(filter.expectedFpp() < 0.02);
+        // 元素数量估算误差在 5% 以内
+        Assertions.assertEquals(threads * perThread, filter.approximateElementCount(), threads * perThread * 0.05);
+    }
+
+    /**
+     * 与原 Hutool BitMapBloomFilter、Guava BloomFilter 对比，1/8/64 个虚拟线程读写各半
+     */
+    @Test
+    @EnabledIfSystemProperty(named = "miniuri.bench", matches = "true")
+    public void test_benchmark() throws Exception {
+        int total = 640_000;
+        String[] keys = new String[total];
+        for (int i = 0; i < total; i++) {
+            keys[i] = Integer.toString(i * 31, 36);
+        }
+        StopWatch stopWatch = new StopWatch("bloom filter");
+        for (int threads : new int[]{1, 8, 64}) {
+            BitMapBloomFilter hutool = BloomFilterUtil.createBitMap(10);
+            run(stopWatch, "hutool-" + threads, threads, keys, key -> {
+                hutool.add(key);
+                hutool.contains(key);
+            });
+            BloomFilter<CharSequence> guava = BloomFilter.create(Funnels.stringFunnel(StandardCharsets.UTF_8), total, 0.001);
+            run(stopWatch, "guava-" + threads, threads, keys, key -> {
+                guava.put(key);
+                guava.mightContain(key);
+            });
+            ConcurrentBloomFilter concurrent = new ConcurrentBloomFilter(total, 0.001);
+            run(stopWatch, "concurrent-" + threads, threads, keys, key -> {
+                concurrent.put(key);
+                concurrent.mightContain(key);
+            });
+        }
+        System.out.println(stopWatch.prettyPrint());
+    }
+
+    private void run(StopWatch stopWatch, String name, int threads, String[] keys, Consumer<String> op) {
+        int perThread = keys.length / threads;
+        stopWatch.start(name);
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int t = 0; t < threads; t++) {
+                int from = t * perThread;
+                executor.submit(() -> {
+                    for (int i = from; i < from + perThread; i++) {
+                        op.accept(keys[i]);
+                    }
+                });
+            }
+        }
+        stopWatch.stop();
+    }
+}
@@ -0,0 +1,67 @@
+package com.zjz.mini.uri.run.test.cache;
+
+import com.zjz.mini.uri.run.infrastructure.cache.CountMinSketch;
+import com.zjz.mini.uri.run.infrastructure.cache.HotKeyDetector;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+public class HotKeyDetectorTest {
+
+    /**
+     * 多线程写入不同分段，合计估算不低估
+     */
+    @Test
+    public void test_striped_sketch_estimate() {
+        CountMinSketch sketch = new CountMinSketch(4, 1024, 8);
+        try (ExecutorService executor = Executors.newFixedThreadPool(8)) {
+            for (int t = 0; t < 8; t++) {
+                executor.submit(() -> {
+                    for (int i = 0; i < 10_000; i++) {
+                        sketch.add("hot");
+                        sketch.add("cold-" + (i % 100));
+                    }
+                });
+            }
+        }
+        Assertions.assertTrue(sketch.estimate("hot") >= 80_000);
+        Assertions.assertTrue(sketch.estimate("cold-1") >= 800);
+        sketch.clear();
+        Assertions.assertEquals(0, sketch.estimate("hot"));
+    }
+
+    /**
+     * 合计达到 minHits 的短链进入热点，top-K 满员时冷门短链不替换热点
+     */
+    @Test
+    public void test_detect_and_admission() {
+        HotKeyDetector detector = new HotKeyDetector();
+        ReflectionTestUtils.setField(detector, "enabled", true);
+        ReflectionTestUtils.setField(detector, "topK", 2);
+        ReflectionTestUtils.setField(detector, "minHits", 100L);
+        ReflectionTestUtils.setField(detector, "sketchWidth", 1024);
+        ReflectionTestUtils.setField(detector, "leaseMillis", 2000L);
+        detector.init();
+        try (ExecutorService executor = Executors.newFixedThreadPool(4)) {
+            for (int t = 0; t < 4; t++) {
+                executor.submit(() -> {
+                    for (int i = 0; i < 1000; i++) {
+                        detector.record("a");
+                        detector.record("b");
+                        if (i % 4 == 0) {
+                            detector.record("c");
+                        }
+                    }
+                });
+            }
+        }
+        Assertions.assertTrue(detector.record("a"));
+        Assertions.assertTrue(detector.record("b"));
+        Assertions.assertFalse(detector.record("c"));
+        Assertions.assertEquals(2, detector.snapshot().size());
+        Assertions.assertTrue(detector.snapshot().get(0).hits() >= 4000);
+    }
+}
@@ -0,0 +1,64 @@
+package com.zjz.mini.uri.run.test.cache;
+
+import com.zjz.mini.uri.run.infrastructure.cache.SingleFlight;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class SingleFlightTest {
+
+    /**
+     * N 个虚拟线程同时未命中同一个 key，只应执行一次加载，且全部拿到同一结果
+     */
+    @Test
+    public void test_coalesce() throws Exception {
+        int threads = 500;
+        SingleFlight<String, String> flight = new SingleFlight<>(null);
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        List<Future<String>> futures = new ArrayList<>();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < threads; i++) {
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    return flight.execute("hot", () -> {
+                        loads.incrementAndGet();
+                        try {
+                            // 模拟慢查询，保证其余线程都在等待
+                            release.await();
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                        }
+                        return "https://www.zhangjinzhao.com";
+                    });
+                }));
+            }
+            start.countDown();
+            Thread.sleep(200);
+            release.countDown();
+            for (Future<String> future : futures) {
+                Assertions.assertEquals("https://www.zhangjinzhao.com", future.get());
+            }
+        }
+        Assertions.assertEquals(1, loads.get());
+    }
+
+    @Test
+    public void test_failure_propagates_and_resets() {
+        SingleFlight<String, String> flight = new SingleFlight<>(null);
+        Assertions.assertThrows(IllegalStateException.class, () -> flight.execute("k", () -> {
+            throw new IllegalStateException("db down");
+        }));
+        // 失败后不残留，下次调用重新加载
+        Assertions.assertEquals("v", flight.execute("k", () -> "v"));
+    }
+}
@@ -0,0 +1,122 @@
+package com.zjz.mini.uri.run.test.controller;
+
+import com.zjz.mini.uri.run.application.MiniUriService;
+import com.zjz.mini.uri.run.controller.MiniUriController;
+import com.zjz.mini.uri.run.infrastructure.config.RedirectFastPathFilter;
+import com.zjz.mini.uri.run.infrastructure.config.RequestFilter;
+import com.zjz.mini.uri.run.infrastructure.interceptor.VisitorStatsInterceptor;
+import com.zjz.mini.uri.run.infrastructure.ratelimit.ClientIpResolver;
+import com.zjz.mini.uri.run.infrastructure.ratelimit.RateLimiterRegistry;
+import com.zjz.mini.uri.run.infrastructure.stats.ShortUrlClickCounter;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.util.StopWatch;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+
+/**
+ * 快速通道与 MVC 跳转路径的对比
+ */
+public class RedirectFastPathTest {
+
+    private static final String LONG_URL = "https://www.zhangjinzhao.com/short-chain-system/";
+
+    /**
+     * 缓存层总是命中的服务桩，不依赖 Redis / MySQL
+     */
+    static class StubMiniUriService extends MiniUriService {
+
+        int cachedCalls;
+
+        @Override
+        public String redirect(String shortUrl) {
+            return LONG_URL;
+        }
+
+        @Override
+        public String redirectFromCache(String shortUrl) {
+            cachedCalls++;
+            return LONG_URL;
+        }
+    }
+
+    private MockMvc build(boolean fastPath) {
+        return build(new StubMiniUriService(), fastPath);
+    }
+
+    private MockMvc build(MiniUriService service, boolean fastPath) {
+        MiniUriController controller = new MiniUriController();
+        ReflectionTestUtils.setField(controller, "miniUriService", service);
+        // 点击计数未启动，record 直接返回
+        ShortUrlClickCounter clickCounter = new ShortUrlClickCounter();
+        ReflectionTestUtils.setField(controller, "shortUrlClickCounter", clickCounter);
+        RedirectFastPathFilter fastPathFilter = new RedirectFastPathFilter();
+        ReflectionTestUtils.setField(fastPathFilter, "miniUriService", service);
+        ReflectionTestUtils.setField(fastPathFilter, "enabled", fastPath);
+        // 限流未启用
+        ReflectionTestUtils.setField(fastPathFilter, "rateLimiterRegistry", new RateLimiterRegistry());
+        ReflectionTestUtils.setField(fastPathFilter, "clientIpResolver", new ClientIpResolver());
+        ReflectionTestUtils.setField(fastPathFilter, "shortUrlClickCounter", clickCounter);
+        return MockMvcBuilders.standaloneSetup(controller)
+                .addFilters(fastPathFilter, new RequestFilter())
+                .addInterceptors(new VisitorStatsInterceptor())
+                .build();
+    }
+
+    @Test
+    public void test_fast_path_matches_mvc() throws Exception {
+        MockMvc fast = build(true);
+        MockMvc mvc = build(false);
+        for (MockMvc mockMvc : new MockMvc[]{fast, mvc}) {
+            MockHttpServletResponse response = mockMvc.perform(get("/3b4K9xQ")).andReturn().getResponse();
+            Assertions.assertEquals(302, response.getStatus());
+            Assertions.assertEquals(LONG_URL, response.getHeader("Location"));
+        }
+    }
+
+    @Test
+    public void test_reserved_and_invalid_paths_skip_fast_path() throws Exception {
+        StubMiniUriService service = new StubMiniUriService();
+        MockMvc fast = build(service, true);
+        fast.perform(get("/generate"));
+        fast.perform(get("/stats/overview"));
+        fast.perform(get("/robots.txt"));
+        fast.perform(get("/a-b"));
+        Assertions.assertEquals(0, service.cachedCalls);
+        fast.perform(get("/3b4K9xQ"));
+        Assertions.assertEquals(1, service.cachedCalls);
+    }
+
+    @Test
+    @EnabledIfSystemProperty(named = "miniuri.bench", matches = "true")
+    public void test_benchmark() throws Exception {
+        int count = 20000;
+        MockMvc fast = build(true);
+        MockMvc mvc = build(false);
+        // 预热
+        for (int i = 0; i < 2000; i++) {
+            fast.perform(get("/3b4K9xQ"));
+            mvc.perform(get("/3b4K9xQ"));
+        }
+
+        StopWatch stopWatch = new StopWatch();
+        stopWatch.start("mvc");
+        for (int i = 0; i < count; i++) {
+            mvc.perform(get("/3b4K9xQ"));
+        }
+        stopWatch.stop();
+
+        stopWatch.start("fast-path");
+        for (int i = 0; i < count; i++) {
+            fast.perform(get("/3b4K9xQ"));
+        }
+        stopWatch.stop();
+
+        System.out.println(stopWatch.prettyPrint());
+    }
+}
@@ -0,0 +1,40 @@
+package com.zjz.mini.uri.run.test.id;
+
+import com.zjz.mini.uri.run.infrastructure.id.FeistelPermutation;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.BitSet;
+
+public class FeistelPermutationTest {
+
+    /**
+     * 非 2 的幂值域上是一一映射
+     */
+    @Test
+    public void test_bijection() {
+        int domain = 62 * 62 * 62;
+        FeistelPermutation permutation = new FeistelPermutation(domain, 42);
+        BitSet seen = new BitSet(domain);
+        for (int i = 0; i < domain; i++) {
+            long value = permutation.permute(i);
+            Assertions.assertTrue(value >= 0 && value < domain);
+            Assertions.assertFalse(seen.get((int) value), "duplicate: " + value);
+            seen.set((int) value);
+        }
+        Assertions.assertEquals(domain, seen.cardinality());
+    }
+
+    @Test
+    public void test_secret_changes_order() {
+        FeistelPermutation a = new FeistelPermutation(1_000_000, 1);
+        FeistelPermutation b = new FeistelPermutation(1_000_000, 2);
+        int same = 0;
+        for (int i = 0; i < 1000; i++) {
+            if (a.permute(i) == b.permute(i)) {
+                same++;
+            }
+        }
+        Assertions.assertTrue(same < 10);
+    }
+}
@@ -0,0 +1,52 @@
+package com.zjz.mini.uri.run.test.id;
+
+import com.zjz.mini.uri.run.infrastructure.id.SegmentIdAllocator;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+public class SegmentIdAllocatorTest {
+
+    /**
+     * 多线程并发分配，跨越多个号段，id 不重复且全部来自已租用的号段
+     */
+    @Test
+    public void test_unique_across_segments() throws Exception {
+        int step = 100;
+        AtomicLong maxId = new AtomicLong(1000);
+        AtomicInteger leases = new AtomicInteger();
+        ExecutorService preloader = Executors.newVirtualThreadPerTaskExecutor();
+        SegmentIdAllocator allocator = new SegmentIdAllocator("test", step, 0.1, s -> {
+            leases.incrementAndGet();
+            return maxId.addAndGet(s);
+        }, preloader);
+
+        int threads = 16;
+        int perThread = 5000;
+        Set<Long> ids = ConcurrentHashMap.newKeySet();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int t = 0; t < threads; t++) {
+                executor.submit(() -> {
+                    for (int i = 0; i < perThread; i++) {
+                        ids.add(allocator.nextId());
+                    }
+                });
+            }
+        }
+        preloader.close();
+
+        Assertions.assertEquals(threads * perThread, ids.size());
+        long min = ids.stream().mapToLong(Long::longValue).min().orElseThrow();
+        long max = ids.stream().mapToLong(Long::longValue).max().orElseThrow();
+        Assertions.assertTrue(min > 1000);
+        Assertions.assertTrue(max <= maxId.get());
+        // 预取的号段最多浪费一个
+        Assertions.assertTrue(leases.get() <= threads * perThread / step + 1);
+    }
+}
@@ -0,0 +1,48 @@
+package com.zjz.mini.uri.run.test.id;
+
+import com.zjz.mini.uri.run.infrastructure.id.ShortCodePool;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+public class ShortCodePoolTest {
+
+    /**
+     * 突发并发取用，补充与同步兜底同时发生，短链不重复
+     */
+    @Test
+    public void test_take_unique_under_burst() throws Exception {
+        AtomicLong counter = new AtomicLong();
+        ExecutorService refiller = Executors.newVirtualThreadPerTaskExecutor();
+        ShortCodePool pool = new ShortCodePool("test", 500, 100, () -> {
+            List<String> batch = new ArrayList<>();
+            for (int i = 0; i < 100; i++) {
+                batch.add("c" + counter.incrementAndGet());
+            }
+            return batch;
+        }, refiller, new SimpleMeterRegistry());
+
+        int threads = 32;
+        int perThread = 2000;
+        Set<String> codes = ConcurrentHashMap.newKeySet();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int t = 0; t < threads; t++) {
+                executor.submit(() -> {
+                    for (int i = 0; i < perThread; i++) {
+                        codes.add(pool.take());
+                    }
+                });
+            }
+        }
+        refiller.close();
+        Assertions.assertEquals(threads * perThread, codes.size());
+    }
+}
@@ -0,0 +1,156 @@
+package com.zjz.mini.uri.run.test.persistence;
+
+import com.zjz.mini.uri.run.domain.entity.UrlMapping;
+import com.zjz.mini.uri.run.domain.repository.UrlMappingRepository;
+import com.zjz.mini.uri.run.infrastructure.persistence.MappingJournal;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mockito;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.util.StopWatch;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.Stream;
+
+public class MappingJournalTest {
+
+    @TempDir
+    Path dir;
+
+    private final List<UrlMapping> replayed = new ArrayList<>();
+
+    private MappingJournal newJournal() throws Exception {
+        UrlMappingRepository repository = Mockito.mock(UrlMappingRepository.class);
+        Mockito.when(repository.insertBatch(Mockito.anyList())).thenAnswer(invocation -> {
+            List<UrlMapping> batch = invocation.getArgument(0);
+            replayed.addAll(batch);
+            return List.of();
+        });
+        MappingJournal journal = new MappingJournal();
+        ReflectionTestUtils.setField(journal, "enabled", true);
+        ReflectionTestUtils.setField(journal, "dir", dir.toString());
+        ReflectionTestUtils.setField(journal, "syncIntervalMillis", 2L);
+        ReflectionTestUtils.setField(journal, "segmentBytes", 4096L);
+        ReflectionTestUtils.setField(journal, "rollIntervalMillis", 60_000L);
+        ReflectionTestUtils.setField(journal, "appendTimeoutMillis", 1000L);
+        ReflectionTestUtils.setField(journal, "urlMappingRepository", repository);
+        ReflectionTestUtils.setField(journal, "meterRegistry", new SimpleMeterRegistry());
+        journal.init();
+        return journal;
+    }
+
+    private static UrlMapping mapping(int i) {
+        return new UrlMapping()
+                .setShortUrl("code" + i)
+                .setLongUrl("https://example.com/path/" + i)
+                .setBuildType(0)
+                .setUrlFingerprint((long) i)
+                .setExpireTime(i % 2 == 0 ? null : LocalDateTime.now().plusDays(1).truncatedTo(ChronoUnit.SECONDS));
+    }
+
+    private long segmentCount() throws Exception {
+        try (Stream<Path> files = Files.list(dir)) {
+            return files.count();
+        }
+    }
+
+    /**
+     * 未确认的映射在重启后重放，确认后的日志段被删除
+     */
+    @Test
+    public void test_replay_unconfirmed() throws Exception {
+        MappingJournal journal = newJournal();
+        List<Long> seqs = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            seqs.add(journal.append(mapping(i)));
+        }
+        Assertions.assertEquals(100, journal.lag());
+        Assertions.assertTrue(segmentCount() > 1, "segments should roll at segmentBytes");
+        // 确认前 80 条，已关闭且全部确认的段被删除
+        long before = segmentCount();
+        seqs.subList(0, 80).forEach(journal::confirm);
+        Assertions.assertEquals(20, journal.lag());
+        Assertions.assertTrue(segmentCount() < before);
+        journal.shutdown();
+
+        // 模拟崩溃时写了一半的尾部记录
+        try (Stream<Path> files = Files.list(dir)) {
+            Path last = files.sorted().reduce((a, b) -> b).orElseThrow();
+            Files.write(last, new byte[]{0, 0, 1, 0, 7}, StandardOpenOption.APPEND);
+        }
+
+        MappingJournal restarted = newJournal();
+        List<String> codes = replayed.stream().map(UrlMapping::getShortUrl).toList();
+        for (int i = 80; i < 100; i++) {
+            Assertions.assertTrue(codes.contains("code" + i), "code" + i + " not replayed");
+        }
+        UrlMapping sample = replayed.stream().filter(m -> m.getShortUrl().equals("code99")).findFirst().orElseThrow();
+        Assertions.assertEquals(mapping(99).getLongUrl(), sample.getLongUrl());
+        Assertions.assertEquals(mapping(99).getExpireTime(), sample.getExpireTime());
+        Assertions.assertEquals(99L, sample.getUrlFingerprint());
+        Assertions.assertEquals(0, restarted.lag());
+        // 重放后旧段已删除，只剩新的活动段
+        Assertions.assertEquals(1, segmentCount());
+        restarted.shutdown();
+        Assertions.assertEquals(0, segmentCount());
+    }
+
+    /**
+     * 等待落盘超时时抛出异常并带回序号，由调用方同步入库后确认
+     */
+    @Test
+    public void test_append_timeout_propagates() throws Exception {
+        MappingJournal journal = newJournal();
+        // 放慢组提交，追加时不会等到落盘
+        ReflectionTestUtils.setField(journal, "syncIntervalMillis", 1000L);
+        ReflectionTestUtils.setField(journal, "appendTimeoutMillis", 10L);
+        Thread.sleep(20);
+        MappingJournal.SyncFailedException e = Assertions.assertThrows(MappingJournal.SyncFailedException.class,
+                () -> journal.append(mapping(1)));
+        Assertions.assertTrue(e.seq() > 0);
+        Assertions.assertEquals(1, journal.lag());
+        journal.confirm(e.seq());
+        Assertions.assertEquals(0, journal.lag());
+        journal.shutdown();
+    }
+
+    /**
+     * 组提交：并发追加时多条记录共享一次 fsync
+     */
+    @Test
+    @EnabledIfSystemProperty(named = "miniuri.bench", matches = "true")
+    public void test_group_commit_throughput() throws Exception {
+        MappingJournal journal = newJournal();
+        ReflectionTestUtils.setField(journal, "segmentBytes", 64L * 1024 * 1024);
+        int threads = 256;
+        int perThread = 200;
+        StopWatch stopWatch = new StopWatch("mapping journal");
+        stopWatch.start(threads + " threads x " + perThread);
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int t = 0; t < threads; t++) {
+                int thread = t;
+                executor.submit(() -> {
+                    for (int i = 0; i < perThread; i++) {
+                        journal.confirm(journal.append(mapping(thread * perThread + i)));
+                    }
+                });
+            }
+        }
+        stopWatch.stop();
+        System.out.println(stopWatch.prettyPrint());
+        System.out.printf("appends/s: %.0f%n", threads * perThread / stopWatch.getTotalTimeSeconds());
+        Assertions.assertEquals(0, journal.lag());
+        journal.shutdown();
+    }
+}
@@ -0,0 +1,77 @@
+package com.zjz.mini.uri.run.test.persistence;
+
+import com.baomidou.mybatisplus.core.MybatisConfiguration;
+import com.baomidou.mybatisplus.core.metadata.TableInfoHelper;
+import com.zjz.mini.uri.run.domain.dao.UrlMappingMapper;
+import com.zjz.mini.uri.run.domain.entity.UrlMapping;
+import com.zjz.mini.uri.run.domain.repository.UrlMappingRepository;
+import org.apache.ibatis.builder.MapperBuilderAssistant;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public class UrlMappingInsertTest {
+
+    @BeforeAll
+    public static void initTableInfo() {
+        // LambdaQueryWrapper 需要实体的表信息
+        TableInfoHelper.initTableInfo(new MapperBuilderAssistant(new MybatisConfiguration(), ""), UrlMapping.class);
+    }
+
+    /**
+     * 已存在的短链不覆盖：同一长链接视为已写入，已过期的接管，指向其他长链接的作为冲突返回
+     */
+    @Test
+    public void test_insert_batch_never_overwrites() {
+        UrlMappingMapper mapper = Mockito.mock(UrlMappingMapper.class);
+        // 4 行中只有 fresh 被插入
+        Mockito.when(mapper.insertIgnoreBatch(Mockito.anyList())).thenReturn(1);
+        Mockito.when(mapper.selectList(Mockito.any())).thenReturn(List.of(
+                mapping("fresh", "https://a.com/fresh", null),
+                mapping("replayed", "https://a.com/replayed", null),
+                mapping("expired", "https://a.com/old", LocalDateTime.now().minusDays(1)),
+                mapping("taken", "https://a.com/original", LocalDateTime.now().plusDays(1))));
+        Mockito.when(mapper.replaceExpired(Mockito.any())).thenReturn(1);
+        UrlMappingRepository repository = new UrlMappingRepository();
+        ReflectionTestUtils.setField(repository, "urlMappingMapper", mapper);
+
+        List<UrlMapping> conflicts = repository.insertBatch(List.of(
+                mapping("fresh", "https://a.com/fresh", null),
+                mapping("replayed", "https://a.com/replayed", null),
+                mapping("expired", "https://a.com/new", null),
+                mapping("taken", "https://a.com/collision", null)));
+
+        Assertions.assertEquals(List.of("taken"), conflicts.stream().map(UrlMapping::getShortUrl).toList());
+        Mockito.verify(mapper).replaceExpired(Mockito.argThat(m -> m.getShortUrl().equals("expired")));
+        Mockito.verify(mapper, Mockito.never()).updateById(Mockito.any(UrlMapping.class));
+    }
+
+    /**
+     * 全部插入时不回查
+     */
+    @Test
+    public void test_insert_batch_all_inserted() {
+        UrlMappingMapper mapper = Mockito.mock(UrlMappingMapper.class);
+        Mockito.when(mapper.insertIgnoreBatch(Mockito.anyList())).thenReturn(2);
+        UrlMappingRepository repository = new UrlMappingRepository();
+        ReflectionTestUtils.setField(repository, "urlMappingMapper", mapper);
+
+        Assertions.assertTrue(repository.insertBatch(List.of(
+                mapping("a", "https://a.com/a", null),
+                mapping("b", "https://a.com/b", null))).isEmpty());
+        Mockito.verify(mapper, Mockito.never()).selectList(Mockito.any());
+    }
+
+    private static UrlMapping mapping(String shortUrl, String longUrl, LocalDateTime expireTime) {
+        return new UrlMapping()
+                .setShortUrl(shortUrl)
+                .setLongUrl(longUrl)
+                .setBuildType(0)
+                .setExpireTime(expireTime);
+    }
+}
@@ -0,0 +1,80 @@
+package com.zjz.mini.uri.run.test.persistence;
+
+import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.zjz.mini.uri.run.domain.dao.VisitorLogMapper;
+import com.zjz.mini.uri.run.domain.entity.VisitorLog;
+import com.zjz.mini.uri.run.infrastructure.persistence.VisitorLogBatchWriter;
+import jakarta.annotation.Resource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.util.StopWatch;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * visitor_log 逐条 insert 与批量写入的吞吐对比，依赖 MySQL
+ * mvn test -Dtest=VisitorLogBatchBenchmarkTest -Dminiuri.bench=true
+ */
+@SpringBootTest
+@ActiveProfiles("dev")
+@EnabledIfSystemProperty(named = "miniuri.bench", matches = "true")
+public class VisitorLogBatchBenchmarkTest {
+
+    private static final String BENCH_PATH = "/__bench__";
+
+    @Resource
+    private VisitorLogMapper visitorLogMapper;
+
+    @Resource
+    private VisitorLogBatchWriter visitorLogBatchWriter;
+
+    @AfterEach
+    public void cleanUp() {
+        visitorLogMapper.delete(new LambdaQueryWrapper<VisitorLog>().eq(VisitorLog::getPagePath, BENCH_PATH));
+    }
+
+    @Test
+    public void test_single_vs_batch() {
+        int count = 20000;
+        StopWatch stopWatch = new StopWatch();
+
+        List<VisitorLog> single = rows(count);
+        stopWatch.start("single insert x " + count);
+        for (VisitorLog row : single) {
+            visitorLogMapper.insert(row);
+        }
+        stopWatch.stop();
+        double singleRate = count / stopWatch.lastTaskInfo().getTimeSeconds();
+
+        List<VisitorLog> batch = rows(count);
+        stopWatch.start("batch writer x " + count);
+        int written = visitorLogBatchWriter.writeAll(batch);
+        stopWatch.stop();
+        double batchRate = count / stopWatch.lastTaskInfo().getTimeSeconds();
+
+        System.out.println(stopWatch.prettyPrint());
+        System.out.printf("rows/sec single: %.0f, batch: %.0f%n", singleRate, batchRate);
+        Assertions.assertEquals(count, written);
+    }
+
+    private static List<VisitorLog> rows(int count) {
+        List<VisitorLog> rows = new ArrayList<>(count);
+        LocalDateTime now = LocalDateTime.now();
+        for (int i = 0; i < count; i++) {
+            rows.add(new VisitorLog()
+                    .setPagePath(BENCH_PATH)
+                    .setVisitorId(Integer.toHexString(i))
+                    .setIpAddress("127.0.0.1")
+                    .setUserAgent("Mozilla/5.0 (X11; Linux x86_64)")
+                    .setReferer("https://www.zhangjinzhao.com/")
+                    .setVisitTime(now));
+        }
+        return rows;
+    }
+}
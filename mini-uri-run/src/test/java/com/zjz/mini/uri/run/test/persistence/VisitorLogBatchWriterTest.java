@@ -0,0 +1,179 @@
+package com.zjz.mini.uri.run.test.persistence;
+
+import com.zjz.mini.uri.run.domain.dao.VisitorLogMapper;
+import com.zjz.mini.uri.run.domain.entity.VisitorLog;
+import com.zjz.mini.uri.run.infrastructure.persistence.VisitorLogBatchWriter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.ibatis.mapping.Environment;
+import org.apache.ibatis.session.Configuration;
+import org.apache.ibatis.session.ExecutorType;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.mybatis.spring.transaction.SpringManagedTransactionFactory;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.AbstractPlatformTransactionManager;
+import org.springframework.transaction.support.DefaultTransactionStatus;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class VisitorLogBatchWriterTest {
+
+    private final List<VisitorLog> committed = new ArrayList<>();
+
+    /**
+     * 当前事务内已执行、尚未提交的行
+     */
+    private final List<VisitorLog> pending = new ArrayList<>();
+
+    private final AtomicInteger commits = new AtomicInteger();
+
+    private final AtomicInteger rollbacks = new AtomicInteger();
+
+    /**
+     * 模拟数据库：事务内的 insert 在提交时生效、回滚时丢弃，事务外按 auto-commit 立即生效；
+     * failOn 指定第几次 flushStatements 失败，failOnInsert 指定第几次 insert 失败
+     */
+    private VisitorLogBatchWriter newWriter(int batchSize, int maxAttempts, int[] failOnInsert, int... failOn) {
+        AtomicInteger flushes = new AtomicInteger();
+        AtomicInteger inserts = new AtomicInteger();
+        VisitorLogMapper mapper = Mockito.mock(VisitorLogMapper.class);
+        Mockito.when(mapper.insert(Mockito.any(VisitorLog.class))).thenAnswer(i -> {
+            int n = inserts.incrementAndGet();
+            for (int f : failOnInsert) {
+                if (f == n) {
+                    throw new IllegalStateException("lock wait timeout exceeded");
+                }
+            }
+            if (TransactionSynchronizationManager.isActualTransactionActive()) {
+                pending.add(i.getArgument(0));
+            } else {
+                committed.add(i.getArgument(0));
+            }
+            return 1;
+        });
+        SqlSession session = Mockito.mock(SqlSession.class);
+        Mockito.when(session.flushStatements()).thenAnswer(i -> {
+            int n = flushes.incrementAndGet();
+            for (int f : failOn) {
+                if (f == n) {
+                    throw new IllegalStateException("deadlock found when trying to get lock");
+                }
+            }
+            return List.of();
+        });
+        Configuration configuration = Mockito.mock(Configuration.class);
+        Mockito.when(configuration.getEnvironment()).thenReturn(
+                new Environment("test", new SpringManagedTransactionFactory(), Mockito.mock(DataSource.class)));
+        Mockito.when(configuration.getMapper(Mockito.eq(VisitorLogMapper.class), Mockito.any())).thenReturn(mapper);
+        SqlSessionFactory factory = Mockito.mock(SqlSessionFactory.class);
+        Mockito.when(factory.getConfiguration()).thenReturn(configuration);
+        Mockito.when(factory.openSession(ExecutorType.BATCH)).thenReturn(session);
+
+        VisitorLogBatchWriter writer = new VisitorLogBatchWriter();
+        ReflectionTestUtils.setField(writer, "queueCapacity", 10000);
+        ReflectionTestUtils.setField(writer, "batchSize", batchSize);
+        ReflectionTestUtils.setField(writer, "flushIntervalMillis", 20L);
+        ReflectionTestUtils.setField(writer, "maxAttempts", maxAttempts);
+        ReflectionTestUtils.setField(writer, "retryBackoffMillis", 1L);
+        ReflectionTestUtils.setField(writer, "sqlSessionFactory", factory);
+        ReflectionTestUtils.setField(writer, "transactionTemplate", new TransactionTemplate(new StubTransactionManager()));
+        ReflectionTestUtils.setField(writer, "meterRegistry", new SimpleMeterRegistry());
+        writer.init();
+        return writer;
+    }
+
+    private VisitorLogBatchWriter newWriter(int batchSize, int maxAttempts, int... failOn) {
+        return newWriter(batchSize, maxAttempts, new int[0], failOn);
+    }
+
+    private static List<VisitorLog> rows(int count) {
+        List<VisitorLog> rows = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            rows.add(new VisitorLog().setPagePath("/").setVisitorId("visitor-" + i).setVisitTime(LocalDateTime.now()));
+        }
+        return rows;
+    }
+
+    /**
+     * 按 batchSize 分块，每块一次提交；失败的块回滚后整块重试，不重复写入；重试用尽的块丢弃
+     */
+    @Test
+    public void test_write_all_chunks_and_retries() {
+        VisitorLogBatchWriter writer = newWriter(100, 2, 2, 4, 5);
+        // 块 1 成功，块 2 第一次失败后重试成功（flush 2、3），块 3 两次都失败（flush 4、5）
+        int written = writer.writeAll(rows(300));
+        Assertions.assertEquals(200, written);
+        Assertions.assertEquals(200, committed.size());
+        Assertions.assertEquals(2, commits.get());
+        Assertions.assertEquals(3, rollbacks.get());
+        Assertions.assertEquals(200, committed.stream().map(VisitorLog::getVisitorId).distinct().count());
+    }
+
+    /**
+     * 块写到一半失败：已执行的行随事务回滚，重试后没有重复行
+     */
+    @Test
+    public void test_half_written_chunk_retry_no_duplicates() {
+        // 第 50 次 insert 失败，即块 1 写入 49 行后失败
+        VisitorLogBatchWriter writer = newWriter(100, 3, new int[]{50}, new int[0]);
+        int written = writer.writeAll(rows(200));
+        Assertions.assertEquals(200, written);
+        Assertions.assertEquals(200, committed.size());
+        Assertions.assertEquals(200, committed.stream().map(VisitorLog::getVisitorId).distinct().count());
+        Assertions.assertEquals(1, rollbacks.get());
+        Assertions.assertTrue(pending.isEmpty());
+    }
+
+    /**
+     * 队列中的日志凑批写入，停机时排空
+     */
+    @Test
+    public void test_enqueue_drains_on_stop() {
+        VisitorLogBatchWriter writer = newWriter(256, 3);
+        // 未启动时丢弃
+        writer.enqueue(new VisitorLog());
+        writer.start();
+        rows(1000).forEach(writer::enqueue);
+        writer.stop();
+        Assertions.assertEquals(1000, committed.size());
+        Assertions.assertTrue(commits.get() >= 4, "commits: " + commits.get());
+    }
+
+    /**
+     * 模拟数据源事务：提交时 pending 生效，回滚时丢弃
+     */
+    private class StubTransactionManager extends AbstractPlatformTransactionManager {
+
+        @Override
+        protected Object doGetTransaction() {
+            return new Object();
+        }
+
+        @Override
+        protected void doBegin(Object transaction, TransactionDefinition definition) {
+        }
+
+        @Override
+        protected void doCommit(DefaultTransactionStatus status) {
+            committed.addAll(pending);
+            pending.clear();
+            commits.incrementAndGet();
+        }
+
+        @Override
+        protected void doRollback(DefaultTransactionStatus status) {
+            pending.clear();
+            rollbacks.incrementAndGet();
+        }
+    }
+}
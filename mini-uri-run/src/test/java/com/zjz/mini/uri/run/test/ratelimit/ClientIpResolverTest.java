@@ -0,0 +1,53 @@
+package com.zjz.mini.uri.run.test.ratelimit;
+
+import com.zjz.mini.uri.run.infrastructure.ratelimit.ClientIpResolver;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.test.util.ReflectionTestUtils;
+
+public class ClientIpResolverTest {
+
+    private static ClientIpResolver resolver(String... trustedProxies) {
+        ClientIpResolver resolver = new ClientIpResolver();
+        ReflectionTestUtils.setField(resolver, "trustedProxies", trustedProxies);
+        resolver.init();
+        return resolver;
+    }
+
+    private static MockHttpServletRequest request(String remoteAddr, String forwardedFor) {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.setRemoteAddr(remoteAddr);
+        if (null != forwardedFor) {
+            request.addHeader("X-Forwarded-For", forwardedFor);
+        }
+        return request;
+    }
+
+    /**
+     * 未配置可信代理时忽略客户端自带的转发头
+     */
+    @Test
+    public void test_untrusted_headers_ignored() {
+        ClientIpResolver resolver = resolver();
+        Assertions.assertEquals("203.0.113.9", resolver.resolve(request("203.0.113.9", "1.2.3.4")));
+        MockHttpServletRequest realIp = request("203.0.113.9", null);
+        realIp.addHeader("X-Real-IP", "1.2.3.4");
+        Assertions.assertEquals("203.0.113.9", resolver.resolve(realIp));
+    }
+
+    /**
+     * 来自可信代理时从右向左取第一个不可信地址，客户端伪造的最左侧地址不生效
+     */
+    @Test
+    public void test_trusted_proxy_chain() {
+        ClientIpResolver resolver = resolver("127.0.0.1", "10.0.0.0/8");
+        Assertions.assertEquals("198.51.100.7",
+                resolver.resolve(request("127.0.0.1", "1.2.3.4, 198.51.100.7, 10.1.2.3")));
+        Assertions.assertEquals("198.51.100.7", resolver.resolve(request("10.9.9.9", "198.51.100.7")));
+        // 可信代理未携带转发头
+        Assertions.assertEquals("10.9.9.9", resolver.resolve(request("10.9.9.9", null)));
+        // 不可信来源
+        Assertions.assertEquals("192.168.1.1", resolver.resolve(request("192.168.1.1", "1.2.3.4")));
+    }
+}
@@ -0,0 +1,62 @@
+package com.zjz.mini.uri.run.test.ratelimit;
+
+import com.zjz.mini.uri.run.infrastructure.ratelimit.GlobalRateBudget;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+public class GlobalRateBudgetTest {
+
+    /**
+     * 并发请求放行数量不超过全局限额，租用期间其他线程不持有锁等待
+     */
+    @Test
+    @SuppressWarnings("unchecked")
+    public void test_concurrent_lease() {
+        AtomicLong counter = new AtomicLong();
+        AtomicInteger inFlight = new AtomicInteger();
+        AtomicInteger maxInFlight = new AtomicInteger();
+        ValueOperations<String, Object> valueOps = Mockito.mock(ValueOperations.class);
+        Mockito.when(valueOps.increment(Mockito.anyString(), Mockito.anyLong())).thenAnswer(inv -> {
+            maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+            try {
+                Thread.sleep(1);
+                return counter.addAndGet(inv.getArgument(1));
+            } finally {
+                inFlight.decrementAndGet();
+            }
+        });
+        RedisTemplate<String, Object> template = Mockito.mock(RedisTemplate.class);
+        Mockito.when(template.opsForValue()).thenReturn(valueOps);
+
+        long permits = 1000;
+        GlobalRateBudget budget = new GlobalRateBudget("test", permits, 50, template);
+        // 在一秒的开头开始，避免跨秒
+        long second = System.currentTimeMillis() / 1000;
+        while (System.currentTimeMillis() / 1000 == second) {
+            Thread.onSpinWait();
+        }
+        AtomicInteger granted = new AtomicInteger();
+        try (ExecutorService executor = Executors.newFixedThreadPool(16)) {
+            for (int t = 0; t < 16; t++) {
+                executor.submit(() -> {
+                    for (int i = 0; i < 200; i++) {
+                        if (budget.tryAcquire()) {
+                            granted.incrementAndGet();
+                        }
+                    }
+                });
+            }
+        }
+        Assertions.assertEquals(1, maxInFlight.get());
+        Assertions.assertTrue(granted.get() <= permits * 2, "granted: " + granted.get());
+        Assertions.assertTrue(granted.get() >= permits, "granted: " + granted.get());
+    }
+}
@@ -0,0 +1,83 @@
+package com.zjz.mini.uri.run.test.ratelimit;
+
+import com.zjz.mini.uri.run.infrastructure.ratelimit.TokenBucketLimiter;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.util.StopWatch;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class TokenBucketLimiterTest {
+
+    /**
+     * 突发用尽后拒绝，按速率补充，不同 IP 互不影响
+     */
+    @Test
+    public void test_burst_and_refill() throws Exception {
+        TokenBucketLimiter limiter = new TokenBucketLimiter(10, 5, 16, 1000);
+        for (int i = 0; i < 5; i++) {
+            Assertions.assertTrue(limiter.tryAcquire("10.0.0.1"));
+        }
+        Assertions.assertFalse(limiter.tryAcquire("10.0.0.1"));
+        Assertions.assertTrue(limiter.tryAcquire("10.0.0.2"));
+        Thread.sleep(250);
+        // 250ms 补充约 2.5 个令牌，允许调度误差
+        int refilled = 0;
+        for (int i = 0; i < 5; i++) {
+            if (limiter.tryAcquire("10.0.0.1")) {
+                refilled++;
+            }
+        }
+        Assertions.assertTrue(refilled >= 2 && refilled < 5, "refilled: " + refilled);
+    }
+
+    /**
+     * 同一 IP 的并发请求放行数量不超过桶容量，桶数量有界
+     */
+    @Test
+    public void test_concurrent_and_bounded() {
+        TokenBucketLimiter limiter = new TokenBucketLimiter(0.001, 100, 64, 10_000);
+        AtomicInteger passed = new AtomicInteger();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int t = 0; t < 64; t++) {
+                executor.submit(() -> {
+                    for (int i = 0; i < 1000; i++) {
+                        if (limiter.tryAcquire("hot")) {
+                            passed.incrementAndGet();
+                        }
+                    }
+                });
+            }
+        }
+        Assertions.assertEquals(100, passed.get());
+
+        for (int i = 0; i < 100_000; i++) {
+            limiter.tryAcquire("192.168." + i);
+        }
+        Assertions.assertTrue(limiter.size() <= 10_000 + 64 * 16, "size: " + limiter.size());
+    }
+
+    @Test
+    @EnabledIfSystemProperty(named = "miniuri.bench", matches = "true")
+    public void test_benchmark() {
+        TokenBucketLimiter limiter = new TokenBucketLimiter(0.001, 100, 64, 10_000);
+        StopWatch stopWatch = new StopWatch("token bucket");
+        stopWatch.start("1,000,000 acquires over 100,000 ips, 8 threads");
+        try (ExecutorService executor = Executors.newFixedThreadPool(8)) {
+            for (int t = 0; t < 8; t++) {
+                int thread = t;
+                executor.submit(() -> {
+                    for (int i = 0; i < 125_000; i++) {
+                        limiter.tryAcquire("192.168." + ((thread * 125_000 + i) % 100_000));
+                    }
+                });
+            }
+        }
+        stopWatch.stop();
+        System.out.println(stopWatch.prettyPrint());
+        Assertions.assertTrue(limiter.size() <= 10_000 + 64 * 16, "size: " + limiter.size());
+    }
+}
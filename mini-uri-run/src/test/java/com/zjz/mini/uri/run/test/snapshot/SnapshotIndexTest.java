@@ -0,0 +1,77 @@
+package com.zjz.mini.uri.run.test.snapshot;
+
+import com.zjz.mini.uri.run.infrastructure.snapshot.SnapshotIndex;
+import com.zjz.mini.uri.run.infrastructure.snapshot.SnapshotIndexWriter;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.util.StopWatch;
+
+import java.nio.file.Path;
+
+public class SnapshotIndexTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    public void test_round_trip() throws Exception {
+        int count = 20_000;
+        Path file = write("snapshot-test.idx", count);
+        try (SnapshotIndex index = SnapshotIndex.open(file)) {
+            Assertions.assertEquals(count + 1, index.getEntryCount());
+            for (int i = 0; i < count; i++) {
+                Assertions.assertEquals("https://www.zhangjinzhao.com/" + i, index.get("c" + Integer.toString(i, 36)));
+            }
+            Assertions.assertNull(index.get("expired"));
+            Assertions.assertNull(index.get("missing"));
+        }
+    }
+
+    @Test
+    @EnabledIfSystemProperty(named = "miniuri.bench", matches = "true")
+    public void test_benchmark() throws Exception {
+        int count = 200_000;
+        Path file = write("snapshot-bench.idx", count);
+        StopWatch stopWatch = new StopWatch();
+        stopWatch.start("open");
+        try (SnapshotIndex index = SnapshotIndex.open(file)) {
+            stopWatch.stop();
+            stopWatch.start("get");
+            for (int i = 0; i < count; i++) {
+                Assertions.assertNotNull(index.get("c" + Integer.toString(i, 36)));
+            }
+            stopWatch.stop();
+        }
+        System.out.println(stopWatch.prettyPrint());
+    }
+
+    @Test
+    public void test_empty() throws Exception {
+        Path file = dir.resolve("snapshot-empty.idx");
+        try (SnapshotIndexWriter writer = new SnapshotIndexWriter(file)) {
+            writer.finish();
+        }
+        try (SnapshotIndex index = SnapshotIndex.open(file)) {
+            Assertions.assertEquals(0, index.getEntryCount());
+            Assertions.assertNull(index.get("abc"));
+        }
+    }
+
+    /**
+     * 写入 count 条永不过期的映射与一条已过期的映射
+     */
+    private Path write(String name, int count) throws Exception {
+        Path file = dir.resolve(name);
+        long past = System.currentTimeMillis() / 1000 - 60;
+        try (SnapshotIndexWriter writer = new SnapshotIndexWriter(file)) {
+            for (int i = 0; i < count; i++) {
+                writer.append("c" + Integer.toString(i, 36), "https://www.zhangjinzhao.com/" + i, 0);
+            }
+            writer.append("expired", "https://www.zhangjinzhao.com/expired", past);
+            writer.finish();
+        }
+        return file;
+    }
+}
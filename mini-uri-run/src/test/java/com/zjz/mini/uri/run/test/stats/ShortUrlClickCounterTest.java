@@ -0,0 +1,164 @@
+package com.zjz.mini.uri.run.test.stats;
+
+import com.zjz.mini.uri.run.domain.dao.UrlClickStatsMapper;
+import com.zjz.mini.uri.run.domain.entity.UrlClickStats;
+import com.zjz.mini.uri.run.infrastructure.stats.ClickRingBuffer;
+import com.zjz.mini.uri.run.infrastructure.stats.ShortUrlClickCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.mockito.Mockito;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.util.StopWatch;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+public class ShortUrlClickCounterTest {
+
+    /**
+     * 多个生产者并发写入、单个消费者读取，不丢失不重复；满时 offer 返回 false
+     */
+    @Test
+    public void test_ring_buffer_concurrent() throws Exception {
+        ClickRingBuffer buffer = new ClickRingBuffer(1000);
+        Assertions.assertEquals(1024, buffer.capacity());
+        int producers = 4;
+        int perProducer = 102_400;
+        Map<String, AtomicInteger> received = new ConcurrentHashMap<>();
+        AtomicLong total = new AtomicLong();
+        AtomicBoolean done = new AtomicBoolean();
+        Thread consumer = Thread.ofPlatform().start(() -> {
+            while (!done.get() || buffer.size() > 0) {
+                if (buffer.drain(v -> {
+                    received.computeIfAbsent(v, k -> new AtomicInteger()).incrementAndGet();
+                    total.incrementAndGet();
+                }, 256) == 0) {
+                    Thread.onSpinWait();
+                }
+            }
+        });
+        try (ExecutorService executor = Executors.newFixedThreadPool(producers)) {
+            for (int p = 0; p < producers; p++) {
+                executor.submit(() -> {
+                    for (int i = 0; i < perProducer; i++) {
+                        while (!buffer.offer("code" + (i & 63))) {
+                            Thread.yield();
+                        }
+                    }
+                });
+            }
+        }
+        done.set(true);
+        consumer.join();
+        Assertions.assertEquals((long) producers * perProducer, total.get());
+        Assertions.assertEquals(64, received.size());
+        received.values().forEach(c -> Assertions.assertEquals(producers * perProducer / 64, c.get()));
+
+        ClickRingBuffer small = new ClickRingBuffer(4);
+        for (int i = 0; i < 4; i++) {
+            Assertions.assertTrue(small.offer("a"));
+        }
+        Assertions.assertFalse(small.offer("a"));
+    }
+
+    /**
+     * 点击按短链合并后写入，停机时排空；写入失败的增量保留到下次
+     */
+    @Test
+    public void test_counter_coalesces_and_retries() {
+        Map<String, Long> stored = new ConcurrentHashMap<>();
+        AtomicInteger calls = new AtomicInteger();
+        UrlClickStatsMapper mapper = Mockito.mock(UrlClickStatsMapper.class);
+        Mockito.when(mapper.addBatch(Mockito.anyList())).thenAnswer(inv -> {
+            if (calls.incrementAndGet() == 1) {
+                throw new IllegalStateException("database unavailable");
+            }
+            List<UrlClickStats> rows = inv.getArgument(0);
+            rows.forEach(r -> stored.merge(r.getShortUrl(), r.getClickCount(), Long::sum));
+            return rows.size();
+        });
+        ShortUrlClickCounter counter = newCounter(mapper, 50);
+        counter.start();
+        for (int i = 0; i < 10_000; i++) {
+            counter.record("code" + (i % 10));
+        }
+        // 第一次写入失败，等待重试成功
+        long deadline = System.currentTimeMillis() + 5000;
+        while (calls.get() < 2 && System.currentTimeMillis() < deadline) {
+            Thread.onSpinWait();
+        }
+        for (int i = 0; i < 1000; i++) {
+            counter.record("code0");
+        }
+        counter.stop();
+        Assertions.assertEquals(10, stored.size());
+        Assertions.assertEquals(2000L, stored.get("code0"));
+        Assertions.assertEquals(1000L, stored.get("code9"));
+
+        // 停止后的点击不再进入队列，计入丢弃
+        counter.record("code0");
+        MeterRegistry registry = (MeterRegistry) ReflectionTestUtils.getField(counter, "meterRegistry");
+        Assertions.assertEquals(1.0, registry.get("miniuri.click.dropped").counter().count());
+        Assertions.assertEquals(2000L, stored.get("code0"));
+    }
+
+    /**
+     * 跳转线程上的记录开销
+     */
+    @Test
+    @EnabledIfSystemProperty(named = "miniuri.bench", matches = "true")
+    public void test_record_benchmark() {
+        AtomicLong stored = new AtomicLong();
+        UrlClickStatsMapper mapper = Mockito.mock(UrlClickStatsMapper.class);
+        Mockito.when(mapper.addBatch(Mockito.anyList())).thenAnswer(inv -> {
+            List<UrlClickStats> rows = inv.getArgument(0);
+            rows.forEach(r -> stored.addAndGet(r.getClickCount()));
+            return rows.size();
+        });
+        ShortUrlClickCounter counter = newCounter(mapper, 1000);
+        counter.start();
+        String[] codes = new String[1024];
+        for (int i = 0; i < codes.length; i++) {
+            codes[i] = "code" + i;
+        }
+        int threads = 4;
+        int perThread = 1_000_000;
+        StopWatch stopWatch = new StopWatch("short url click counter");
+        stopWatch.start(threads + " threads x " + perThread + " record(code)");
+        try (ExecutorService executor = Executors.newFixedThreadPool(threads)) {
+            for (int t = 0; t < threads; t++) {
+                executor.submit(() -> {
+                    for (int i = 0; i < perThread; i++) {
+                        counter.record(codes[i & 1023]);
+                    }
+                });
+            }
+        }
+        stopWatch.stop();
+        counter.stop();
+        System.out.println(stopWatch.prettyPrint());
+        System.out.printf("ns/record per thread: %.1f%n", (double) stopWatch.getTotalTimeNanos() / perThread);
+        // 队列满时丢弃，写入的点击数不超过记录数
+        Assertions.assertTrue(stored.get() > 0 && stored.get() <= (long) threads * perThread);
+    }
+
+    private static ShortUrlClickCounter newCounter(UrlClickStatsMapper mapper, long flushIntervalMillis) {
+        ShortUrlClickCounter counter = new ShortUrlClickCounter();
+        ReflectionTestUtils.setField(counter, "enabled", true);
+        ReflectionTestUtils.setField(counter, "bufferCapacity", 65536);
+        ReflectionTestUtils.setField(counter, "flushIntervalMillis", flushIntervalMillis);
+        ReflectionTestUtils.setField(counter, "batchSize", 500);
+        ReflectionTestUtils.setField(counter, "urlClickStatsMapper", mapper);
+        ReflectionTestUtils.setField(counter, "meterRegistry", new SimpleMeterRegistry());
+        return counter;
+    }
+}
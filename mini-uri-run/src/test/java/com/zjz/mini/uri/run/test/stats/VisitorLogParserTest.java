@@ -0,0 +1,199 @@
+package com.zjz.mini.uri.run.test.stats;
+
+import cn.hutool.crypto.SecureUtil;
+import com.zjz.mini.uri.run.application.VisitorLogAnalyzer;
+import com.zjz.mini.uri.run.application.VisitorStatsAggregator;
+import com.zjz.mini.uri.run.domain.entity.VisitorLog;
+import com.zjz.mini.uri.run.infrastructure.persistence.VisitorLogBatchWriter;
+import com.zjz.mini.uri.run.infrastructure.stats.VisitorLogParser;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mockito;
+import org.springframework.data.redis.core.HashOperations;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.util.StopWatch;
+
+import java.io.BufferedOutputStream;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+public class VisitorLogParserTest {
+
+    private static final String UA = "Mozilla/5.0 (iPhone; CPU iPhone OS 17_0) 微信/8.0.40 ✓";
+
+    @TempDir
+    Path dir;
+
+    private static String event(int i) {
+        return "2025-11-03 10:00:00." + String.format("%03d", i % 1000) + "|VISITOR_EVENT|/|首页|10.0.0." + (i % 256) + "|" + UA + "|https://www.google.com/?q=短链\n";
+    }
+
+    /**
+     * UTF-8 字段不乱码，访客 ID 与 md5(ip|ua) 一致，跳过非事件行与格式错误行，末尾不完整的行不消费
+     */
+    @Test
+    public void test_parse() throws Exception {
+        Path file = dir.resolve("visitor-stats.log");
+        String content = event(1)
+                + "2025-11-03 10:00:01.000|other message\n"
+                + "bad-time|VISITOR_EVENT|/|首页|1.1.1.1|ua|-\n"
+                + event(2).replace("\n", "\r\n")
+                + "x".repeat(300) + "\n"
+                + event(3)
+                + "2025-11-03 10:00:02.000|VISITOR_EV";
+        Files.writeString(file, content);
+        long size = Files.size(file);
+        List<String[]> events = new ArrayList<>();
+        VisitorLogParser.Result result;
+        // 小缓冲区覆盖跨块与超长行
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            result = new VisitorLogParser(256).parse(channel, 0, size, (time, path, ip, ua, referer, visitorId) ->
+                    events.add(new String[]{time.toString(), path, ip, ua, referer, visitorId}));
+        }
+        Assertions.assertEquals(3, events.size());
+        Assertions.assertEquals(3, result.events());
+        // 时间戳错误的事件行与超长行
+        Assertions.assertEquals(2, result.malformed());
+        Assertions.assertEquals(size - "2025-11-03 10:00:02.000|VISITOR_EV".getBytes(StandardCharsets.UTF_8).length, result.endOffset());
+        String[] first = events.get(0);
+        Assertions.assertEquals(LocalDateTime.of(2025, 11, 3, 10, 0, 0, 1_000_000).toString(), first[0]);
+        Assertions.assertEquals("/", first[1]);
+        Assertions.assertEquals("10.0.0.1", first[2]);
+        Assertions.assertEquals(UA, first[3]);
+        Assertions.assertEquals("https://www.google.com/?q=短链", first[4]);
+        Assertions.assertEquals(SecureUtil.md5("10.0.0.1|" + UA), first[5]);
+        // CRLF 不进入字段
+        Assertions.assertEquals("https://www.google.com/?q=短链", events.get(1)[4]);
+    }
+
+    /**
+     * 当前文件按天重命名后，断点跟随原文件，滚动文件剩余部分与新文件都只处理一次
+     */
+    @Test
+    public void test_rotation() throws Exception {
+        Map<Object, Object> checkpoint = new HashMap<>();
+        List<VisitorLog> written = new ArrayList<>();
+        VisitorLogAnalyzer analyzer = newAnalyzer(checkpoint, written);
+        Path active = dir.resolve("visitor-stats.log");
+
+        Files.writeString(active, event(0) + event(1) + event(2));
+        analyzer.analyzeLogFile();
+        Assertions.assertEquals(3, written.size());
+
+        // 滚动前追加，滚动后写入新文件
+        Files.writeString(active, event(3) + event(4), StandardOpenOption.APPEND);
+        Files.move(active, dir.resolve("visitor-stats.2025-11-03.log"));
+        Files.writeString(active, event(5));
+        analyzer.analyzeLogFile();
+        Assertions.assertEquals(6, written.size());
+
+        // 没有新增时不重复处理
+        analyzer.analyzeLogFile();
+        Assertions.assertEquals(6, written.size());
+        for (int i = 0; i < 6; i++) {
+            Assertions.assertEquals("10.0.0." + i, written.get(i).getIpAddress());
+        }
+
+        // 截断后（大小小于断点偏移量）从头读取
+        Files.writeString(active, "2025-11-03 10:00:00.006|VISITOR_EVENT|/|首页|10.0.0.6|ua|-\n");
+        analyzer.analyzeLogFile();
+        Assertions.assertEquals(7, written.size());
+    }
+
+    @SuppressWarnings("unchecked")
+    private VisitorLogAnalyzer newAnalyzer(Map<Object, Object> checkpoint, List<VisitorLog> written) {
+        HashOperations<String, Object, Object> hashOps = Mockito.mock(HashOperations.class);
+        Mockito.when(hashOps.entries(Mockito.anyString())).thenAnswer(inv -> new HashMap<>(checkpoint));
+        Mockito.doAnswer(inv -> {
+            checkpoint.putAll(inv.getArgument(1));
+            return null;
+        }).when(hashOps).putAll(Mockito.anyString(), Mockito.anyMap());
+        ValueOperations<String, String> valueOps = Mockito.mock(ValueOperations.class);
+        StringRedisTemplate template = Mockito.mock(StringRedisTemplate.class);
+        Mockito.when(template.<Object, Object>opsForHash()).thenReturn(hashOps);
+        Mockito.when(template.opsForValue()).thenReturn(valueOps);
+        VisitorLogBatchWriter writer = Mockito.mock(VisitorLogBatchWriter.class);
+        Mockito.when(writer.writeAll(Mockito.anyList())).thenAnswer(inv -> {
+            List<VisitorLog> rows = inv.getArgument(0);
+            written.addAll(rows);
+            return rows.size();
+        });
+
+        VisitorLogAnalyzer analyzer = new VisitorLogAnalyzer();
+        ReflectionTestUtils.setField(analyzer, "stringRedisTemplate", template);
+        ReflectionTestUtils.setField(analyzer, "visitorLogBatchWriter", writer);
+        ReflectionTestUtils.setField(analyzer, "visitorStatsAggregator", Mockito.mock(VisitorStatsAggregator.class));
+        ReflectionTestUtils.setField(analyzer, "logDir", dir.toString());
+        ReflectionTestUtils.setField(analyzer, "bufferBytes", 1 << 16);
+        return analyzer;
+    }
+
+    /**
+     * 原实现（RandomAccessFile.readLine + split + DateTimeFormatter + md5）与字节解析的吞吐对比
+     * 原实现每字节一次系统调用，只读取前 legacy.mb，按 MB/s 比较
+     * mvn test -pl mini-uri-run -am -Dtest=VisitorLogParserTest -Dminiuri.bench=true [-Dminiuri.bench.log.mb=2048] [-Dminiuri.bench.legacy.mb=256]
+     */
+    @Test
+    @EnabledIfSystemProperty(named = "miniuri.bench", matches = "true")
+    public void test_throughput_benchmark() throws Exception {
+        long targetBytes = Long.getLong("miniuri.bench.log.mb", 2048) << 20;
+        long legacyBytes = Math.min(targetBytes, Long.getLong("miniuri.bench.legacy.mb", 256) << 20);
+        Path file = dir.resolve("visitor-stats.log");
+        try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(file), 1 << 20)) {
+            long written = 0;
+            for (int i = 0; written < targetBytes; i++) {
+                byte[] line = event(i).getBytes(StandardCharsets.UTF_8);
+                out.write(line);
+                written += line.length;
+            }
+        }
+        long size = Files.size(file);
+        StopWatch stopWatch = new StopWatch("visitor log parser, " + (size >> 20) + " MB");
+
+        long[] parsed = new long[1];
+        stopWatch.start("VisitorLogParser(FileChannel, 1 MB buffer)");
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            new VisitorLogParser(1 << 20).parse(channel, 0, size, (time, path, ip, ua, referer, visitorId) -> parsed[0]++);
+        }
+        stopWatch.stop();
+        double parserMbps = (size >> 20) / stopWatch.lastTaskInfo().getTimeSeconds();
+
+        long legacy = 0;
+        long legacyRead;
+        DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss.SSS");
+        stopWatch.start("legacy RandomAccessFile.readLine + split, first " + (legacyBytes >> 20) + " MB");
+        try (RandomAccessFile raf = new RandomAccessFile(file.toFile(), "r")) {
+            String line;
+            while (raf.getFilePointer() < legacyBytes && (line = raf.readLine()) != null) {
+                if (line.contains("VISITOR_EVENT")) {
+                    String[] parts = line.split("\\|");
+                    LocalDateTime.parse(parts[0], formatter);
+                    SecureUtil.md5(parts[4] + "|" + parts[5]);
+                    legacy++;
+                }
+            }
+            legacyRead = raf.getFilePointer();
+        }
+        stopWatch.stop();
+        double legacyMbps = (legacyRead / (double) (1 << 20)) / stopWatch.lastTaskInfo().getTimeSeconds();
+
+        System.out.println(stopWatch.prettyPrint());
+        System.out.printf("MB/s legacy: %.1f, parser: %.1f%n", legacyMbps, parserMbps);
+        Assertions.assertTrue(legacy > 0 && parsed[0] >= legacy);
+    }
+}